@@ -0,0 +1,133 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.bus.IMessagePublication;
+import net.engio.mbassy.bus.config.BusConfiguration;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.bus.error.IPublicationErrorHandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The configurations of the asynchronous message dispatch and handler invocation under benchmark
+ */
+public final class AsyncConfigurations {
+
+    private AsyncConfigurations() {
+    }
+
+    /**
+     * The queue of pending publications that is shared by the dispatcher threads
+     */
+    public enum QueueType {
+
+        // the default queue
+        LinkedBlocking {
+            @Override
+            public BlockingQueue<IMessagePublication> create() {
+                return new LinkedBlockingQueue<IMessagePublication>(Integer.MAX_VALUE);
+            }
+        },
+
+        ArrayBlocking {
+            @Override
+            public BlockingQueue<IMessagePublication> create() {
+                return new ArrayBlockingQueue<IMessagePublication>(BoundedCapacity);
+            }
+        },
+
+        LinkedTransfer {
+            @Override
+            public BlockingQueue<IMessagePublication> create() {
+                return new LinkedTransferQueue<IMessagePublication>();
+            }
+        },
+
+        // direct hand-off, a publisher blocks until a dispatcher takes the publication
+        Synchronous {
+            @Override
+            public BlockingQueue<IMessagePublication> create() {
+                return new SynchronousQueue<IMessagePublication>();
+            }
+        };
+
+        // capacity of bounded queues
+        public static final int BoundedCapacity = 1 << 16;
+
+        public abstract BlockingQueue<IMessagePublication> create();
+    }
+
+    /**
+     * The executor that runs handlers with {@code Invoke.Asynchronously}
+     */
+    public enum ExecutorType {
+
+        // the default executor
+        ThreadPool {
+            @Override
+            public ExecutorService create() {
+                return Feature.AsynchronousHandlerInvocation.Default().getExecutor();
+            }
+        },
+
+        Fixed {
+            @Override
+            public ExecutorService create() {
+                return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), HandlerThreads);
+            }
+        },
+
+        Cached {
+            @Override
+            public ExecutorService create() {
+                return Executors.newCachedThreadPool(HandlerThreads);
+            }
+        },
+
+        WorkStealing {
+            @Override
+            public ExecutorService create() {
+                return new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+            }
+        };
+
+        public abstract ExecutorService create();
+    }
+
+    private static final ThreadFactory HandlerThreads = new ThreadFactory() {
+
+        private final AtomicInteger threadID = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName("BenchmarkHandler-" + threadID.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    /**
+     * Create the configuration of an {@code MBassador} with the given asynchronous setup
+     */
+    public static IBusConfiguration create(int dispatchers, QueueType queue, ExecutorType executor,
+                                           IPublicationErrorHandler errorHandler) {
+        return new BusConfiguration()
+                .addFeature(Feature.SyncPubSub.Default())
+                .addFeature(new Feature.AsynchronousHandlerInvocation().setExecutor(executor.create()))
+                .addFeature(Feature.AsynchronousMessageDispatch.Default()
+                        .setNumberOfMessageDispatchers(dispatchers)
+                        .setMessageQueue(queue.create()))
+                .addPublicationErrorHandler(errorHandler);
+    }
+}
@@ -0,0 +1,125 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.benchmarks.AsyncConfigurations.ExecutorType;
+import net.engio.mbassy.benchmarks.AsyncConfigurations.QueueType;
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.listener.Invoke;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks of {@code MBassador.publishAsync}, i.e. from the publication of a message until its
+ * arrival at a handler that is invoked synchronously by the dispatcher thread or asynchronously by the executor.
+ * <ul>
+ *     <li>{@link #publishAsync()} measures the throughput with a bounded number of publications in flight</li>
+ *     <li>{@link #roundTrip()} measures the latency distribution (p50, p99, p99.9 ...) of single publications</li>
+ * </ul>
+ * The number of producer threads is set with the {@code -t} option of JMH. The executor is only used by
+ * handlers that are invoked asynchronously. For a latency distribution of publications at a fixed rate see
+ * {@link AsyncLatencyHarness}.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncDispatchBenchmark implements Probe.Sink {
+
+    // the maximum number of publications in flight during a throughput measurement
+    public static final int Window = 1024;
+
+    @Param({"1", "2", "4"})
+    public int dispatchers;
+
+    @Param({"LinkedBlocking", "ArrayBlocking", "LinkedTransfer"})
+    public QueueType queue;
+
+    @Param({"ThreadPool", "Fixed", "WorkStealing"})
+    public ExecutorType executor;
+
+    @Param({"Synchronously", "Asynchronously"})
+    public Invoke delivery;
+
+    private MBassador<Object> bus;
+
+    private RecordingErrorHandler errors;
+
+    private Object listener;
+
+    private final Semaphore inFlight = new Semaphore(Window);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        errors = new RecordingErrorHandler();
+        bus = new MBassador<Object>(AsyncConfigurations.create(dispatchers, queue, executor, errors));
+        listener = Probe.listener(delivery);
+        bus.subscribe(listener);
+    }
+
+    // publications of an iteration must not be delivered during the next one
+    @TearDown(Level.Iteration)
+    public void drain() throws InterruptedException {
+        if (!inFlight.tryAcquire(Window, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Publications were not delivered within a minute");
+        }
+        inFlight.release(Window);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bus.shutdown();
+        errors.verify();
+    }
+
+    @Override
+    public void arrived(Probe probe, long nanoTime) {
+        inFlight.release();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void publishAsync() throws InterruptedException {
+        inFlight.acquire();
+        bus.publishAsync(new Probe(this, System.nanoTime()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void roundTrip() throws InterruptedException {
+        Arrival arrival = new Arrival();
+        bus.publishAsync(new Probe(arrival, System.nanoTime()));
+        arrival.await();
+    }
+
+    private static final class Arrival implements Probe.Sink {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public void arrived(Probe probe, long nanoTime) {
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            if (!latch.await(1, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Publication was not delivered within a minute");
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.benchmarks.AsyncConfigurations.ExecutorType;
+import net.engio.mbassy.benchmarks.AsyncConfigurations.QueueType;
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.listener.Invoke;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the end-to-end latency distribution of {@code MBassador.publishAsync} at a fixed publication rate.
+ * Unlike a closed loop benchmark, the producers keep to their schedule when the bus falls behind and the latency
+ * of each message is taken from the time it was scheduled for, such that queueing delays are not hidden
+ * (coordinated omission). Latencies are recorded in an HdrHistogram and printed as percentiles in microseconds.
+ *
+ * Every option takes a comma separated list of values and all combinations are measured, e.g.
+ * <pre>
+ * java -cp target/benchmarks.jar net.engio.mbassy.benchmarks.AsyncLatencyHarness \
+ *     producers=1,4 dispatchers=1,2 queue=LinkedBlocking,LinkedTransfer delivery=Asynchronously rate=50000
+ * </pre>
+ * The option {@code output} names a directory to which the full percentile distribution of each combination
+ * is written in the .hgrm format of HdrHistogram.
+ */
+public final class AsyncLatencyHarness {
+
+    private static final Map<String, String> Defaults = new HashMap<String, String>();
+
+    static {
+        Defaults.put("producers", "1,4");
+        Defaults.put("dispatchers", "2");
+        Defaults.put("queue", QueueType.LinkedBlocking.name());
+        Defaults.put("executor", ExecutorType.ThreadPool.name());
+        Defaults.put("delivery", Invoke.Synchronously + "," + Invoke.Asynchronously);
+        // messages per second of all producers together
+        Defaults.put("rate", "100000");
+        Defaults.put("warmup", "5");
+        Defaults.put("duration", "10");
+        Defaults.put("output", "");
+    }
+
+    // producers park until the publication is due within this number of nanoseconds, then spin
+    private static final long SpinThreshold = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private AsyncLatencyHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int rate = Integer.parseInt(options.get("rate"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        int duration = Integer.parseInt(options.get("duration"));
+        String output = options.get("output");
+
+        System.out.printf("%-10s %-12s %-15s %-13s %-14s %10s %9s %9s %9s %9s %9s %10s%n", "producers", "dispatchers",
+                "queue", "executor", "delivery", "messages", "p50", "p90", "p99", "p99.9", "p99.99", "max [us]");
+        for (String producers : values(options, "producers")) {
+            for (String dispatchers : values(options, "dispatchers")) {
+                for (String queue : values(options, "queue")) {
+                    for (String executor : values(options, "executor")) {
+                        for (String delivery : values(options, "delivery")) {
+                            Run run = new Run(Integer.parseInt(producers), Integer.parseInt(dispatchers),
+                                    QueueType.valueOf(queue), ExecutorType.valueOf(executor), Invoke.valueOf(delivery));
+                            Histogram histogram = run.measure(rate, warmup, duration);
+                            System.out.printf("%-10s %-12s %-15s %-13s %-14s %10d %9.1f %9.1f %9.1f %9.1f %9.1f %10.1f%n",
+                                    producers, dispatchers, queue, executor, delivery, histogram.getTotalCount(),
+                                    micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(90)),
+                                    micros(histogram.getValueAtPercentile(99)), micros(histogram.getValueAtPercentile(99.9)),
+                                    micros(histogram.getValueAtPercentile(99.99)), micros(histogram.getMaxValue()));
+                            if (!output.isEmpty()) {
+                                write(histogram, new File(output, run + ".hgrm"));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<String, String>(Defaults);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg : arg.substring(0, separator);
+            if (separator < 0 || !Defaults.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected name=value with one of " + Defaults.keySet());
+            }
+            options.put(name, arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static List<String> values(Map<String, String> options, String name) {
+        return Arrays.asList(options.get(name).split(","));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private static void write(Histogram histogram, File file) throws IOException {
+        file.getParentFile().mkdirs();
+        PrintStream out = new PrintStream(new FileOutputStream(file), false, "UTF-8");
+        try {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * The measurement of a single combination of options
+     */
+    private static final class Run implements Probe.Sink {
+
+        private final int producers;
+        private final int dispatchers;
+        private final QueueType queue;
+        private final ExecutorType executor;
+        private final Invoke delivery;
+
+        // latencies in nanoseconds
+        private final Recorder latencies = new Recorder(3);
+
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong arrived = new AtomicLong();
+
+        private Run(int producers, int dispatchers, QueueType queue, ExecutorType executor, Invoke delivery) {
+            this.producers = producers;
+            this.dispatchers = dispatchers;
+            this.queue = queue;
+            this.executor = executor;
+            this.delivery = delivery;
+        }
+
+        @Override
+        public void arrived(Probe probe, long nanoTime) {
+            latencies.recordValue(nanoTime - probe.getOrigin());
+            arrived.incrementAndGet();
+        }
+
+        Histogram measure(int rate, int warmup, int duration) throws InterruptedException {
+            RecordingErrorHandler errors = new RecordingErrorHandler();
+            MBassador<Object> bus = new MBassador<Object>(AsyncConfigurations.create(dispatchers, queue, executor, errors));
+            Object listener = Probe.listener(delivery);
+            bus.subscribe(listener);
+            try {
+                publish(bus, rate, warmup);
+                awaitArrivals();
+                latencies.getIntervalHistogram(); // discard the warmup
+                publish(bus, rate, duration);
+                awaitArrivals();
+                errors.verify();
+                return latencies.getIntervalHistogram();
+            } finally {
+                bus.shutdown();
+            }
+        }
+
+        private void publish(final MBassador<Object> bus, int rate, int seconds) throws InterruptedException {
+            final long interval = TimeUnit.SECONDS.toNanos(1) * producers / rate;
+            final long start = System.nanoTime();
+            final long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            List<Thread> threads = new ArrayList<Thread>(producers);
+            for (int i = 0; i < producers; i++) {
+                // the producers are staggered to spread the publications evenly
+                final long first = start + interval * i / producers;
+                Thread producer = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (long due = first; due < end; due += interval) {
+                            awaitSchedule(due);
+                            bus.publishAsync(new Probe(Run.this, due));
+                            published.incrementAndGet();
+                        }
+                    }
+                }, "Producer-" + i);
+                threads.add(producer);
+                producer.start();
+            }
+            for (Thread producer : threads) {
+                producer.join();
+            }
+        }
+
+        private void awaitSchedule(long due) {
+            long delay;
+            while ((delay = due - System.nanoTime()) > 0) {
+                if (delay > SpinThreshold) {
+                    LockSupport.parkNanos(delay - SpinThreshold);
+                }
+            }
+        }
+
+        private void awaitArrivals() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (arrived.get() < published.get()) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException((published.get() - arrived.get()) + " publications were not delivered within a minute");
+                }
+                Thread.sleep(10);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "producers-" + producers + "_dispatchers-" + dispatchers + "_" + queue + "_" + executor + "_" + delivery;
+        }
+    }
+}
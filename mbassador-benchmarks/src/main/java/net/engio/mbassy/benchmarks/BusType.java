@@ -0,0 +1,38 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.SyncMessageBus;
+import net.engio.mbassy.bus.common.IMessageBus;
+import net.engio.mbassy.bus.common.PubSubSupport;
+import net.engio.mbassy.bus.error.IPublicationErrorHandler;
+
+/**
+ * The bus implementations under benchmark, created with their default configuration
+ */
+public enum BusType {
+
+    SyncMessageBus {
+        @Override
+        public PubSubSupport<Object> create(IPublicationErrorHandler errorHandler) {
+            return new SyncMessageBus<Object>(errorHandler);
+        }
+    },
+
+    MBassador {
+        @Override
+        public PubSubSupport<Object> create(IPublicationErrorHandler errorHandler) {
+            return new MBassador<Object>(errorHandler);
+        }
+    };
+
+    public abstract PubSubSupport<Object> create(IPublicationErrorHandler errorHandler);
+
+    /**
+     * Stop the threads of the given bus, if it has any
+     */
+    public static void shutdown(PubSubSupport<?> bus) {
+        if (bus instanceof IMessageBus) {
+            ((IMessageBus) bus).shutdown();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.bus.BusRuntime;
+import net.engio.mbassy.bus.IMessagePublication;
+import net.engio.mbassy.bus.SyncMessageBus;
+import net.engio.mbassy.bus.common.PubSubSupport;
+import net.engio.mbassy.bus.config.BusConfiguration;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.listener.MetadataReader;
+import net.engio.mbassy.listener.References;
+import net.engio.mbassy.subscription.ISubscriptionManagerProvider;
+import net.engio.mbassy.subscription.SubscriptionFactory;
+import net.engio.mbassy.subscription.SubscriptionManager;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publication throughput while short-lived listeners are subscribed and unsubscribed concurrently.
+ * The {@code steady} group only publishes, the {@code churn} group publishes with the same number of threads
+ * while other threads subscribe and immediately unsubscribe new instances of the subscribed listener class.
+ * The degradation of the publish throughput is the difference between {@code steady} and {@code churn:publish}.
+ *
+ * Every iteration also reports how often the subscription manager rebuilt and invalidated its cache of subscriptions
+ * per message type, how often and how long threads waited for the lock of the subscription manager and for the lock
+ * of its concurrent set of non-listener classes and how long the threads were blocked on monitors, which is where
+ * the copy-on-write sets of the subscribed listeners synchronize their writers.
+ * The number of threads per group can be changed with the {@code -tg} option of JMH, e.g. {@code -tg 8,2}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+    @State(Scope.Group)
+    public static class Bus implements ISubscriptionManagerProvider {
+
+        // the number of listeners that stay subscribed
+        @Param({"10", "100"})
+        public int listeners;
+
+        @Param({"Weak", "Strong"})
+        public References references;
+
+        private PubSubSupport<Object> bus;
+
+        private volatile SubscriptionManager manager;
+
+        private RecordingErrorHandler errors;
+
+        private Object message;
+
+        private final List<Object> subscribed = new ArrayList<Object>();
+
+        // the statistics of the subscription manager at the start of the iteration
+        private long cacheRebuilds;
+        private long cacheInvalidations;
+        private long managerLockWaits;
+        private long managerLockWaitNanos;
+        private long setLockWaits;
+        private long setLockWaitNanos;
+
+        // the statistics of the subscription manager are reported by the first thread that completes the iteration
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        @Override
+        public SubscriptionManager createManager(MetadataReader reader, SubscriptionFactory factory, BusRuntime runtime) {
+            manager = new SubscriptionManager(reader, factory, runtime);
+            return manager;
+        }
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads.isThreadContentionMonitoringSupported()) {
+                threads.setThreadContentionMonitoringEnabled(true);
+            }
+            errors = new RecordingErrorHandler();
+            bus = new SyncMessageBus<Object>(new BusConfiguration()
+                    .addFeature(Feature.SyncPubSub.Default().setSubscriptionManagerProvider(this))
+                    .addPublicationErrorHandler(errors));
+            for (int i = 0; i < listeners; i++) {
+                Object listener = newListener();
+                subscribed.add(listener);
+                bus.subscribe(listener);
+            }
+            message = Messages.ofDepth(2);
+        }
+
+        @Setup(Level.Iteration)
+        public void snapshot() {
+            cacheRebuilds = manager.getCacheRebuildCount();
+            cacheInvalidations = manager.getCacheInvalidationCount();
+            managerLockWaits = manager.getLockStatistics().getWaitCount();
+            managerLockWaitNanos = manager.getLockStatistics().getWaitNanos();
+            setLockWaits = manager.getNonListenerLockStatistics().getWaitCount();
+            setLockWaitNanos = manager.getNonListenerLockStatistics().getWaitNanos();
+            reported.set(false);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            subscribed.clear();
+            errors.verify();
+        }
+
+        Object newListener() {
+            return Listeners.create(1, false, references);
+        }
+
+        boolean claimReport() {
+            return reported.compareAndSet(false, true);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long cacheRebuilds;
+        public long cacheInvalidations;
+        public long managerLockWaits;
+        public long managerLockWaitMicros;
+        public long setLockWaits;
+        public long setLockWaitMicros;
+        public long monitorBlockedMillis;
+
+        private long blockedAtStart;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            cacheRebuilds = 0;
+            cacheInvalidations = 0;
+            managerLockWaits = 0;
+            managerLockWaitMicros = 0;
+            setLockWaits = 0;
+            setLockWaitMicros = 0;
+            monitorBlockedMillis = 0;
+            blockedAtStart = blockedMillis();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(Bus state) {
+            monitorBlockedMillis = blockedMillis() - blockedAtStart;
+            if (state.claimReport()) {
+                SubscriptionManager manager = state.manager;
+                cacheRebuilds = manager.getCacheRebuildCount() - state.cacheRebuilds;
+                cacheInvalidations = manager.getCacheInvalidationCount() - state.cacheInvalidations;
+                managerLockWaits = manager.getLockStatistics().getWaitCount() - state.managerLockWaits;
+                managerLockWaitMicros = TimeUnit.NANOSECONDS.toMicros(
+                        manager.getLockStatistics().getWaitNanos() - state.managerLockWaitNanos);
+                setLockWaits = manager.getNonListenerLockStatistics().getWaitCount() - state.setLockWaits;
+                setLockWaitMicros = TimeUnit.NANOSECONDS.toMicros(
+                        manager.getNonListenerLockStatistics().getWaitNanos() - state.setLockWaitNanos);
+            }
+        }
+
+        // the accumulated time the current thread was blocked on monitors, if contention monitoring is available
+        private static long blockedMillis() {
+            ThreadInfo info = ManagementFactory.getThreadMXBean().getThreadInfo(Thread.currentThread().getId());
+            return info == null ? 0 : Math.max(0, info.getBlockedTime());
+        }
+    }
+
+    @Benchmark
+    @Group("steady")
+    @GroupThreads(4)
+    public IMessagePublication steadyPublish(Bus state, Counters counters) {
+        return state.bus.publish(state.message);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(4)
+    public IMessagePublication publish(Bus state, Counters counters) {
+        return state.bus.publish(state.message);
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(2)
+    public boolean churn(Bus state, Counters counters) {
+        Object listener = state.newListener();
+        state.bus.subscribe(listener);
+        return state.bus.unsubscribe(listener);
+    }
+}
@@ -0,0 +1,188 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.listener.Filter;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+import net.engio.mbassy.subscription.SubscriptionContext;
+
+/**
+ * The listeners used by the benchmarks. Each variant combines a number of handlers of {@link Messages.Root},
+ * the reference type and whether its handlers are filtered. The filter accepts every message such that
+ * filtered and unfiltered variants receive the same messages and differ only in the cost of filtering.
+ */
+public final class Listeners {
+
+    private Listeners() {
+    }
+
+    /**
+     * Create a new listener with the given number of handlers (1 or 4)
+     */
+    public static Counting create(int handlers, boolean filtered, References references) {
+        boolean strong = references == References.Strong;
+        switch (handlers) {
+            case 1:
+                if (filtered) {
+                    return strong ? new StrongFilteredOne() : new WeakFilteredOne();
+                }
+                return strong ? new StrongOne() : new WeakOne();
+            case 4:
+                if (filtered) {
+                    return strong ? new StrongFilteredFour() : new WeakFilteredFour();
+                }
+                return strong ? new StrongFour() : new WeakFour();
+            default:
+                throw new IllegalArgumentException("Listeners with " + handlers + " handlers are not available, use 1 or 4");
+        }
+    }
+
+    /**
+     * Counts the received messages, such that the handler invocations can not be eliminated
+     */
+    public static abstract class Counting {
+
+        public long received;
+    }
+
+    public static final class AcceptAll implements IMessageFilter<Messages.Root> {
+
+        @Override
+        public boolean accepts(Messages.Root message, SubscriptionContext context) {
+            return message != null;
+        }
+    }
+
+    @Listener(references = References.Weak)
+    public static class WeakOne extends Counting {
+
+        @Handler
+        public void handle(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class StrongOne extends Counting {
+
+        @Handler
+        public void handle(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Weak)
+    public static class WeakFilteredOne extends Counting {
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class StrongFilteredOne extends Counting {
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Weak)
+    public static class WeakFour extends Counting {
+
+        @Handler
+        public void handle1(Messages.Root message) {
+            received++;
+        }
+
+        @Handler
+        public void handle2(Messages.Root message) {
+            received++;
+        }
+
+        @Handler
+        public void handle3(Messages.Root message) {
+            received++;
+        }
+
+        @Handler
+        public void handle4(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class StrongFour extends Counting {
+
+        @Handler
+        public void handle1(Messages.Root message) {
+            received++;
+        }
+
+        @Handler
+        public void handle2(Messages.Root message) {
+            received++;
+        }
+
+        @Handler
+        public void handle3(Messages.Root message) {
+            received++;
+        }
+
+        @Handler
+        public void handle4(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Weak)
+    public static class WeakFilteredFour extends Counting {
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle1(Messages.Root message) {
+            received++;
+        }
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle2(Messages.Root message) {
+            received++;
+        }
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle3(Messages.Root message) {
+            received++;
+        }
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle4(Messages.Root message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class StrongFilteredFour extends Counting {
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle1(Messages.Root message) {
+            received++;
+        }
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle2(Messages.Root message) {
+            received++;
+        }
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle3(Messages.Root message) {
+            received++;
+        }
+
+        @Handler(filters = @Filter(AcceptAll.class))
+        public void handle4(Messages.Root message) {
+            received++;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.engio.mbassy.benchmarks;
+
+/**
+ * A hierarchy of message types. All benchmark handlers consume {@link Root}, publishing a message of
+ * a deeper type makes the bus resolve and dispatch to the subscriptions of all its super types.
+ */
+public final class Messages {
+
+    // the depth of the deepest message type
+    public static final int MaxDepth = 4;
+
+    private Messages() {
+    }
+
+    public static class Root {
+    }
+
+    public static class Level1 extends Root {
+    }
+
+    public static class Level2 extends Level1 {
+    }
+
+    public static class Level3 extends Level2 {
+    }
+
+    public static class Level4 extends Level3 {
+    }
+
+    /**
+     * Create a message whose type is the given number of levels below {@link Root}
+     */
+    public static Root ofDepth(int depth) {
+        switch (depth) {
+            case 0:
+                return new Root();
+            case 1:
+                return new Level1();
+            case 2:
+                return new Level2();
+            case 3:
+                return new Level3();
+            case 4:
+                return new Level4();
+            default:
+                throw new IllegalArgumentException("Hierarchy depth must be between 0 and " + MaxDepth + " but was " + depth);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+
+/**
+ * A message that reports its arrival at a handler, used to measure the end-to-end latency of asynchronous
+ * publications. The origin of the latency is the time at which the probe was meant to be published, which
+ * may lie before its actual publication if the publisher fell behind its schedule.
+ */
+public final class Probe {
+
+    /**
+     * Receives the probes that arrived at a handler
+     */
+    public interface Sink {
+
+        void arrived(Probe probe, long nanoTime);
+    }
+
+    private final Sink sink;
+
+    private final long origin;
+
+    public Probe(Sink sink, long origin) {
+        this.sink = sink;
+        this.origin = origin;
+    }
+
+    /**
+     * The {@code System.nanoTime()} at which the probe was (meant to be) published
+     */
+    public long getOrigin() {
+        return origin;
+    }
+
+    void arrived() {
+        sink.arrived(this, System.nanoTime());
+    }
+
+    /**
+     * Create a listener whose handler receives probes with the given kind of invocation
+     */
+    public static Object listener(Invoke delivery) {
+        return delivery == Invoke.Asynchronously ? new AsynchronousReceiver() : new SynchronousReceiver();
+    }
+
+    @Listener(references = References.Strong)
+    public static class SynchronousReceiver {
+
+        @Handler
+        public void handle(Probe probe) {
+            probe.arrived();
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class AsynchronousReceiver {
+
+        @Handler(delivery = Invoke.Asynchronously)
+        public void handle(Probe probe) {
+            probe.arrived();
+        }
+    }
+}
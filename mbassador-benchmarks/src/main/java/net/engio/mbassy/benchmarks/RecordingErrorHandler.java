@@ -0,0 +1,30 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.bus.error.IPublicationErrorHandler;
+import net.engio.mbassy.bus.error.PublicationError;
+
+/**
+ * Keeps the first publication error instead of logging it, such that a failing benchmark is reported
+ * at the end of the trial rather than printing (and measuring) an error for every publication.
+ */
+public final class RecordingErrorHandler implements IPublicationErrorHandler {
+
+    private volatile PublicationError first;
+
+    @Override
+    public void handleError(PublicationError error) {
+        if (first == null) {
+            first = error;
+        }
+    }
+
+    /**
+     * Fail if any error occurred since this handler was created
+     */
+    public void verify() {
+        PublicationError error = first;
+        if (error != null) {
+            throw new IllegalStateException("Publication failed: " + error, error.getCause());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.bus.SyncMessageBus;
+import net.engio.mbassy.listener.MetadataIndex;
+import net.engio.mbassy.listener.MetadataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The cold-start cost of registering listeners: reading the metadata of listener classes, subscribing the first
+ * instance of every listener class and publishing the first message of every message type. Every shot uses
+ * classes that were generated for it (see {@link SyntheticClasses}) and covers all of them.
+ *
+ * The classes of all shots are generated before the first one, such that the allocation reported by
+ * {@code -prof gc} is the allocation of the measured operation.
+ *
+ * {@link #getMessageListenerFromIndex} compares the scan of classes that are loaded from a jar with their
+ * lookup in a {@link MetadataIndex} that has been written by a previous batch of the same classes, i.e. the
+ * registration after a restart.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    /**
+     * The classes, listeners and messages of a single shot
+     */
+    static final class Batch {
+
+        final SyntheticClasses synthetic;
+
+        final MetadataReader reader;
+
+        final RecordingErrorHandler errors = new RecordingErrorHandler();
+
+        final SyncMessageBus<Object> bus = new SyncMessageBus<Object>(errors);
+
+        final List<Object> listeners;
+
+        final List<Object> messages;
+
+        Batch(int classes, int messageTypes) {
+            this(classes, messageTypes, null, new MetadataReader());
+        }
+
+        Batch(int classes, int messageTypes, Path codeSource, MetadataReader reader) {
+            this.reader = reader;
+            synthetic = SyntheticClasses.generate(classes, messageTypes, codeSource);
+            listeners = SyntheticClasses.instantiate(synthetic.getListenerClasses());
+            messages = SyntheticClasses.instantiate(synthetic.getMessageClasses());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static abstract class Batches {
+
+        // the number of generated listener classes, including super classes
+        @Param({"1000", "5000"})
+        public int classes;
+
+        @Param({"20", "200"})
+        public int messageTypes;
+
+        private Batch[] batches;
+
+        private int next;
+
+        Batch current;
+
+        @Setup(Level.Trial)
+        public void generate(BenchmarkParams params) {
+            if (params.getWarmup().getBatchSize() != 1 || params.getMeasurement().getBatchSize() != 1) {
+                throw new IllegalArgumentException("Every shot needs new classes, the batch size must be 1");
+            }
+            batches = new Batch[params.getWarmup().getCount() + params.getMeasurement().getCount()];
+            for (int i = 0; i < batches.length; i++) {
+                batches[i] = create();
+                prepare(batches[i]);
+            }
+        }
+
+        Batch create() {
+            return new Batch(classes, messageTypes);
+        }
+
+        void prepare(Batch batch) {
+        }
+
+        @Setup(Level.Iteration)
+        public void next() {
+            current = batches[next];
+            batches[next++] = null; // the classes of the shot can be unloaded afterwards
+        }
+
+        @TearDown(Level.Iteration)
+        public void verify() {
+            current.errors.verify();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Fresh extends Batches {
+    }
+
+    @State(Scope.Benchmark)
+    public static class Subscribed extends Batches {
+
+        @Override
+        void prepare(Batch batch) {
+            for (Object listener : batch.listeners) {
+                batch.bus.subscribe(listener);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Indexed extends Batches {
+
+        @Param({"false", "true"})
+        public boolean useIndex;
+
+        // the jar and the index of all batches
+        private Path directory;
+
+        private MetadataIndex index;
+
+        @Override
+        Batch create() {
+            try {
+                if (directory == null) {
+                    directory = Files.createTempDirectory("mbassador-registration");
+                    // the index is written by a batch of the same classes that is not measured
+                    MetadataIndex previous = MetadataIndex.open(directory.resolve("mbassador.idx"));
+                    Batch batch = new Batch(classes, messageTypes, directory.resolve("listeners.jar"), new MetadataReader(previous));
+                    for (Class<?> listener : batch.synthetic.getListenerClasses()) {
+                        batch.reader.getMessageListener(listener);
+                    }
+                    previous.save();
+                    index = MetadataIndex.open(directory.resolve("mbassador.idx"));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Batch(classes, messageTypes, directory.resolve("listeners.jar"), useIndex ? new MetadataReader(index) : new MetadataReader());
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            if (useIndex && index.getHitCount() == 0) {
+                throw new IllegalStateException("The listener classes have not been found in the index");
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void getMessageListener(Fresh batches, Blackhole blackhole) {
+        Batch batch = batches.current;
+        for (Class<?> listener : batch.synthetic.getListenerClasses()) {
+            blackhole.consume(batch.reader.getMessageListener(listener));
+        }
+    }
+
+    @Benchmark
+    public void getMessageListenerFromIndex(Indexed batches, Blackhole blackhole) {
+        Batch batch = batches.current;
+        for (Class<?> listener : batch.synthetic.getListenerClasses()) {
+            blackhole.consume(batch.reader.getMessageListener(listener));
+        }
+    }
+
+    @Benchmark
+    public void subscribe(Fresh batches) {
+        Batch batch = batches.current;
+        for (Object listener : batch.listeners) {
+            batch.bus.subscribe(listener);
+        }
+    }
+
+    @Benchmark
+    public void firstPublish(Subscribed batches, Blackhole blackhole) {
+        Batch batch = batches.current;
+        for (Object message : batch.messages) {
+            blackhole.consume(batch.bus.publish(message));
+        }
+    }
+}
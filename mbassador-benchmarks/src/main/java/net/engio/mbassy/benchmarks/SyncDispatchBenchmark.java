@@ -0,0 +1,90 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.bus.IMessagePublication;
+import net.engio.mbassy.bus.common.PubSubSupport;
+import net.engio.mbassy.listener.References;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of synchronous publication with {@code SyncMessageBus.publish} and {@code MBassador.publish}.
+ * Every subscribed handler consumes {@link Messages.Root} and the published message is {@link #hierarchyDepth}
+ * levels below it, so the number of handler invocations per publication is {@code listeners * handlersPerType}.
+ *
+ * Run with {@code java -jar target/benchmarks.jar SyncDispatchBenchmark -prof gc} to also report the allocation
+ * rate per publication.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncDispatchBenchmark {
+
+    @Param({"SyncMessageBus", "MBassador"})
+    public BusType bus;
+
+    @Param({"1", "10", "100"})
+    public int listeners;
+
+    @Param({"1", "4"})
+    public int handlersPerType;
+
+    @Param({"0", "3"})
+    public int hierarchyDepth;
+
+    @Param({"false", "true"})
+    public boolean filtered;
+
+    @Param({"Weak", "Strong"})
+    public References references;
+
+    private PubSubSupport<Object> messageBus;
+
+    private RecordingErrorHandler errors;
+
+    private Object message;
+
+    // weakly referenced listeners must be reachable for the duration of the trial
+    private final List<Object> subscribed = new ArrayList<Object>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        errors = new RecordingErrorHandler();
+        messageBus = bus.create(errors);
+        for (int i = 0; i < listeners; i++) {
+            Object listener = Listeners.create(handlersPerType, filtered, references);
+            subscribed.add(listener);
+            messageBus.subscribe(listener);
+        }
+        message = Messages.ofDepth(hierarchyDepth);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BusType.shutdown(messageBus);
+        subscribed.clear();
+        errors.verify();
+    }
+
+    @Benchmark
+    public IMessagePublication publish() {
+        return messageBus.publish(message);
+    }
+}
@@ -0,0 +1,240 @@
+package net.engio.mbassy.benchmarks;
+
+import net.engio.mbassy.listener.Handler;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Generates message and listener classes at runtime, such that every instance of this class loader provides
+ * classes that neither the JVM nor the caches of the bus have seen before.
+ * <ul>
+ *     <li>Message types form hierarchies of up to four levels below {@link Message}</li>
+ *     <li>Listeners form hierarchies of up to {@link #MaxListenerDepth} + 1 classes, every class in the hierarchy
+ *     declares one handler for one of the message types</li>
+ *     <li>Handlers are marked in rotation with {@code @Handler}, the meta-annotation {@link Subscribe} or
+ *     {@code @Handler} with a condition</li>
+ * </ul>
+ * The classes are loaded but not initialized. Optionally, the class files are written to a jar that becomes
+ * their code source, such that they can be recorded in a {@link net.engio.mbassy.listener.MetadataIndex}.
+ */
+public final class SyntheticClasses extends ClassLoader {
+
+    // the maximum number of super classes of a generated listener
+    public static final int MaxListenerDepth = 3;
+
+    public static final String Condition = "msg.value > 0";
+
+    private static final String Package = "net/engio/mbassy/benchmarks/synthetic/";
+
+    private static final String MessageType = Type.getInternalName(Message.class);
+
+    /**
+     * The super type of all generated messages
+     */
+    public static class Message {
+
+        public int getValue() {
+            return 1;
+        }
+    }
+
+    /**
+     * A custom handler annotation
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+    @Handler(priority = 1)
+    public @interface Subscribe {
+    }
+
+    private final Map<String, byte[]> definitions = new HashMap<String, byte[]>();
+
+    private final List<Class<?>> messageClasses = new ArrayList<Class<?>>();
+
+    private final List<Class<?>> listenerClasses = new ArrayList<Class<?>>();
+
+    private int classCount;
+
+    // the code source of the generated classes, null if they are only defined in memory
+    private final ProtectionDomain domain;
+
+    private SyntheticClasses(ProtectionDomain domain) {
+        super(SyntheticClasses.class.getClassLoader());
+        this.domain = domain;
+    }
+
+    /**
+     * Generate the given number of listener classes (including their super classes) and message types
+     */
+    public static SyntheticClasses generate(int classes, int messageTypes) {
+        return generate(classes, messageTypes, null);
+    }
+
+    /**
+     * Generate the given number of listener classes (including their super classes) and message types whose class files
+     * are stored in the given jar. An existing jar is not written again, such that the classes of all loaders that use
+     * the same jar have the same code source.
+     */
+    public static SyntheticClasses generate(int classes, int messageTypes, Path codeSource) {
+        ProtectionDomain domain = null;
+        if (codeSource != null) {
+            try {
+                domain = new ProtectionDomain(new CodeSource(codeSource.toUri().toURL(), (Certificate[]) null), null);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        SyntheticClasses synthetic = new SyntheticClasses(domain);
+        String[] messages = new String[messageTypes];
+        for (int i = 0; i < messageTypes; i++) {
+            messages[i] = Package + "Message" + i;
+            String superName = i % 4 == 0 ? MessageType : messages[i - 1];
+            synthetic.definitions.put(messages[i], classBytes(messages[i], superName, null, null, 0));
+        }
+        List<String> listeners = new ArrayList<String>();
+        for (int family = 0; synthetic.definitions.size() - messageTypes < classes; family++) {
+            int remaining = classes - (synthetic.definitions.size() - messageTypes);
+            int depth = Math.min(family % (MaxListenerDepth + 1), remaining - 1);
+            String superName = "java/lang/Object";
+            String name = null;
+            for (int level = 0; level <= depth; level++) {
+                name = Package + "Listener" + family + "_" + level;
+                String message = messages[(family + level) % messageTypes];
+                synthetic.definitions.put(name, classBytes(name, superName, "handle" + level, message, family + level));
+                superName = name;
+            }
+            listeners.add(name);
+        }
+        synthetic.classCount = synthetic.definitions.size();
+        if (codeSource != null) {
+            synthetic.write(codeSource);
+        }
+        for (String message : messages) {
+            synthetic.messageClasses.add(synthetic.load(message));
+        }
+        for (String listener : listeners) {
+            synthetic.listenerClasses.add(synthetic.load(listener));
+        }
+        return synthetic;
+    }
+
+    private static byte[] classBytes(String name, String superName, String handler, String message, int style) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+        if (handler != null) {
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, handler, "(L" + message + ";)V", null, null);
+            AnnotationVisitor annotation;
+            switch (style % 3) {
+                case 0:
+                    annotation = method.visitAnnotation(Type.getDescriptor(Handler.class), true);
+                    break;
+                case 1:
+                    annotation = method.visitAnnotation(Type.getDescriptor(Subscribe.class), true);
+                    break;
+                default:
+                    annotation = method.visitAnnotation(Type.getDescriptor(Handler.class), true);
+                    annotation.visit("condition", Condition);
+            }
+            annotation.visitEnd();
+            method.visitCode();
+            method.visitInsn(Opcodes.RETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void write(Path jar) {
+        if (Files.exists(jar)) {
+            return;
+        }
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Map.Entry<String, byte[]> definition : definitions.entrySet()) {
+                out.putNextEntry(new JarEntry(definition.getKey() + ".class"));
+                out.write(definition.getValue());
+                out.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Can not write the class files to " + jar, e);
+        }
+    }
+
+    private Class<?> load(String internalName) {
+        try {
+            return Class.forName(internalName.replace('/', '.'), false, this);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] definition = definitions.remove(name.replace('.', '/'));
+        if (definition == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, definition, 0, definition.length, domain);
+    }
+
+    /**
+     * The total number of generated classes, including message types and super classes of listeners
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * The most specific class of every listener hierarchy
+     */
+    public List<Class<?>> getListenerClasses() {
+        return listenerClasses;
+    }
+
+    public List<Class<?>> getMessageClasses() {
+        return messageClasses;
+    }
+
+    /**
+     * Create one instance of every given class
+     */
+    public static List<Object> instantiate(List<Class<?>> classes) {
+        List<Object> instances = new ArrayList<Object>(classes.size());
+        for (Class<?> type : classes) {
+            try {
+                instances.add(type.getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Can not instantiate " + type, e);
+            }
+        }
+        return instances;
+    }
+}
@@ -0,0 +1,165 @@
+package net.engio.mbassy.benchmarks.baseline;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Stores JMH result files (-rf json) as baselines and compares new results against them.
+ * <pre>
+ * Baselines save    &lt;baseline.json&gt; &lt;result.json&gt;
+ * Baselines compare &lt;baseline.json&gt; &lt;result.json&gt; [threshold=5] [alpha=0.01] [fail=true]
+ * </pre>
+ * The comparison prints a report with the verdict of every benchmark and exits with status 1 if any benchmark
+ * regressed, unless {@code fail=false}. See {@link Comparison} for the statistics. The {@code benchmark} profile of
+ * this module runs the benchmarks and this tool with a single maven command.
+ */
+public final class Baselines {
+
+    private static final String Package = "net.engio.mbassy.benchmarks.";
+
+    private static final Map<String, String> Defaults = new HashMap<String, String>();
+
+    static {
+        // minimum relevant change in percent
+        Defaults.put("threshold", "5");
+        // significance level of the t-test
+        Defaults.put("alpha", "0.01");
+        Defaults.put("fail", "true");
+    }
+
+    private Baselines() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: Baselines save|compare <baseline.json> <result.json> [threshold=5] [alpha=0.01] [fail=true]");
+            System.exit(2);
+        }
+        Path baseline = Paths.get(args[1]);
+        Path result = Paths.get(args[2]);
+        if ("save".equals(args[0])) {
+            save(baseline, result);
+        } else if ("compare".equals(args[0])) {
+            Map<String, String> options = options(args);
+            List<Comparison> comparisons = compare(baseline, result,
+                    Double.parseDouble(options.get("threshold")), Double.parseDouble(options.get("alpha")));
+            report(comparisons, baseline, result, options, System.out);
+            if (Boolean.parseBoolean(options.get("fail")) && count(comparisons).get(Comparison.Verdict.Regression) > 0) {
+                System.exit(1);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown action " + args[0] + ", expected save or compare");
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<String, String>(Defaults);
+        for (int i = 3; i < args.length; i++) {
+            int separator = args[i].indexOf('=');
+            String name = separator < 0 ? args[i] : args[i].substring(0, separator);
+            if (separator < 0 || !Defaults.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + args[i] + ", expected name=value with one of " + Defaults.keySet());
+            }
+            options.put(name, args[i].substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Store the given result file as baseline, replacing any previous baseline
+     */
+    static void save(Path baseline, Path result) throws IOException {
+        int results = Metric.read(result).size(); // do not store anything that can not be compared later
+        Path directory = baseline.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("Saved " + results + " results of " + result + " as baseline " + baseline);
+    }
+
+    /**
+     * Compare all metrics of both files, regressions first
+     */
+    static List<Comparison> compare(Path baseline, Path result, double threshold, double alpha) throws IOException {
+        if (!Files.exists(baseline)) {
+            throw new IOException("Baseline " + baseline + " does not exist, create it with the save action");
+        }
+        Map<String, Metric> before = Metric.read(baseline);
+        Map<String, Metric> after = Metric.read(result);
+        List<Comparison> comparisons = new ArrayList<Comparison>();
+        TreeSet<String> keys = new TreeSet<String>(before.keySet());
+        keys.addAll(after.keySet());
+        for (String key : keys) {
+            comparisons.add(Comparison.of(key, before.get(key), after.get(key), threshold, alpha));
+        }
+        Collections.sort(comparisons, new Comparator<Comparison>() {
+            @Override
+            public int compare(Comparison o1, Comparison o2) {
+                int byVerdict = o1.getVerdict().compareTo(o2.getVerdict());
+                return byVerdict != 0 ? byVerdict : o1.getKey().compareTo(o2.getKey());
+            }
+        });
+        return comparisons;
+    }
+
+    static Map<Comparison.Verdict, Integer> count(List<Comparison> comparisons) {
+        Map<Comparison.Verdict, Integer> counts = new EnumMap<Comparison.Verdict, Integer>(Comparison.Verdict.class);
+        for (Comparison.Verdict verdict : Comparison.Verdict.values()) {
+            counts.put(verdict, 0);
+        }
+        for (Comparison comparison : comparisons) {
+            counts.put(comparison.getVerdict(), counts.get(comparison.getVerdict()) + 1);
+        }
+        return counts;
+    }
+
+    static void report(List<Comparison> comparisons, Path baseline, Path result, Map<String, String> options, PrintStream out) {
+        out.println("Comparison of " + result + " with baseline " + baseline);
+        out.println("A change is reported if it exceeds " + options.get("threshold") + "% at a significance level of "
+                + options.get("alpha") + " (Welch's t-test on the iteration scores)");
+        out.println();
+        out.printf("%-12s %9s %8s %28s %28s  %s%n", "Verdict", "Change", "p-value", "Baseline", "Current", "Benchmark");
+        for (Comparison comparison : comparisons) {
+            out.printf("%-12s %9s %8s %28s %28s  %s%n", comparison.getVerdict().name().toUpperCase(Locale.ROOT),
+                    percent(comparison.getChange()), pValue(comparison.getPValue()),
+                    score(comparison.getBaseline()), score(comparison.getCurrent()),
+                    comparison.getKey().startsWith(Package) ? comparison.getKey().substring(Package.length()) : comparison.getKey());
+        }
+        Map<Comparison.Verdict, Integer> counts = count(comparisons);
+        out.println();
+        out.println(counts.get(Comparison.Verdict.Regression) + " regressions, " + counts.get(Comparison.Verdict.Improvement)
+                + " improvements, " + counts.get(Comparison.Verdict.Unchanged) + " unchanged, " + counts.get(Comparison.Verdict.New)
+                + " new, " + counts.get(Comparison.Verdict.Missing) + " missing");
+    }
+
+    private static String percent(double change) {
+        return Double.isNaN(change) ? "-" : String.format(Locale.ROOT, "%+.1f%%", change * 100);
+    }
+
+    private static String pValue(double pValue) {
+        return Double.isNaN(pValue) ? "-" : String.format(Locale.ROOT, "%.4f", pValue);
+    }
+
+    private static String score(Metric metric) {
+        if (metric == null) {
+            return "-";
+        }
+        return Double.isNaN(metric.getError())
+                ? String.format(Locale.ROOT, "%.3f %s", metric.getScore(), metric.getUnit())
+                : String.format(Locale.ROOT, "%.3f +- %.3f %s", metric.getScore(), metric.getError(), metric.getUnit());
+    }
+}
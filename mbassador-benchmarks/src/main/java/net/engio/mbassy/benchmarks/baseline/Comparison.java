@@ -0,0 +1,115 @@
+package net.engio.mbassy.benchmarks.baseline;
+
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.inference.TTest;
+
+/**
+ * The comparison of a metric of the current run with the same metric of the baseline. A difference is reported as
+ * regression or improvement only if it is relevant, i.e. exceeds the relative threshold, and significant. Significance
+ * is tested with Welch's t-test on the iteration scores of both runs. If either run has less than two iterations, the
+ * difference is significant if the confidence intervals reported by JMH do not overlap.
+ */
+final class Comparison {
+
+    enum Verdict {
+        Regression, Improvement, Unchanged, New, Missing
+    }
+
+    // allocation differences below one byte per operation are noise of the measurement
+    private static final double MinAllocationChange = 1.0;
+
+    private final String key;
+
+    private final Metric baseline;
+
+    private final Metric current;
+
+    // relative change of the score, NaN if either metric is missing
+    private final double change;
+
+    // NaN if the confidence intervals were compared instead
+    private final double pValue;
+
+    private final Verdict verdict;
+
+    private Comparison(String key, Metric baseline, Metric current, double change, double pValue, Verdict verdict) {
+        this.key = key;
+        this.baseline = baseline;
+        this.current = current;
+        this.change = change;
+        this.pValue = pValue;
+        this.verdict = verdict;
+    }
+
+    /**
+     * Compare the given metrics, either of them may be null if it exists only in one of the runs
+     *
+     * @param threshold the minimum relevant change in percent
+     * @param alpha     the significance level
+     */
+    static Comparison of(String key, Metric baseline, Metric current, double threshold, double alpha) {
+        if (baseline == null) {
+            return new Comparison(key, null, current, Double.NaN, Double.NaN, Verdict.New);
+        }
+        if (current == null) {
+            return new Comparison(key, baseline, null, Double.NaN, Double.NaN, Verdict.Missing);
+        }
+        double difference = current.getScore() - baseline.getScore();
+        double change = baseline.getScore() == 0
+                ? (difference == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, difference))
+                : difference / Math.abs(baseline.getScore());
+        boolean relevant = Math.abs(change) * 100 >= threshold;
+        if (key.endsWith(Metric.AllocationRate)) {
+            relevant &= Math.abs(difference) >= MinAllocationChange;
+        }
+        double pValue = Double.NaN;
+        boolean significant;
+        double[] before = baseline.getSamples();
+        double[] after = current.getSamples();
+        if (before.length >= 2 && after.length >= 2) {
+            if (StatUtils.variance(before) == 0 && StatUtils.variance(after) == 0) {
+                // the t-test is undefined for constant samples
+                pValue = difference == 0 ? 1 : 0;
+            } else {
+                pValue = new TTest().tTest(before, after);
+            }
+            significant = pValue < alpha;
+        } else {
+            significant = Math.abs(difference) > finite(baseline.getError()) + finite(current.getError());
+        }
+        Verdict verdict = Verdict.Unchanged;
+        if (relevant && significant) {
+            boolean worse = baseline.isHigherBetter() ? difference < 0 : difference > 0;
+            verdict = worse ? Verdict.Regression : Verdict.Improvement;
+        }
+        return new Comparison(key, baseline, current, change, pValue, verdict);
+    }
+
+    private static double finite(double error) {
+        return Double.isNaN(error) || Double.isInfinite(error) ? 0 : error;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Metric getBaseline() {
+        return baseline;
+    }
+
+    Metric getCurrent() {
+        return current;
+    }
+
+    double getChange() {
+        return change;
+    }
+
+    double getPValue() {
+        return pValue;
+    }
+
+    Verdict getVerdict() {
+        return verdict;
+    }
+}
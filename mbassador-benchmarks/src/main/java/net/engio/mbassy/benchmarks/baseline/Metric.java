@@ -0,0 +1,136 @@
+package net.engio.mbassy.benchmarks.baseline;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A single score of a JMH result file: the primary result of a benchmark with a specific set of parameters or one
+ * of its secondary results, e.g. the normalized allocation rate reported by {@code -prof gc}.
+ */
+final class Metric {
+
+    // the secondary results that are compared in addition to the primary ones
+    static final String AllocationRate = "gc.alloc.rate.norm";
+
+    private final String key;
+
+    private final String unit;
+
+    private final double score;
+
+    // half-width of the confidence interval reported by JMH
+    private final double error;
+
+    // the score of every measurement iteration of every fork
+    private final double[] samples;
+
+    Metric(String key, String unit, double score, double error, double[] samples) {
+        this.key = key;
+        this.unit = unit;
+        this.score = score;
+        this.error = error;
+        this.samples = samples;
+    }
+
+    /**
+     * Identifies the benchmark, its mode and parameters and the name of the secondary result (if any)
+     */
+    String getKey() {
+        return key;
+    }
+
+    String getUnit() {
+        return unit;
+    }
+
+    double getScore() {
+        return score;
+    }
+
+    double getError() {
+        return error;
+    }
+
+    double[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Throughput (ops per time unit) is better when higher, time and allocation per operation are better when lower
+     */
+    boolean isHigherBetter() {
+        return !unit.endsWith("/op");
+    }
+
+    /**
+     * Read the primary results and the normalized allocation rates of a JMH result file (-rf json)
+     */
+    static Map<String, Metric> read(Path file) throws IOException {
+        Object document;
+        try {
+            document = Json.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid JMH result file " + file + ": " + e.getMessage(), e);
+        }
+        if (!(document instanceof List)) {
+            throw new IOException("Invalid JMH result file " + file + ": expected an array of benchmark results");
+        }
+        Map<String, Metric> metrics = new TreeMap<String, Metric>();
+        for (Object element : (List<?>) document) {
+            Map<?, ?> result = (Map<?, ?>) element;
+            String key = key(result);
+            metrics.put(key, metric(key, (Map<?, ?>) result.get("primaryMetric")));
+            Map<?, ?> secondaries = (Map<?, ?>) result.get("secondaryMetrics");
+            if (secondaries != null && secondaries.containsKey(AllocationRate)) {
+                String secondaryKey = key + " :" + AllocationRate;
+                metrics.put(secondaryKey, metric(secondaryKey, (Map<?, ?>) secondaries.get(AllocationRate)));
+            }
+        }
+        return metrics;
+    }
+
+    private static String key(Map<?, ?> result) {
+        StringBuilder key = new StringBuilder();
+        key.append(result.get("benchmark")).append(' ').append(result.get("mode"));
+        Map<?, ?> params = (Map<?, ?>) result.get("params");
+        if (params != null) {
+            // sorted, such that the key does not depend on the order of the parameters in the file
+            for (Map.Entry<?, ?> param : new TreeMap<Object, Object>(params).entrySet()) {
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    private static Metric metric(String key, Map<?, ?> metric) {
+        List<Double> samples = new ArrayList<Double>();
+        Object rawData = metric.get("rawData");
+        if (rawData instanceof List) {
+            for (Object fork : (List<?>) rawData) {
+                for (Object iteration : (List<?>) fork) {
+                    samples.add(number(iteration));
+                }
+            }
+        }
+        double[] values = new double[samples.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = samples.get(i);
+        }
+        return new Metric(key, String.valueOf(metric.get("scoreUnit")), number(metric.get("score")),
+                number(metric.get("scoreError")), values);
+    }
+
+    private static double number(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        // non-finite values are written as strings
+        return value == null ? Double.NaN : Double.parseDouble(String.valueOf(value));
+    }
+}
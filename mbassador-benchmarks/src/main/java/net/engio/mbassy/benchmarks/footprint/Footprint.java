@@ -0,0 +1,221 @@
+package net.engio.mbassy.benchmarks.footprint;
+
+import net.engio.mbassy.benchmarks.RecordingErrorHandler;
+import net.engio.mbassy.bus.SyncMessageBus;
+import net.engio.mbassy.listener.MessageHandler;
+import net.engio.mbassy.listener.MessageListener;
+import net.engio.mbassy.listener.MetadataReader;
+import org.openjdk.jol.vm.VM;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Measures the heap retained by a bus with <a href="https://openjdk.org/projects/code-tools/jol/">JOL</a>.
+ * <pre>
+ * Footprint [topology=SingleHandler,FourHandlers,Generated] [instances=1000] [classes=500] [messageTypes=50] [fail=true]
+ * </pre>
+ * The retained bytes of a bus are the bytes of all objects that are reachable from the bus without passing through
+ * a listener, message, class or class loader, i.e. the listeners themselves and the class metadata shared with
+ * the rest of the JVM are not counted, see {@link RetainedSize}. Every metric is the growth of the retained bytes
+ * divided by the number of added units, see {@link Metric}.
+ * <p/>
+ * The report compares every metric with the thresholds in {@code thresholds.properties} and the tool exits
+ * with status 1 if any threshold is exceeded, unless {@code fail=false}. The thresholds apply to 64 bit JVMs
+ * with compressed references (the default for heaps below 32 GB), other layouts are reported but not checked.
+ */
+public final class Footprint {
+
+    /**
+     * The measured units
+     */
+    public enum Metric {
+        // the metadata of a handler method as read by the MetadataReader
+        MessageHandler,
+        // a subscription created by the first subscription of a listener class, including its handler and its entries in the subscription manager
+        Subscription,
+        // another instance of an already subscribed listener class
+        StrongListener,
+        WeakListener,
+        // the cached subscriptions of a message type, built by its first publication
+        CacheEntry
+    }
+
+    private static final Map<String, String> Defaults = new HashMap<String, String>();
+
+    static {
+        Defaults.put("topology", Topology.SingleHandler + "," + Topology.FourHandlers + "," + Topology.Generated);
+        // number of additional instances of every listener class
+        Defaults.put("instances", "1000");
+        // size of the generated topology
+        Defaults.put("classes", "500");
+        Defaults.put("messageTypes", "50");
+        Defaults.put("fail", "true");
+    }
+
+    private Footprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<String, String>(Defaults);
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg : arg.substring(0, separator);
+            if (separator < 0 || !Defaults.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected name=value with one of " + Defaults.keySet());
+            }
+            options.put(name, arg.substring(separator + 1));
+        }
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        for (String topology : options.get("topology").split(",")) {
+            measurements.addAll(measure(Topology.valueOf(topology.trim()), Integer.parseInt(options.get("instances")),
+                    Integer.parseInt(options.get("classes")), Integer.parseInt(options.get("messageTypes"))));
+        }
+        List<Measurement> exceeded = check(measurements, thresholds());
+        report(measurements, System.out);
+        if (Boolean.parseBoolean(options.get("fail")) && !exceeded.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measure all metrics of the given topology
+     *
+     * @param instances the number of additional instances of every listener class
+     */
+    public static List<Measurement> measure(Topology topology, int instances, int classes, int messageTypes) {
+        Topology.Classes types = topology.create(classes, messageTypes);
+        MetadataReader reader = new MetadataReader();
+        List<MessageHandler> handlers = new ArrayList<MessageHandler>();
+        List<Object> firsts = instantiate(types.listeners, 1);
+        List<Object> strong = new ArrayList<Object>();
+        List<Object> weak = new ArrayList<Object>();
+        for (Class<?> type : types.listeners) {
+            MessageListener metadata = reader.getMessageListener(type);
+            handlers.addAll(Arrays.asList(metadata.getHandlers()));
+            (metadata.useStrongReferences() ? strong : weak).addAll(instantiate(Arrays.<Class<?>>asList(type), instances));
+        }
+        List<Object> messages = instantiate(types.messages, 1);
+        List<Object> shared = new ArrayList<Object>(firsts);
+        shared.addAll(strong);
+        shared.addAll(weak);
+        shared.addAll(messages);
+        RetainedSize retained = new RetainedSize(shared);
+
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        measurements.add(new Measurement(topology, Metric.MessageHandler, retained.of(handlers.toArray()), handlers.size()));
+
+        RecordingErrorHandler errors = new RecordingErrorHandler();
+        SyncMessageBus<Object> bus = new SyncMessageBus<Object>(errors);
+        long empty = retained.of(bus);
+        for (Object listener : firsts) {
+            bus.subscribe(listener);
+        }
+        long subscribed = retained.of(bus);
+        measurements.add(new Measurement(topology, Metric.Subscription, subscribed - empty, handlers.size()));
+        if (!strong.isEmpty()) {
+            for (Object listener : strong) {
+                bus.subscribe(listener);
+            }
+            long before = subscribed;
+            subscribed = retained.of(bus);
+            measurements.add(new Measurement(topology, Metric.StrongListener, subscribed - before, strong.size()));
+        }
+        if (!weak.isEmpty()) {
+            for (Object listener : weak) {
+                bus.subscribe(listener);
+            }
+            long before = subscribed;
+            subscribed = retained.of(bus);
+            measurements.add(new Measurement(topology, Metric.WeakListener, subscribed - before, weak.size()));
+        }
+        for (Object message : messages) {
+            bus.publish(message);
+        }
+        measurements.add(new Measurement(topology, Metric.CacheEntry, retained.of(bus) - subscribed, messages.size()));
+        errors.verify();
+        return measurements;
+    }
+
+    private static List<Object> instantiate(List<Class<?>> classes, int instances) {
+        List<Object> objects = new ArrayList<Object>();
+        for (int i = 0; i < instances; i++) {
+            for (Class<?> type : classes) {
+                try {
+                    objects.add(type.getDeclaredConstructor().newInstance());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Can not instantiate " + type, e);
+                }
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Whether the JVM lays out objects like the JVM the thresholds were taken on
+     */
+    public static boolean hasReferenceLayoutOfThresholds() {
+        return VM.current().arrayIndexScale("java.lang.Object") == 4 && VM.current().classPointerSize() == 4;
+    }
+
+    /**
+     * The maximum bytes per unit of every topology and metric (as topology.metric)
+     */
+    public static Properties thresholds() throws IOException {
+        Properties thresholds = new Properties();
+        InputStream in = Footprint.class.getResourceAsStream("thresholds.properties");
+        try {
+            thresholds.load(in);
+        } finally {
+            in.close();
+        }
+        return thresholds;
+    }
+
+    /**
+     * Assign the thresholds to the measurements, returns the measurements that exceed them.
+     * Nothing is checked if the JVM does not use the reference layout of the thresholds.
+     */
+    public static List<Measurement> check(List<Measurement> measurements, Properties thresholds) {
+        List<Measurement> exceeded = new ArrayList<Measurement>();
+        if (!hasReferenceLayoutOfThresholds()) {
+            return exceeded;
+        }
+        for (Measurement measurement : measurements) {
+            String threshold = thresholds.getProperty(measurement.getTopology() + "." + measurement.getMetric());
+            if (threshold != null) {
+                measurement.setThreshold(Double.parseDouble(threshold));
+                if (measurement.exceedsThreshold()) {
+                    exceeded.add(measurement);
+                }
+            }
+        }
+        return exceeded;
+    }
+
+    static void report(List<Measurement> measurements, PrintStream out) {
+        out.println("Retained bytes per unit, references of " + VM.current().arrayIndexScale("java.lang.Object")
+                + " bytes, class pointers of " + VM.current().classPointerSize() + " bytes, objects aligned to "
+                + VM.current().objectAlignment() + " bytes");
+        if (!hasReferenceLayoutOfThresholds()) {
+            out.println("The thresholds apply to compressed references and class pointers only and are not checked");
+        }
+        out.println();
+        out.printf("%-10s %10s %10s %8s  %s%n", "Verdict", "Bytes", "Threshold", "Units", "Metric");
+        for (Measurement measurement : measurements) {
+            out.printf(Locale.ROOT, "%-10s %10.1f %10s %8d  %s.%s%n",
+                    Double.isNaN(measurement.getThreshold()) ? "-" : measurement.exceedsThreshold() ? "EXCEEDED" : "OK",
+                    measurement.getBytesPerUnit(),
+                    Double.isNaN(measurement.getThreshold()) ? "-" : String.format(Locale.ROOT, "%.0f", measurement.getThreshold()),
+                    measurement.getUnits(), measurement.getTopology(), measurement.getMetric());
+        }
+    }
+}
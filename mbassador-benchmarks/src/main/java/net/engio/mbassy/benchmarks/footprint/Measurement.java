@@ -0,0 +1,60 @@
+package net.engio.mbassy.benchmarks.footprint;
+
+/**
+ * The retained bytes of a number of units of one metric
+ */
+public final class Measurement {
+
+    private final Topology topology;
+
+    private final Footprint.Metric metric;
+
+    private final long bytes;
+
+    private final int units;
+
+    private double threshold = Double.NaN;
+
+    Measurement(Topology topology, Footprint.Metric metric, long bytes, int units) {
+        this.topology = topology;
+        this.metric = metric;
+        this.bytes = bytes;
+        this.units = units;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    public Footprint.Metric getMetric() {
+        return metric;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    public double getBytesPerUnit() {
+        return (double) bytes / units;
+    }
+
+    /**
+     * The maximum bytes per unit, NaN if there is none
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean exceedsThreshold() {
+        return getBytesPerUnit() > threshold;
+    }
+
+    @Override
+    public String toString() {
+        return topology + "." + metric + ": " + getBytesPerUnit() + " bytes per unit (threshold " + threshold + ")";
+    }
+}
@@ -0,0 +1,97 @@
+package net.engio.mbassy.benchmarks.footprint;
+
+import org.openjdk.jol.vm.VM;
+import org.openjdk.jol.vm.VirtualMachine;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sums the sizes of all objects reachable from a root with the object layout reported by JOL.
+ * Classes, class loaders, threads and the given shared objects are neither counted nor walked, such that
+ * metadata shared with the rest of the JVM (including everything cached in class values) is not attributed to the root.
+ * Method handles are counted but not walked, their lambda forms and method types are cached by the JVM for all handles
+ * of the same shape. Static fields are not walked either.
+ */
+final class RetainedSize {
+
+    private static final String Invoke = "java.lang.invoke.";
+
+    private static final ClassValue<Field[]> ReferenceFields = new ClassValue<Field[]>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<Field>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[fields.size()]);
+        }
+    };
+
+    private final Set<Object> shared = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    RetainedSize(Collection<?> shared) {
+        this.shared.addAll(shared);
+    }
+
+    /**
+     * The bytes reachable from any of the roots
+     */
+    long of(Object... roots) {
+        VirtualMachine vm = VM.current();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        Deque<Object> pending = new ArrayDeque<Object>();
+        for (Object root : roots) {
+            push(pending, root);
+        }
+        long size = 0;
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            if (isShared(current) || !visited.add(current)) {
+                continue;
+            }
+            size += vm.sizeOf(current);
+            Class<?> type = current.getClass();
+            if (current instanceof MethodHandle) {
+                continue;
+            }
+            if (type.isArray()) {
+                if (!type.getComponentType().isPrimitive()) {
+                    for (int i = 0, length = Array.getLength(current); i < length; i++) {
+                        push(pending, Array.get(current, i));
+                    }
+                }
+            } else {
+                for (Field field : ReferenceFields.get(type)) {
+                    push(pending, vm.getObject(current, vm.fieldOffset(field)));
+                }
+            }
+        }
+        return size;
+    }
+
+    private boolean isShared(Object object) {
+        return object instanceof Class || object instanceof ClassLoader || object instanceof Thread
+                || object.getClass().getName().startsWith(Invoke) && !(object instanceof MethodHandle) || shared.contains(object);
+    }
+
+    private static void push(Deque<Object> pending, Object reference) {
+        if (reference != null) {
+            pending.push(reference);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.engio.mbassy.benchmarks.footprint;
+
+import net.engio.mbassy.benchmarks.Listeners;
+import net.engio.mbassy.benchmarks.Messages;
+import net.engio.mbassy.benchmarks.SyntheticClasses;
+import net.engio.mbassy.listener.References;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The listener and message classes of a measured application
+ */
+public enum Topology {
+
+    // the listeners of the dispatch benchmarks with one handler, weakly and strongly referenced, filtered or not
+    SingleHandler {
+        @Override
+        Classes create(int classes, int messageTypes) {
+            return benchmarkListeners(1);
+        }
+    },
+
+    // the same with four handlers of the same message per listener
+    FourHandlers {
+        @Override
+        Classes create(int classes, int messageTypes) {
+            return benchmarkListeners(4);
+        }
+    },
+
+    // many weakly referenced listener classes with small hierarchies handling different message types, see SyntheticClasses
+    Generated {
+        @Override
+        Classes create(int classes, int messageTypes) {
+            SyntheticClasses synthetic = SyntheticClasses.generate(classes, messageTypes);
+            return new Classes(synthetic.getListenerClasses(), synthetic.getMessageClasses());
+        }
+    };
+
+    abstract Classes create(int classes, int messageTypes);
+
+    private static Classes benchmarkListeners(int handlers) {
+        List<Class<?>> listeners = new ArrayList<Class<?>>();
+        for (References references : References.values()) {
+            listeners.add(Listeners.create(handlers, false, references).getClass());
+            listeners.add(Listeners.create(handlers, true, references).getClass());
+        }
+        List<Class<?>> messages = new ArrayList<Class<?>>();
+        for (int depth = 0; depth <= Messages.MaxDepth; depth++) {
+            messages.add(Messages.ofDepth(depth).getClass());
+        }
+        return new Classes(listeners, messages);
+    }
+
+    static final class Classes {
+
+        final List<Class<?>> listeners;
+
+        final List<Class<?>> messages;
+
+        Classes(List<Class<?>> listeners, List<Class<?>> messages) {
+            this.listeners = listeners;
+            this.messages = messages;
+        }
+
+    }
+}
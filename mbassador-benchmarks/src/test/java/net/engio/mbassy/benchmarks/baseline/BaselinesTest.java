@@ -0,0 +1,107 @@
+package net.engio.mbassy.benchmarks.baseline;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class BaselinesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadsPrimaryAndAllocationMetrics() throws IOException {
+        Map<String, Metric> metrics = Metric.read(write("result.json",
+                result("thrpt", "ops/us", "MBassador", 10.0, 10.1, 9.9, 10.0, 10.0)));
+        Assert.assertEquals(2, metrics.size());
+        Metric primary = metrics.get("net.engio.mbassy.benchmarks.SyncDispatchBenchmark.publish thrpt bus=MBassador listeners=10");
+        Assert.assertNotNull(primary);
+        Assert.assertEquals(10.0, primary.getScore(), 0);
+        Assert.assertEquals(3, primary.getSamples().length);
+        Assert.assertTrue(primary.isHigherBetter());
+        Metric allocation = metrics.get(primary.getKey() + " :" + Metric.AllocationRate);
+        Assert.assertFalse(allocation.isHigherBetter());
+    }
+
+    @Test
+    public void testDetectsSignificantChanges() throws IOException {
+        Path baseline = write("baseline.json", result("thrpt", "ops/us", "MBassador", 10.0, 10.1, 9.9, 10.0, 48.0));
+        Path slower = write("slower.json", result("thrpt", "ops/us", "MBassador", 8.0, 8.1, 7.9, 8.0, 48.2));
+        Path faster = write("faster.json", result("thrpt", "ops/us", "MBassador", 12.0, 12.1, 11.9, 12.0, 96.0));
+        Path noisy = write("noisy.json", result("thrpt", "ops/us", "MBassador", 9.0, 4.0, 14.0, 9.0, 48.0));
+
+        List<Comparison> comparisons = Baselines.compare(baseline, slower, 5, 0.01);
+        Assert.assertEquals(Comparison.Verdict.Regression, comparisons.get(0).getVerdict());
+        Assert.assertEquals(-0.2, comparisons.get(0).getChange(), 1e-9);
+        // the allocation changed by less than a byte per operation
+        Assert.assertEquals(Comparison.Verdict.Unchanged, comparisons.get(1).getVerdict());
+
+        comparisons = Baselines.compare(baseline, faster, 5, 0.01);
+        // throughput improved, allocation per operation regressed
+        Assert.assertEquals(Comparison.Verdict.Regression, comparisons.get(0).getVerdict());
+        Assert.assertTrue(comparisons.get(0).getKey().endsWith(Metric.AllocationRate));
+        Assert.assertEquals(Comparison.Verdict.Improvement, comparisons.get(1).getVerdict());
+
+        // a relevant but not significant change
+        comparisons = Baselines.compare(baseline, noisy, 5, 0.01);
+        Assert.assertEquals(0, (int) Baselines.count(comparisons).get(Comparison.Verdict.Regression));
+    }
+
+    @Test
+    public void testReportsNewAndMissingBenchmarks() throws IOException {
+        Path baseline = write("baseline.json", result("thrpt", "ops/us", "MBassador", 10.0, 10.1, 9.9, 10.0, 48.0));
+        Path result = write("result.json", result("thrpt", "ops/us", "SyncMessageBus", 10.0, 10.1, 9.9, 10.0, 48.0));
+        Map<Comparison.Verdict, Integer> counts = Baselines.count(Baselines.compare(baseline, result, 5, 0.01));
+        Assert.assertEquals(2, (int) counts.get(Comparison.Verdict.New));
+        Assert.assertEquals(2, (int) counts.get(Comparison.Verdict.Missing));
+    }
+
+    @Test
+    public void testTimePerOperationIsBetterWhenLower() throws IOException {
+        Path baseline = write("baseline.json", result("avgt", "us/op", "MBassador", 10.0, 10.1, 9.9, 10.0, 48.0));
+        Path result = write("result.json", result("avgt", "us/op", "MBassador", 8.0, 8.1, 7.9, 8.0, 48.0));
+        Assert.assertEquals(Comparison.Verdict.Improvement, Baselines.compare(baseline, result, 5, 0.01).get(0).getVerdict());
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // a result file in the format of JMH with three iterations of a single fork
+    private static String result(String mode, String unit, String bus, double score, double first, double second,
+                                 double third, double allocation) {
+        return "[\n"
+                + "  {\n"
+                + "    \"jmhVersion\" : \"1.37\",\n"
+                + "    \"benchmark\" : \"net.engio.mbassy.benchmarks.SyncDispatchBenchmark.publish\",\n"
+                + "    \"mode\" : \"" + mode + "\",\n"
+                + "    \"params\" : { \"listeners\" : \"10\", \"bus\" : \"" + bus + "\" },\n"
+                + "    \"primaryMetric\" : {\n"
+                + "      \"score\" : " + score + ",\n"
+                + "      \"scoreError\" : \"NaN\",\n"
+                + "      \"scoreConfidence\" : [ \"NaN\", \"NaN\" ],\n"
+                + "      \"scoreUnit\" : \"" + unit + "\",\n"
+                + "      \"rawData\" : [ [ " + first + ", " + second + ", " + third + " ] ]\n"
+                + "    },\n"
+                + "    \"secondaryMetrics\" : {\n"
+                + "      \"gc.alloc.rate.norm\" : {\n"
+                + "        \"score\" : " + allocation + ",\n"
+                + "        \"scoreError\" : 0.01,\n"
+                + "        \"scoreUnit\" : \"B/op\",\n"
+                + "        \"rawData\" : [ [ " + allocation + ", " + (allocation + 0.001) + ", " + (allocation - 0.001) + " ] ]\n"
+                + "      }\n"
+                + "    }\n"
+                + "  }\n"
+                + "]\n";
+    }
+}
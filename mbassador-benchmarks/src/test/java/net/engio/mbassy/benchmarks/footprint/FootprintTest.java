@@ -0,0 +1,56 @@
+package net.engio.mbassy.benchmarks.footprint;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class FootprintTest {
+
+    @Test
+    public void testFootprintWithinThresholds() throws IOException {
+        Assume.assumeTrue(Footprint.hasReferenceLayoutOfThresholds());
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        for (Topology topology : Topology.values()) {
+            measurements.addAll(Footprint.measure(topology, 50, 100, 20));
+        }
+        List<Measurement> exceeded = Footprint.check(measurements, Footprint.thresholds());
+        Assert.assertTrue("Footprint regressed: " + exceeded, exceeded.isEmpty());
+        for (Measurement measurement : measurements) {
+            Assert.assertFalse("No threshold for " + measurement, Double.isNaN(measurement.getThreshold()));
+        }
+    }
+
+    @Test
+    public void testReferenceTypesOfListeners() {
+        Map<Footprint.Metric, Double> bytes = new EnumMap<Footprint.Metric, Double>(Footprint.Metric.class);
+        for (Measurement measurement : Footprint.measure(Topology.FourHandlers, 50, 0, 0)) {
+            Assert.assertTrue(measurement.getBytesPerUnit() > 0);
+            bytes.put(measurement.getMetric(), measurement.getBytesPerUnit());
+        }
+        // a strongly referenced listener costs a slot per handler, a weakly referenced one also a weak reference
+        Assert.assertTrue(bytes.get(Footprint.Metric.StrongListener) >= 4 * 4);
+        Assert.assertTrue(bytes.get(Footprint.Metric.WeakListener) > bytes.get(Footprint.Metric.StrongListener));
+    }
+
+    @Test
+    public void testThresholdExceeded() {
+        Assume.assumeTrue(Footprint.hasReferenceLayoutOfThresholds());
+        Properties thresholds = new Properties();
+        thresholds.setProperty("Generated.CacheEntry", "200");
+        List<Measurement> measurements = new ArrayList<Measurement>();
+        measurements.add(new Measurement(Topology.Generated, Footprint.Metric.CacheEntry, 1000, 4));
+        measurements.add(new Measurement(Topology.Generated, Footprint.Metric.WeakListener, 1000, 4));
+
+        Assert.assertEquals(measurements.subList(0, 1), Footprint.check(measurements, thresholds));
+        Assert.assertEquals(200, measurements.get(0).getThreshold(), 0);
+        // metrics without threshold are not checked
+        Assert.assertTrue(Double.isNaN(measurements.get(1).getThreshold()));
+    }
+}
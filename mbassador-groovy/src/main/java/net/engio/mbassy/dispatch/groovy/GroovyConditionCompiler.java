@@ -0,0 +1,20 @@
+package net.engio.mbassy.dispatch.groovy;
+
+import net.engio.mbassy.dispatch.condition.ConditionCompiler;
+import net.engio.mbassy.listener.IMessageFilter;
+
+/**
+ * Compiles handler conditions that are not supported by the built-in expression language as groovy scripts.
+ * It is registered as service such that adding this module to the class path is all that is needed to use groovy conditions.
+ */
+public class GroovyConditionCompiler implements ConditionCompiler {
+
+    @Override
+    public <M> IMessageFilter<M> compile(String condition, Class<?> messageType) {
+        if (!GroovyFilter.isGroovyAvailable()) {
+            return null;
+        }
+        // the script is compiled by the metadata reader when it reads the listener class, see LazyConditionFilter
+        return GroovyFilter.create(condition, messageType);
+    }
+}
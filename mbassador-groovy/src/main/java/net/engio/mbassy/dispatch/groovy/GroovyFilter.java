@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.engio.mbassy.dispatch.groovy;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.groovy.jsr223.GroovyScriptEngineImpl;
+
+import groovy.lang.GroovyClassLoader;
+import net.engio.mbassy.dispatch.condition.LazyConditionFilter;
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.subscription.SubscriptionContext;
+
+public final class GroovyFilter<M> implements LazyConditionFilter<M> {
+    private static final String BASE_SCRIPT = "@groovy.transform.CompileStatic\n" +
+                                              "static net.engio.mbassy.listener.IMessageFilter provide()\n" +
+                                              "{\n" +
+                                              "    net.engio.mbassy.listener.IMessageFilter result = { <type> msg, net.engio.mbassy.subscription" +
+                                              ".SubscriptionContext context ->\n" +
+                                              "        return <script>;\n" +
+                                              "    }\n" +
+                                              "    return result;\n" +
+                                              "}\n" +
+                                              "return provide();";
+
+    private static final Pattern TYPE_REGEX   = Pattern.compile("<type>", Pattern.LITERAL);
+    private static final Pattern SCRIPT_REGEX = Pattern.compile("<script>", Pattern.LITERAL);
+
+    /**
+     * The number of compiled conditions that are kept for each message type, the bound is not global. At most this
+     * number times the number of message types with groovy conditions are cached. Conditions come from handler
+     * annotations, so a message type rarely has more. The cache only prevents compiling the same condition twice:
+     * a filter keeps its compiled condition, and an evicted condition is compiled again only for a new filter.
+     */
+    public static final int MAX_CACHED_CONDITIONS_PER_TYPE = 64;
+
+    // compiled conditions by message type and condition text. The cache is attached to the message type such that it never
+    // prevents the type, its class loader or the classes generated for the conditions from being unloaded
+    private static final ClassValue<ConditionCache> CompiledConditions = new ClassValue<ConditionCache>() {
+        @Override
+        protected ConditionCache computeValue(Class<?> type) {
+            return new ConditionCache(getEngine(type.getClassLoader()));
+        }
+    };
+
+    // script engines are shared by all message types of a class loader and kept alive by their condition caches
+    private static final Map<ClassLoader, WeakReference<EngineContext>> engines = new WeakHashMap<ClassLoader, WeakReference<EngineContext>>(5);
+
+    private static final AtomicLong compilations = new AtomicLong();
+
+    private final String source;
+
+    private final Class<?> type;
+
+    // compiled by the metadata reader, in the background or with the first evaluation, see LazyConditionFilter
+    private volatile IMessageFilter<M> groovyFilter;
+
+    // the error of the compilation, the condition is not compiled again
+    private volatile IllegalArgumentException error;
+
+    // looking up the script engine is expensive, it is only done once a condition actually requires groovy
+    private static final class Availability {
+        private static final boolean isGroovyAvailable = new ScriptEngineManager().getEngineByExtension("groovy") != null;
+    }
+
+    public static boolean isGroovyAvailable()
+    {
+        return Availability.isGroovyAvailable;
+    }
+
+    /**
+     * The number of conditions that have been compiled so far. Conditions with the same text
+     * and message type are compiled only once.
+     */
+    public static long getCompilationCount() {
+        return compilations.get();
+    }
+
+    private GroovyFilter(String source, Class<?> type) {
+        this.source = source;
+        this.type = type;
+    }
+
+    @Override
+    public boolean accepts(M message, SubscriptionContext context)
+    {
+        IMessageFilter<M> filter = this.groovyFilter;
+        if (filter == null) {
+            filter = getCompiled();
+        }
+        return filter.accepts(message, context);
+    }
+
+    @Override
+    public void compile() {
+        if (this.groovyFilter == null) {
+            getCompiled();
+        }
+    }
+
+    @Override
+    public void precompile(Executor executor) {
+        if (this.groovyFilter != null) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // the error is passed to the executor and thrown again whenever the filter is used
+                getCompiled();
+            }
+        });
+    }
+
+    private synchronized IMessageFilter<M> getCompiled() {
+        if (this.groovyFilter == null) {
+            if (this.error != null) {
+                throw new IllegalArgumentException(this.error.getMessage(), this.error);
+            }
+            try {
+                this.groovyFilter = CompiledConditions.get(this.type).get(this.source, this.type);
+            } catch (IllegalArgumentException e) {
+                this.error = e;
+                throw e;
+            }
+        }
+        return this.groovyFilter;
+    }
+
+    /**
+     * Create a filter for the given condition. The condition is compiled by {@link #compile()}, in the background by
+     * {@link #precompile(Executor)} or when the filter is used for the first time.
+     */
+    public static <T> GroovyFilter<T> create(String source, Class<?> type) {
+        return new GroovyFilter<T>(source, type);
+    }
+
+    private static EngineContext getEngine(ClassLoader classLoader) {
+        synchronized (engines) {
+            WeakReference<EngineContext> reference = engines.get(classLoader);
+            EngineContext engineContext = reference != null ? reference.get() : null;
+            if (engineContext == null) {
+                engineContext = new EngineContext(classLoader);
+                engines.put(classLoader, new WeakReference<EngineContext>(engineContext));
+            }
+            return engineContext;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> IMessageFilter<T> compile(EngineContext engineContext, String source, Class<?> type) {
+        try {
+            String script = TYPE_REGEX.matcher(BASE_SCRIPT).replaceFirst(Matcher.quoteReplacement(type.getCanonicalName()));
+            script = SCRIPT_REGEX.matcher(script).replaceFirst(Matcher.quoteReplacement(source));
+
+            IMessageFilter filter = (IMessageFilter) engineContext.engine.eval(script);
+            compilations.incrementAndGet();
+            return filter;
+        }
+        catch (Exception e) {
+            throw new IllegalArgumentException("Error while compiling groovy expression: `" + source + "`", e);
+        }
+    }
+
+    // the compiled conditions of a single message type, bounded in size by MAX_CACHED_CONDITIONS_PER_TYPE
+    static final class ConditionCache {
+        private final EngineContext engineContext;
+
+        private final LinkedHashMap<String, IMessageFilter<?>> conditions = new LinkedHashMap<String, IMessageFilter<?>>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IMessageFilter<?>> eldest) {
+                return size() > MAX_CACHED_CONDITIONS_PER_TYPE;
+            }
+        };
+
+        ConditionCache(EngineContext engineContext) {
+            this.engineContext = engineContext;
+        }
+
+        // conditions are compiled while holding the lock such that each condition is compiled only once
+        @SuppressWarnings("unchecked")
+        synchronized <T> IMessageFilter<T> get(String source, Class<?> type) {
+            IMessageFilter<T> filter = (IMessageFilter<T>) conditions.get(source);
+            if (filter == null) {
+                filter = compile(engineContext, source, type);
+                conditions.put(source, filter);
+            }
+            return filter;
+        }
+    }
+
+    static class EngineContext {
+        private final ClassLoader  loader;
+        private final ScriptEngine engine;
+
+        EngineContext(ClassLoader loader) {
+            this.loader = loader;
+            this.engine = new GroovyScriptEngineImpl(new GroovyClassLoader(loader));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package net.engio.mbassy.dispatch.groovy;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.dispatch.condition.ConditionCompiler;
+import net.engio.mbassy.dispatch.condition.ConditionCompilers;
+import net.engio.mbassy.dispatch.condition.ExpressionFilter;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.MetadataReader;
+import net.engio.mbassy.listener.References;
+import net.engio.mbassy.subscription.SubscriptionContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests conditions that require groovy
+ */
+public class GroovyConditionTest {
+
+    @Test
+    public void testCompilerIsInstalled() {
+        // the compiler of higher priority comes first although it is found after the groovy compiler
+        Assert.assertEquals(2, ConditionCompilers.getInstalled().size());
+        Assert.assertTrue(ConditionCompilers.getInstalled().get(0) instanceof PriorityConditionCompiler);
+        Assert.assertTrue(ConditionCompilers.getInstalled().get(1) instanceof GroovyConditionCompiler);
+        // simple conditions are still handled by the built-in expression language
+        Assert.assertTrue(ConditionCompilers.compile("msg.size == 1", TestEvent.class) instanceof ExpressionFilter);
+        Assert.assertTrue(ConditionCompilers.compile("msg.size in [1, 2]", TestEvent.class) instanceof GroovyFilter);
+    }
+
+    @Test
+    public void testCompilerOfHigherPriorityIsConsultedFirst() {
+        // the expression language supports the condition but the compiler of higher priority takes it
+        Assert.assertTrue(ConditionCompilers.compile(PriorityConditionCompiler.Condition, TestEvent.class)
+                instanceof PriorityConditionCompiler.AcceptAll);
+        // conditions that the compiler returns null for go on to the expression language and then to groovy
+        Assert.assertTrue(ConditionCompilers.compile("msg.size == 2", TestEvent.class) instanceof ExpressionFilter);
+        Assert.assertTrue(ConditionCompilers.compile("msg.size in [2]", TestEvent.class) instanceof GroovyFilter);
+    }
+
+    @Test
+    public void testGroovyConditions() {
+        MBassador bus = new MBassador();
+        bus.subscribe(new GroovyListener());
+
+        TestEvent message = new TestEvent("GROOVY", 2);
+        bus.publish(message);
+        Assert.assertTrue(message.handledBy.contains("handleType"));
+        Assert.assertTrue(message.handledBy.contains("handleSize"));
+
+        message = new TestEvent(null, 3);
+        bus.publish(message);
+        Assert.assertTrue(message.handledBy.isEmpty());
+        bus.shutdown();
+    }
+
+    @Test
+    public void testConditionsAreCompiledOnce() {
+        IMessageFilter<TestEvent> first = ConditionCompilers.compile("msg.size in [42]", TestEvent.class);
+        IMessageFilter<TestEvent> second = ConditionCompilers.compile("msg.size in [42]", TestEvent.class);
+        long compilations = GroovyFilter.getCompilationCount();
+
+        Assert.assertTrue(first.accepts(new TestEvent("", 42), null));
+        Assert.assertFalse(second.accepts(new TestEvent("", 41), null));
+        Assert.assertEquals(compilations + 1, GroovyFilter.getCompilationCount());
+    }
+
+    @Test
+    public void testBackgroundCompilation() throws InterruptedException {
+        ExecutorService compiler = Executors.newSingleThreadExecutor();
+        long compilations = GroovyFilter.getCompilationCount();
+        new MetadataReader().setConditionPrecompiler(compiler).getMessageListener(PrecompiledListener.class);
+        compiler.shutdown();
+        Assert.assertTrue(compiler.awaitTermination(30, TimeUnit.SECONDS));
+        Assert.assertEquals(compilations + 1, GroovyFilter.getCompilationCount());
+
+        // compiled conditions are used by all buses
+        MBassador bus = new MBassador();
+        bus.subscribe(new PrecompiledListener());
+        TestEvent message = new TestEvent("PRECOMPILED", 7);
+        bus.publish(message);
+        Assert.assertTrue(message.handledBy.contains("handlePrecompiled"));
+        Assert.assertEquals(compilations + 1, GroovyFilter.getCompilationCount());
+        bus.shutdown();
+    }
+
+    /**
+     * Registered as service by the test resources
+     */
+    public static class PriorityConditionCompiler implements ConditionCompiler {
+
+        static final String Condition = "msg.size == 42";
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <M> IMessageFilter<M> compile(String condition, Class<?> messageType) {
+            return Condition.equals(condition) ? (IMessageFilter<M>) new AcceptAll() : null;
+        }
+
+        @Override
+        public int getPriority() {
+            return BuiltInPriority + 1;
+        }
+
+        static final class AcceptAll implements IMessageFilter<Object> {
+
+            @Override
+            public boolean accepts(Object message, SubscriptionContext context) {
+                return true;
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidConditionFailsSubscription() {
+        MBassador bus = new MBassador();
+        try {
+            bus.subscribe(new InvalidListener());
+            Assert.fail("The condition is invalid");
+        } catch (RuntimeException e) {
+            // the subscription wraps the error of the metadata reader
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            Assert.assertTrue(e.getCause().getMessage().contains("no.such.property"));
+        } finally {
+            bus.shutdown();
+        }
+        // the handler is cached but it is validated again
+        try {
+            new MetadataReader().getMessageListener(InvalidListener.class);
+            Assert.fail("The condition is invalid");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("no.such.property"));
+        }
+    }
+
+    @Test
+    public void testBackgroundCompilationReportsErrors() throws InterruptedException {
+        final List<Throwable> errors = new CopyOnWriteArrayList<Throwable>();
+        ExecutorService compiler = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task);
+                thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                    @Override
+                    public void uncaughtException(Thread t, Throwable e) {
+                        errors.add(e);
+                    }
+                });
+                return thread;
+            }
+        });
+        // reading the listener does not wait for the compiler
+        IMessageFilter<?>[] filters = new MetadataReader().setConditionPrecompiler(compiler)
+                .getMessageListener(InvalidPrecompiledListener.class).getHandlers()[0].getFilter();
+        compiler.shutdown();
+        Assert.assertTrue(compiler.awaitTermination(30, TimeUnit.SECONDS));
+        // the worker reports the error after the executor has terminated
+        long start = System.currentTimeMillis();
+        while (errors.isEmpty() && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, errors.size());
+        Assert.assertTrue(errors.get(0) instanceof IllegalArgumentException);
+
+        // the error is thrown again when the filter is used, without compiling the condition again
+        long compilations = GroovyFilter.getCompilationCount();
+        try {
+            ((IMessageFilter<TestEvent>) filters[0]).accepts(new TestEvent("", 1), null);
+            Assert.fail("The condition is invalid");
+        } catch (IllegalArgumentException e) {
+            Assert.assertSame(errors.get(0), e.getCause());
+        }
+        Assert.assertEquals(compilations, GroovyFilter.getCompilationCount());
+    }
+
+    public static class TestEvent {
+
+        private final Set<String> handledBy = new HashSet<String>();
+        private final String type;
+        private final int size;
+
+        public TestEvent(String type, int size) {
+            this.type = type;
+            this.size = size;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public int getSize() {
+            return size;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class GroovyListener {
+
+        @Handler(condition = "msg.type?.startsWith('GROOVY')")
+        public void handleType(TestEvent message) {
+            message.handledBy.add("handleType");
+        }
+
+        @Handler(condition = "msg.size in [1, 2]")
+        public void handleSize(TestEvent message) {
+            message.handledBy.add("handleSize");
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class InvalidListener {
+
+        @Handler(condition = "msg.no.such.property in [1]")
+        public void handle(TestEvent message) {
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class InvalidPrecompiledListener {
+
+        @Handler(condition = "msg.no.such.property in [2]")
+        public void handle(TestEvent message) {
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class PrecompiledListener {
+
+        @Handler(condition = "msg.type?.startsWith('PRE') && msg.size in [6, 7]")
+        public void handlePrecompiled(TestEvent message) {
+            message.handledBy.add("handlePrecompiled");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package net.engio.mbassy.jcstress;
+
+import net.engio.mbassy.common.AbstractConcurrentSet;
+import net.engio.mbassy.common.StrongConcurrentSet;
+import net.engio.mbassy.common.WeakConcurrentSet;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.LL_Result;
+
+import java.util.Iterator;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Iterators of the concurrent sets racing the removal of an element. New elements are inserted at the head
+ * of the linked entries, so the sets holding a, b and c are iterated in the order c, b, a.
+ * An iterator must never lose an element that was not removed, must never fail and must never return null.
+ * The second result is the content of the set after both actors are done.
+ */
+public class ConcurrentSetTests {
+
+    // the elements are kept reachable by the state, such that weak references are not collected
+    abstract static class Elements {
+
+        final String a = "a";
+        final String b = "b";
+        final String c = "c";
+
+        final AbstractConcurrentSet<String> set;
+
+        Elements(AbstractConcurrentSet<String> set) {
+            this.set = set;
+            set.add(a);
+            set.add(b);
+            set.add(c);
+        }
+
+        String iterate() {
+            try {
+                StringBuilder content = new StringBuilder();
+                Iterator<String> iterator = set.iterator();
+                while (iterator.hasNext()) {
+                    content.append(iterator.next());
+                }
+                return content.toString();
+            } catch (RuntimeException e) {
+                return e.getClass().getSimpleName();
+            }
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"cba, ba", "ba, ba"}, expect = ACCEPTABLE, desc = "The removed head is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class StrongRemoveHead extends Elements {
+
+        public StrongRemoveHead() {
+            super(new StrongConcurrentSet<String>());
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(c);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"cba, ca", "ca, ca"}, expect = ACCEPTABLE, desc = "The removed element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class StrongRemoveMiddle extends Elements {
+
+        public StrongRemoveMiddle() {
+            super(new StrongConcurrentSet<String>());
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(b);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"cba, dcba", "dcba, dcba"}, expect = ACCEPTABLE, desc = "The added element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class StrongAdd extends Elements {
+
+        final String d = "d";
+
+        public StrongAdd() {
+            super(new StrongConcurrentSet<String>());
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void add() {
+            set.add(d);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"cba, ba", "ba, ba"}, expect = ACCEPTABLE, desc = "The removed head is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class WeakRemoveHead extends Elements {
+
+        public WeakRemoveHead() {
+            super(new WeakConcurrentSet<String>());
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(c);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"cba, ca", "ca, ca"}, expect = ACCEPTABLE, desc = "The removed element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class WeakRemoveMiddle extends Elements {
+
+        public WeakRemoveMiddle() {
+            super(new WeakConcurrentSet<String>());
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(b);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+}
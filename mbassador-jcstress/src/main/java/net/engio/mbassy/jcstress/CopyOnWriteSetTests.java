@@ -0,0 +1,365 @@
+package net.engio.mbassy.jcstress;
+
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
+import net.engio.mbassy.common.StrongCopyOnWriteSet;
+import net.engio.mbassy.common.WeakCopyOnWriteSet;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.LL_Result;
+import org.openjdk.jcstress.infra.results.ZZ_Result;
+
+import java.lang.ref.Reference;
+import java.util.Iterator;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Lock-free readers of the copy-on-write sets racing writers. contains() searches the snapshot that was published
+ * last, sets with more than 16 elements use the hash index that was published with the snapshot. Removals clear
+ * the slot in place and compact the slots into a new snapshot once half of them are empty or stale.
+ * A reader must always find the elements that are neither added nor removed concurrently, must never fail and
+ * must never see an element twice.
+ */
+public class CopyOnWriteSetTests {
+
+    // large enough to use the hash index
+    static final int IndexedSize = 20;
+
+    // the elements are kept reachable by the state, such that weak references are not collected
+    abstract static class IndexedElements {
+
+        final String[] elements = new String[IndexedSize];
+
+        final String added = "added";
+
+        final AbstractCopyOnWriteSet<String> set;
+
+        IndexedElements(AbstractCopyOnWriteSet<String> set) {
+            this.set = set;
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = "e" + i;
+                set.add(elements[i]);
+            }
+        }
+
+        // removes all but the last element in the first half, such that removing the last one compacts the set
+        void prepareCompaction() {
+            for (int i = 0; i < IndexedSize / 2 - 1; i++) {
+                set.remove(elements[i]);
+            }
+        }
+
+        // whether all elements from the given position on are found
+        boolean containsFrom(int first) {
+            for (int i = first; i < elements.length; i++) {
+                if (!set.contains(elements[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    abstract static class Elements {
+
+        final String a = "a";
+        final String b = "b";
+        final String c = "c";
+
+        final AbstractCopyOnWriteSet<String> set;
+
+        Elements(AbstractCopyOnWriteSet<String> set, boolean compacting) {
+            this.set = set;
+            set.add(a);
+            if (compacting) {
+                set.add("x");
+            }
+            set.add(b);
+            set.add(c);
+            if (compacting) {
+                // an empty slot besides b, such that removing b empties half of the slots
+                set.remove("x");
+            }
+        }
+
+        String iterate() {
+            try {
+                StringBuilder content = new StringBuilder();
+                Iterator<String> iterator = set.iterator();
+                while (iterator.hasNext()) {
+                    content.append(iterator.next());
+                }
+                return content.toString();
+            } catch (RuntimeException e) {
+                return e.getClass().getSimpleName();
+            }
+        }
+
+        // walks the snapshot like the message dispatcher
+        String walk() {
+            try {
+                StringBuilder content = new StringBuilder();
+                AbstractCopyOnWriteSet.Snapshot snapshot = set.snapshot();
+                for (int i = 0; i < snapshot.size; i++) {
+                    String value = set.valueOf(snapshot.slots[i]);
+                    if (value != null) {
+                        content.append(value);
+                    }
+                }
+                return content.toString();
+            } catch (RuntimeException e) {
+                return e.getClass().getSimpleName();
+            }
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"false, true", "true, true"}, expect = ACCEPTABLE, desc = "The added element is found or not, all others are found")
+    @Outcome(expect = FORBIDDEN, desc = "An element that was not modified was not found")
+    @State
+    public static class StrongContainsRacingAdd extends IndexedElements {
+
+        public StrongContainsRacingAdd() {
+            super(new StrongCopyOnWriteSet<String>());
+        }
+
+        @Actor
+        public void add() {
+            set.add(added);
+        }
+
+        @Actor
+        public void contains(ZZ_Result r) {
+            r.r1 = set.contains(added);
+            r.r2 = containsFrom(0);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"false, true", "true, true"}, expect = ACCEPTABLE, desc = "The added element is found or not, all others are found")
+    @Outcome(expect = FORBIDDEN, desc = "An element that was not modified was not found")
+    @State
+    public static class WeakContainsRacingAdd extends IndexedElements {
+
+        public WeakContainsRacingAdd() {
+            super(new WeakCopyOnWriteSet<String>());
+        }
+
+        @Actor
+        public void add() {
+            set.add(added);
+        }
+
+        @Actor
+        public void contains(ZZ_Result r) {
+            r.r1 = set.contains(added);
+            r.r2 = containsFrom(0);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"false, true", "true, true"}, expect = ACCEPTABLE, desc = "The removed element is found or not, all others are found")
+    @Outcome(expect = FORBIDDEN, desc = "An element that was not modified was not found")
+    @State
+    public static class StrongContainsRacingRemove extends IndexedElements {
+
+        final String removed = elements[IndexedSize / 2 - 1];
+
+        public StrongContainsRacingRemove() {
+            super(new StrongCopyOnWriteSet<String>());
+            prepareCompaction();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(removed); // compacts the set
+        }
+
+        @Actor
+        public void contains(ZZ_Result r) {
+            r.r1 = set.contains(removed);
+            r.r2 = containsFrom(IndexedSize / 2);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"false, true", "true, true"}, expect = ACCEPTABLE, desc = "The removed element is found or not, all others are found")
+    @Outcome(expect = FORBIDDEN, desc = "An element that was not modified was not found")
+    @State
+    public static class WeakContainsRacingRemove extends IndexedElements {
+
+        final String removed = elements[IndexedSize / 2 - 1];
+
+        public WeakContainsRacingRemove() {
+            super(new WeakCopyOnWriteSet<String>());
+            prepareCompaction();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(removed); // compacts the set
+        }
+
+        @Actor
+        public void contains(ZZ_Result r) {
+            r.r1 = set.contains(removed);
+            r.r2 = containsFrom(IndexedSize / 2);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "true, false", expect = ACCEPTABLE, desc = "All elements are found, a strong set has no stale slots")
+    @Outcome(expect = FORBIDDEN, desc = "An element was not found or a slot was expunged")
+    @State
+    public static class StrongContainsRacingExpunge extends IndexedElements {
+
+        public StrongContainsRacingExpunge() {
+            super(new StrongCopyOnWriteSet<String>());
+            prepareCompaction();
+        }
+
+        @Actor
+        public void expunge(ZZ_Result r) {
+            r.r2 = set.expungeStaleSlots() != 0;
+        }
+
+        @Actor
+        public void contains(ZZ_Result r) {
+            r.r1 = containsFrom(IndexedSize / 2 - 1);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "true, true", expect = ACCEPTABLE, desc = "All live elements are found, the stale slots are expunged")
+    @Outcome(expect = FORBIDDEN, desc = "A live element was not found or the stale slots were not expunged")
+    @State
+    public static class WeakContainsRacingExpunge extends IndexedElements {
+
+        public WeakContainsRacingExpunge() {
+            super(new WeakCopyOnWriteSet<String>());
+            // clearing a weak slot looks like the collection of its element to the set (it is not enqueued)
+            AbstractCopyOnWriteSet.Snapshot snapshot = set.snapshot();
+            for (int i = 0; i < IndexedSize / 2; i++) {
+                ((Reference<?>) snapshot.slots[i]).clear();
+            }
+        }
+
+        @Actor
+        public void expunge(ZZ_Result r) {
+            r.r2 = set.expungeStaleSlots() == IndexedSize / 2;
+        }
+
+        @Actor
+        public void contains(ZZ_Result r) {
+            r.r1 = containsFrom(IndexedSize / 2);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"abc, ac", "ac, ac"}, expect = ACCEPTABLE, desc = "The removed element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class StrongIterationRacingRemove extends Elements {
+
+        public StrongIterationRacingRemove() {
+            super(new StrongCopyOnWriteSet<String>(), false);
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(b);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"abc, ac", "ac, ac"}, expect = ACCEPTABLE, desc = "The removed element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the iterator failed")
+    @State
+    public static class WeakIterationRacingRemove extends Elements {
+
+        public WeakIterationRacingRemove() {
+            super(new WeakCopyOnWriteSet<String>(), false);
+        }
+
+        @Actor
+        public void iterate(LL_Result r) {
+            r.r1 = iterate();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(b);
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = iterate();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"abc, ac", "ac, ac"}, expect = ACCEPTABLE, desc = "The removed element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the walk failed")
+    @State
+    public static class StrongSnapshotRacingCompaction extends Elements {
+
+        public StrongSnapshotRacingCompaction() {
+            super(new StrongCopyOnWriteSet<String>(), true);
+        }
+
+        @Actor
+        public void walk(LL_Result r) {
+            r.r1 = walk();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(b); // compacts the set
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = walk();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"abc, ac", "ac, ac"}, expect = ACCEPTABLE, desc = "The removed element is seen or not, all other elements are seen")
+    @Outcome(expect = FORBIDDEN, desc = "An element was lost, duplicated or the walk failed")
+    @State
+    public static class WeakSnapshotRacingCompaction extends Elements {
+
+        public WeakSnapshotRacingCompaction() {
+            super(new WeakCopyOnWriteSet<String>(), true);
+        }
+
+        @Actor
+        public void walk(LL_Result r) {
+            r.r1 = walk();
+        }
+
+        @Actor
+        public void remove() {
+            set.remove(b); // compacts the set
+        }
+
+        @Arbiter
+        public void content(LL_Result r) {
+            r.r2 = walk();
+        }
+    }
+}
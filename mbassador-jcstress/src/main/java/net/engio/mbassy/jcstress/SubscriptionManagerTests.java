@@ -0,0 +1,198 @@
+package net.engio.mbassy.jcstress;
+
+import net.engio.mbassy.bus.BusRuntime;
+import net.engio.mbassy.bus.SyncMessageBus;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.bus.error.IPublicationErrorHandler;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.MetadataReader;
+import net.engio.mbassy.listener.References;
+import net.engio.mbassy.subscription.Subscription;
+import net.engio.mbassy.subscription.SubscriptionFactory;
+import net.engio.mbassy.subscription.SubscriptionManager;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Subscriptions racing each other and racing publications. The subscription manager checks for existing
+ * subscriptions of a listener class under the read lock and checks again under the write lock before it creates them.
+ * Publications look up the subscriptions of a message type in a cache that is built with computeIfAbsent and
+ * cleared on every (un)subscription, a publication that starts after a subscription has returned
+ * must therefore never miss the new listener.
+ */
+public class SubscriptionManagerTests {
+
+    public static class Message {
+    }
+
+    @Listener(references = References.Strong)
+    public static class First {
+
+        int received;
+
+        @Handler
+        public void handle(Message message) {
+            received++;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class Second {
+
+        int received;
+
+        @Handler
+        public void handle(Message message) {
+            received++;
+        }
+    }
+
+    private static SubscriptionManager createManager() {
+        BusRuntime runtime = new BusRuntime(null)
+                .add(IBusConfiguration.Properties.PublicationErrorHandlers, Collections.EMPTY_SET)
+                .add(IBusConfiguration.Properties.AsynchronousHandlerExecutor, null);
+        return new SubscriptionManager(new MetadataReader(), new SubscriptionFactory(), runtime);
+    }
+
+    @JCStressTest
+    @Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "One subscription holds both listeners")
+    @Outcome(expect = FORBIDDEN, desc = "The subscriptions were created twice or a listener was lost")
+    @State
+    public static class ConcurrentFirstSubscribe {
+
+        final SubscriptionManager manager = createManager();
+
+        final First first = new First();
+        final First second = new First();
+
+        @Actor
+        public void subscribeFirst() {
+            manager.subscribe(first);
+        }
+
+        @Actor
+        public void subscribeSecond() {
+            manager.subscribe(second);
+        }
+
+        @Arbiter
+        public void subscriptions(II_Result r) {
+            Collection<Subscription> subscriptions = manager.getSubscriptionsByMessageType(Message.class);
+            r.r1 = subscriptions.size();
+            for (Subscription subscription : subscriptions) {
+                r.r2 += subscription.size();
+            }
+        }
+    }
+
+    // the arbiter publishes once more, the first result counts the messages received by the subscribed listener, the second those of the new listener
+    abstract static class Publication {
+
+        final SyncMessageBus<Message> bus = new SyncMessageBus<Message>(new IPublicationErrorHandler.ConsoleLogger());
+
+        final First subscribed = new First();
+        final Second added = new Second();
+
+        Publication() {
+            bus.subscribe(subscribed);
+        }
+
+        void publishAgain(II_Result r) {
+            bus.publish(new Message());
+            r.r1 = subscribed.received;
+            r.r2 = added.received;
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"2, 1", "2, 2"}, expect = ACCEPTABLE, desc = "The racing publication reached the new listener or not")
+    @Outcome(id = "2, 0", expect = FORBIDDEN, desc = "The cache was built before the subscription and survived it")
+    @Outcome(expect = FORBIDDEN, desc = "A message was lost or delivered twice")
+    @State
+    public static class SubscribeRacingColdCachePublish extends Publication {
+
+        @Actor
+        public void publish() {
+            bus.publish(new Message());
+        }
+
+        @Actor
+        public void subscribe() {
+            bus.subscribe(added);
+        }
+
+        @Arbiter
+        public void publishAgain(II_Result r) {
+            super.publishAgain(r);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"2, 1", "2, 2"}, expect = ACCEPTABLE, desc = "The racing publication reached the new listener or not")
+    @Outcome(id = "2, 0", expect = FORBIDDEN, desc = "The cached subscriptions were not cleared by the subscription")
+    @Outcome(expect = FORBIDDEN, desc = "A message was lost or delivered twice")
+    @State
+    public static class SubscribeRacingWarmCachePublish extends Publication {
+
+        public SubscribeRacingWarmCachePublish() {
+            bus.publish(new Message());
+            subscribed.received = 0;
+        }
+
+        @Actor
+        public void publish() {
+            bus.publish(new Message());
+        }
+
+        @Actor
+        public void subscribe() {
+            bus.subscribe(added);
+        }
+
+        @Arbiter
+        public void publishAgain(II_Result r) {
+            super.publishAgain(r);
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = {"2, 0", "2, 1"}, expect = ACCEPTABLE, desc = "The racing publication reached the removed listener or not")
+    @Outcome(id = "2, 2", expect = FORBIDDEN, desc = "A publication after the unsubscription reached the removed listener")
+    @Outcome(expect = FORBIDDEN, desc = "A message was lost or delivered twice")
+    @State
+    public static class UnsubscribeRacingPublish extends Publication {
+
+        public UnsubscribeRacingPublish() {
+            bus.subscribe(added);
+            bus.publish(new Message());
+            subscribed.received = 0;
+            added.received = 0;
+        }
+
+        @Actor
+        public void publish() {
+            bus.publish(new Message());
+        }
+
+        @Actor
+        public void unsubscribe() {
+            bus.unsubscribe(added);
+        }
+
+        @Arbiter
+        public void publishAgain(II_Result r) {
+            super.publishAgain(r);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package net.engio.mbassy.scanner;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The parts of a class file that are relevant for the discovery of message listeners.
+ * All names are internal names (i.e. "net/engio/mbassy/bus/MBassador"), annotations are type descriptors.
+ */
+final class ClassInfo {
+
+    String name;
+
+    String superName;
+
+    int access;
+
+    // the runtime visible annotations of the class itself
+    final Set<String> annotations = new HashSet<String>();
+
+    // the runtime visible annotations of all methods declared by the class
+    final Set<String> methodAnnotations = new HashSet<String>();
+
+    boolean isAnnotation() {
+        return (access & Opcodes.ACC_ANNOTATION) != 0;
+    }
+
+    boolean isInstantiable() {
+        return (access & (Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT)) == 0;
+    }
+
+    /**
+     * Read the given class file. Only the class declaration and the annotations are parsed, method bodies are skipped.
+     */
+    static ClassInfo read(byte[] bytecode) {
+        final ClassInfo info = new ClassInfo();
+        final MethodVisitor methodVisitor = new MethodVisitor(Opcodes.ASM9) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                if (visible) {
+                    info.methodAnnotations.add(descriptor);
+                }
+                return null;
+            }
+        };
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                info.name = name;
+                info.superName = superName;
+                info.access = access;
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                if (visible) {
+                    info.annotations.add(descriptor);
+                }
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return methodVisitor;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return info;
+    }
+}
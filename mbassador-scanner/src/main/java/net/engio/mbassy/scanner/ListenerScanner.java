@@ -0,0 +1,128 @@
+package net.engio.mbassy.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The listener scanner discovers message listeners in directories and jar files by reading the class files
+ * with a bytecode reader. No class is loaded and no static initializer is run during the scan.
+ * <p/>
+ * A class is considered a message listener if it can be instantiated and it or any of its super classes declares a method
+ * that is annotated with {@link net.engio.mbassy.listener.Handler} or with a custom annotation that carries
+ * {@link net.engio.mbassy.listener.Handler} as a (possibly indirect) meta annotation. Custom annotations are only recognized
+ * if they are part of the scanned locations.
+ * <pre>
+ * ScanResult result = new ListenerScanner().addPath(Paths.get("plugins/plugin.jar")).scan();
+ * result.preload(metadataReader, pluginClassLoader);
+ * </pre>
+ */
+public class ListenerScanner {
+
+    private final List<Path> locations = new ArrayList<Path>();
+
+    /**
+     * Add a directory of class files or a jar file to the locations that will be scanned
+     */
+    public ListenerScanner addPath(Path location) {
+        locations.add(location);
+        return this;
+    }
+
+    /**
+     * Add all locations of the class path of the running JVM
+     */
+    public ListenerScanner addClasspath() {
+        for (String location : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!location.isEmpty()) {
+                addPath(Paths.get(location));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Read all class files of the added locations. The class files are parsed in parallel.
+     * If a class is found in several locations, the first one wins (like with a class path).
+     */
+    public ScanResult scan() throws IOException {
+        List<byte[]> classFiles = new ArrayList<byte[]>();
+        for (Path location : locations) {
+            if (Files.isDirectory(location)) {
+                readDirectory(location, classFiles);
+            } else if (Files.isRegularFile(location)) {
+                readJar(location, classFiles);
+            }
+        }
+        Map<String, ClassInfo> classes = classFiles.parallelStream()
+                .map(ClassInfo::read)
+                .collect(Collectors.toMap(info -> info.name, Function.identity(), (first, second) -> first));
+        return new ScanResult(classes);
+    }
+
+    private static void readDirectory(Path directory, List<byte[]> classFiles) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(ListenerScanner::isClassFile).forEach(file -> {
+                try {
+                    classFiles.add(Files.readAllBytes(file));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void readJar(Path jar, List<byte[]> classFiles) throws IOException {
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                // versioned entries of multi release jars are skipped, they do not add classes
+                if (!entry.isDirectory() && isClassFile(entry.getName()) && !entry.getName().startsWith("META-INF/")) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        classFiles.add(readFully(in));
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isClassFile(Path file) {
+        return Files.isRegularFile(file) && isClassFile(file.getFileName().toString());
+    }
+
+    private static boolean isClassFile(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.endsWith("package-info.class");
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        int length = 0;
+        for (int read; (read = in.read(buffer, length, buffer.length - length)) >= 0; ) {
+            length += read;
+            if (length == buffer.length) {
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, length);
+                buffer = larger;
+            }
+        }
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, 0, bytes, 0, length);
+        return bytes;
+    }
+}
@@ -0,0 +1,122 @@
+package net.engio.mbassy.scanner;
+
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.MessageListener;
+import net.engio.mbassy.listener.MetadataReader;
+import org.objectweb.asm.Type;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The message listeners that have been discovered by a {@link ListenerScanner}.
+ */
+public class ScanResult {
+
+    private static final String HandlerDescriptor = Type.getDescriptor(Handler.class);
+
+    // all scanned classes by internal name
+    private final Map<String, ClassInfo> classes;
+
+    // descriptors of @Handler and all annotations that are (meta) annotated with it
+    private final Set<String> handlerAnnotations;
+
+    // binary names of all discovered listener classes
+    private final Set<String> listeners;
+
+    ScanResult(Map<String, ClassInfo> classes) {
+        this.classes = classes;
+        this.handlerAnnotations = resolveHandlerAnnotations(classes);
+        Map<String, Boolean> declaresHandlers = new HashMap<String, Boolean>();
+        Set<String> listeners = new TreeSet<String>();
+        for (ClassInfo info : classes.values()) {
+            if (info.isInstantiable() && inheritsHandlers(info, declaresHandlers)) {
+                listeners.add(Type.getObjectType(info.name).getClassName());
+            }
+        }
+        this.listeners = Collections.unmodifiableSet(listeners);
+    }
+
+    // the annotation types are resolved iteratively since meta annotations can be layered
+    private static Set<String> resolveHandlerAnnotations(Map<String, ClassInfo> classes) {
+        Set<String> handlerAnnotations = new HashSet<String>();
+        handlerAnnotations.add(HandlerDescriptor);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (ClassInfo info : classes.values()) {
+                if (info.isAnnotation() && !Collections.disjoint(info.annotations, handlerAnnotations)) {
+                    changed |= handlerAnnotations.add(Type.getObjectType(info.name).getDescriptor());
+                }
+            }
+        }
+        return handlerAnnotations;
+    }
+
+    // check the class and its super classes (as far as they have been scanned) for handler methods
+    private boolean inheritsHandlers(ClassInfo info, Map<String, Boolean> declaresHandlers) {
+        Boolean result = declaresHandlers.get(info.name);
+        if (result == null) {
+            ClassInfo superClass = info.superName != null ? classes.get(info.superName) : null;
+            result = !Collections.disjoint(info.methodAnnotations, handlerAnnotations)
+                    || (superClass != null && inheritsHandlers(superClass, declaresHandlers));
+            declaresHandlers.put(info.name, result);
+        }
+        return result;
+    }
+
+    /**
+     * Get the binary names (as used by {@link Class#forName(String)}) of all discovered listener classes
+     */
+    public Set<String> getListenerClassNames() {
+        return listeners;
+    }
+
+    /**
+     * Get the binary names of all scanned annotation types that define message handlers, i.e.
+     * custom annotations with a {@link Handler} meta annotation.
+     */
+    public Set<String> getHandlerAnnotationNames() {
+        Set<String> names = new TreeSet<String>();
+        for (String descriptor : handlerAnnotations) {
+            if (!descriptor.equals(HandlerDescriptor)) {
+                names.add(Type.getType(descriptor).getClassName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Get the number of scanned classes
+     */
+    public int getScannedClassCount() {
+        return classes.size();
+    }
+
+    /**
+     * Read the metadata of all discovered listeners in parallel, using all available cores.
+     * The listener classes are loaded from the given class loader without being initialized.
+     * Classes that can not be loaded (i.e. because of missing dependencies) are skipped.
+     *
+     * @return The metadata of all listener classes that could be loaded
+     */
+    public List<MessageListener> preload(final MetadataReader reader, final ClassLoader loader) {
+        return listeners.parallelStream()
+                .map(name -> {
+                    try {
+                        return reader.getMessageListener(Class.forName(name, false, loader));
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
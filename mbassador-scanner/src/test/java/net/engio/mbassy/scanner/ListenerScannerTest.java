@@ -0,0 +1,128 @@
+package net.engio.mbassy.scanner;
+
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.MessageListener;
+import net.engio.mbassy.listener.MetadataReader;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scans the compiled test classes of this module
+ */
+public class ListenerScannerTest {
+
+    private static ScanResult result;
+
+    @BeforeClass
+    public static void scan() throws Exception {
+        Path testClasses = Paths.get(ListenerScannerTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        result = new ListenerScanner().addPath(testClasses).scan();
+    }
+
+    @Test
+    public void testDiscoversListeners() {
+        Set<String> listeners = result.getListenerClassNames();
+        Assert.assertTrue(listeners.contains(SimpleListener.class.getName()));
+        // inherited handlers
+        Assert.assertTrue(listeners.contains(SimpleListenerSubclass.class.getName()));
+        // custom handler annotations, also layered ones
+        Assert.assertTrue(listeners.contains(CustomAnnotatedListener.class.getName()));
+        Assert.assertTrue(listeners.contains(LayeredAnnotatedListener.class.getName()));
+        Assert.assertTrue(listeners.contains(UninitializableListener.class.getName()));
+
+        Assert.assertFalse(listeners.contains(NoListener.class.getName()));
+        Assert.assertFalse(listeners.contains(AbstractListener.class.getName()));
+        Assert.assertFalse(listeners.contains(ListenerScannerTest.class.getName()));
+        Assert.assertEquals(5, listeners.size());
+    }
+
+    @Test
+    public void testResolvesHandlerAnnotations() {
+        Set<String> annotations = result.getHandlerAnnotationNames();
+        Assert.assertTrue(annotations.contains(CustomHandler.class.getName()));
+        Assert.assertTrue(annotations.contains(LayeredHandler.class.getName()));
+        Assert.assertEquals(2, annotations.size());
+    }
+
+    @Test
+    public void testPreloadDoesNotInitializeClasses() {
+        List<MessageListener> listeners = result.preload(new MetadataReader(), getClass().getClassLoader());
+        Assert.assertEquals(5, listeners.size());
+        for (MessageListener listener : listeners) {
+            Assert.assertEquals(1, listener.getHandlers().length);
+        }
+        // the static initializer would have thrown an error
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+    @Handler(priority = 10)
+    public @interface CustomHandler {
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @CustomHandler
+    public @interface LayeredHandler {
+    }
+
+    public static class SimpleListener {
+
+        @Handler
+        public void handle(String message) {
+        }
+    }
+
+    public static class SimpleListenerSubclass extends SimpleListener {
+    }
+
+    public static class CustomAnnotatedListener {
+
+        @CustomHandler
+        public void handle(String message) {
+        }
+    }
+
+    public static class LayeredAnnotatedListener {
+
+        @LayeredHandler
+        public void handle(String message) {
+        }
+    }
+
+    public static class UninitializableListener {
+
+        static {
+            if (true) {
+                throw new IllegalStateException("Must not be initialized");
+            }
+        }
+
+        @Handler
+        public void handle(String message) {
+        }
+    }
+
+    public abstract static class AbstractListener {
+
+        @Handler
+        public abstract void handle(String message);
+    }
+
+    public static class NoListener {
+
+        @Deprecated
+        public void handle(String message) {
+        }
+    }
+}
@@ -7,6 +7,8 @@ import net.engio.mbassy.bus.config.Feature;
 import net.engio.mbassy.bus.config.IBusConfiguration;
 import net.engio.mbassy.bus.error.IPublicationErrorHandler;
 import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.bus.metrics.IMessageMetrics;
 import net.engio.mbassy.subscription.Subscription;
 import net.engio.mbassy.subscription.SubscriptionManager;
 
@@ -17,8 +19,12 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import static net.engio.mbassy.bus.config.IBusConfiguration.Properties.AdaptiveFilterOrdering;
 import static net.engio.mbassy.bus.config.IBusConfiguration.Properties.BusId;
+import static net.engio.mbassy.bus.config.IBusConfiguration.Properties.Jmx;
+import static net.engio.mbassy.bus.config.IBusConfiguration.Properties.Metrics;
 import static net.engio.mbassy.bus.config.IBusConfiguration.Properties.PublicationErrorHandlers;
 
 /**
@@ -51,6 +57,12 @@ public abstract class AbstractPubSubSupport<T> implements PubSubSupport<T> {
 
     private final BusRuntime runtime;
 
+    // null if the metrics feature is not configured
+    private final IMessageMetrics metrics;
+
+    // number of currently executing publications, only counted if the bus registers an MBean (null otherwise)
+    private final LongAdder inFlight;
+
     public static final String ERROR_HANDLER_MSG = "INFO: No error handler has been configured to handle exceptions during publication.\n" +
             "Publication error handlers can be added by IBusConfiguration.addPublicationErrorHandler()\n" +
             "Falling back to console logger.";
@@ -63,9 +75,18 @@ public abstract class AbstractPubSubSupport<T> implements PubSubSupport<T> {
             System.out.println(ERROR_HANDLER_MSG);
         }
         this.useUnusedEvent = configuration.getProperty("useUnusedEvent", true);
+        Feature.Metrics metricsFeature = configuration.getFeature(Feature.Metrics.class);
+        this.metrics = metricsFeature != null ? metricsFeature.getMetrics() : null;
+        boolean jmx = configuration.getProperty(Jmx, false);
+        this.inFlight = jmx ? new LongAdder() : null;
         this.runtime = new BusRuntime(this)
                 .add(PublicationErrorHandlers, configuration.getRegisteredPublicationErrorHandlers())
-                .add(BusId, configuration.getProperty(BusId, UUID.randomUUID().toString()));
+                .add(BusId, configuration.getProperty(BusId, UUID.randomUUID().toString()))
+                .add(AdaptiveFilterOrdering, configuration.getProperty(AdaptiveFilterOrdering, false))
+                .add(Jmx, jmx);
+        if (metrics != null) {
+            runtime.add(Metrics, metrics);
+        }
         // configure the pub sub feature
         Feature.SyncPubSub pubSubFeature = configuration.getFeature(Feature.SyncPubSub.class);
         if(pubSubFeature == null){
@@ -115,14 +136,37 @@ public abstract class AbstractPubSubSupport<T> implements PubSubSupport<T> {
                     return null;
                 }
                 subscriptions = getSubscriptionsByMessageType(DeadMessage.class);
-                return getPublicationFactory().createPublication(runtime, subscriptions, new DeadMessage(message));
+                return track(getPublicationFactory().createPublication(runtime, subscriptions, new DeadMessage(message)));
             }
             // unused event
             unusedEvents.add(messageClass);
             return null;
         } else {
-            return this.getPublicationFactory().createPublication(this.getRuntime(), subscriptions, message);
+            return track(this.getPublicationFactory().createPublication(this.getRuntime(), subscriptions, message));
+        }
+    }
+
+    private MessagePublication track(MessagePublication publication) {
+        if (metrics != null) {
+            publication.setMetrics(metrics);
+        }
+        if (inFlight != null) {
+            publication.setInFlightCounter(inFlight);
         }
+        return publication;
+    }
+
+    SubscriptionManager getSubscriptionManager() {
+        return subscriptionManager;
+    }
+
+    int getUnusedEventCacheSize() {
+        return unusedEvents.size();
+    }
+
+    // 0 if the publications are not counted
+    long getInFlightPublications() {
+        return inFlight != null ? inFlight.sum() : 0;
     }
 
     // obtain the set of subscriptions for the given message type
@@ -133,6 +177,7 @@ public abstract class AbstractPubSubSupport<T> implements PubSubSupport<T> {
 
 
     protected void handlePublicationError(PublicationError error) {
+        FlightRecorderEvents.error(error);
         for (IPublicationErrorHandler errorHandler : errorHandlers) {
             try
             {
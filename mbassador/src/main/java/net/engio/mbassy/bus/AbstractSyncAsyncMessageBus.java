@@ -13,6 +13,8 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import javax.management.ObjectName;
+
 /**
  * The base class for all message bus implementations with support for asynchronous message dispatch
  *
@@ -31,6 +33,11 @@ public abstract class AbstractSyncAsyncMessageBus<T, P extends ISyncAsyncPublica
     // all pending messages scheduled for asynchronous dispatch are queued here
     private final BlockingQueue<IMessagePublication> pendingMessages;
 
+    // the name of the registered MBean, null if it has not been registered or the bus has been shut down
+    private ObjectName mbean;
+
+    private boolean shutdown;
+
     protected AbstractSyncAsyncMessageBus(IBusConfiguration configuration) {
         super(configuration);
 
@@ -50,7 +57,6 @@ public abstract class AbstractSyncAsyncMessageBus<T, P extends ISyncAsyncPublica
         }
         this.executor = asyncInvocation.getExecutor();
         getRuntime().add(IBusConfiguration.Properties.AsynchronousHandlerExecutor, executor);
-
     }
 
     // initialize the dispatch workers
@@ -87,6 +93,7 @@ public abstract class AbstractSyncAsyncMessageBus<T, P extends ISyncAsyncPublica
             return null;
         }
         try {
+            publication.markEnqueued();
             pendingMessages.put(publication);
             return publication.markScheduled();
         } catch (InterruptedException e) {
@@ -98,6 +105,7 @@ public abstract class AbstractSyncAsyncMessageBus<T, P extends ISyncAsyncPublica
     // this method queues a message delivery request
     protected IMessagePublication addAsynchronousPublication(MessagePublication publication, long timeout, TimeUnit unit) {
         try {
+            publication.markEnqueued();
             return pendingMessages.offer(publication, timeout, unit)
                     ? publication.markScheduled()
                     : publication;
@@ -113,8 +121,37 @@ public abstract class AbstractSyncAsyncMessageBus<T, P extends ISyncAsyncPublica
         shutdown();
     }
 
+    /**
+     * Register the MBean of this bus with the platform MBean server, see {@link MessageBusMXBean}. The bus must be
+     * configured with {@link IBusConfiguration.Properties#Jmx} which enables the counters the MBean reads.
+     * The MBean is unregistered when the bus is shut down.
+     *
+     * @return The name of the MBean, calling this method again returns the name of the registered MBean
+     * @throws ConfigurationError if the property is not set or the MBean can not be registered,
+     *                            e.g. because another bus has the same id
+     */
+    public synchronized ObjectName registerMBean() {
+        if (shutdown) {
+            throw new IllegalStateException("The bus has been shut down");
+        }
+        if (!getRuntime().<Boolean>get(IBusConfiguration.Properties.Jmx)) {
+            throw ConfigurationError.MissingProperty(IBusConfiguration.Properties.Jmx);
+        }
+        if (mbean == null) {
+            mbean = MessageBusMonitor.register(this);
+        }
+        return mbean;
+    }
+
     @Override
     public void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            if (mbean != null) {
+                MessageBusMonitor.unregister(mbean);
+                mbean = null;
+            }
+        }
         for (Thread dispatcher : dispatchers) {
             dispatcher.interrupt();
         }
@@ -126,4 +163,16 @@ public abstract class AbstractSyncAsyncMessageBus<T, P extends ISyncAsyncPublica
         return pendingMessages.size() > 0;
     }
 
+    BlockingQueue<IMessagePublication> getPendingMessages() {
+        return pendingMessages;
+    }
+
+    List<Thread> getDispatchers() {
+        return dispatchers;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
 }
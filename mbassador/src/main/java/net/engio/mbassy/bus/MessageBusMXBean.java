@@ -0,0 +1,101 @@
+package net.engio.mbassy.bus;
+
+import java.util.Map;
+
+/**
+ * The management interface of a message bus with asynchronous message dispatch. It is registered with the platform
+ * MBean server as net.engio.mbassy:type=MessageBus,name="&lt;bus id&gt;" by
+ * {@link AbstractSyncAsyncMessageBus#registerMBean()} if the bus is configured with
+ * {@link net.engio.mbassy.bus.config.IBusConfiguration.Properties#Jmx}.
+ * <p/>
+ * All values are snapshots that may already be outdated when they are read.
+ */
+public interface MessageBusMXBean {
+
+    /**
+     * The id of the bus, see {@link net.engio.mbassy.bus.config.IBusConfiguration.Properties#BusId}
+     */
+    String getBusId();
+
+    /**
+     * The number of asynchronous publications that wait in the queue for a dispatcher thread
+     */
+    int getPendingMessages();
+
+    /**
+     * The number of asynchronous publications that can be queued without blocking (Integer.MAX_VALUE if unbounded)
+     */
+    int getRemainingQueueCapacity();
+
+    /**
+     * The number of publications that are currently executed, synchronous and asynchronous
+     */
+    long getInFlightPublications();
+
+    /**
+     * The state of each dispatcher thread by its name, e.g. WAITING for an idle dispatcher
+     */
+    Map<String, String> getDispatcherThreadStates();
+
+    /**
+     * The number of threads that currently invoke asynchronous handlers (-1 if the executor does not tell)
+     */
+    int getActiveHandlerThreads();
+
+    /**
+     * The number of asynchronous handler invocations that wait for a thread (-1 if the executor does not tell)
+     */
+    int getPendingHandlerInvocations();
+
+    /**
+     * The number of subscriptions per handled message type (by class name), not including subscriptions of super types
+     */
+    Map<String, Integer> getSubscriptionsPerMessageType();
+
+    /**
+     * The number of subscribed listeners per listener class (by class name)
+     */
+    Map<String, Integer> getListenersPerClass();
+
+    /**
+     * The filters of each handler with adaptively ordered filters (by listener class and method name) in their current
+     * order of evaluation, each with its measured evaluations, rejections and average duration, see
+     * {@link net.engio.mbassy.bus.config.IBusConfiguration.Properties#AdaptiveFilterOrdering}
+     */
+    Map<String, String[]> getFilterOrder();
+
+    /**
+     * The number of times the filters of each handler with adaptively ordered filters have been reordered
+     */
+    Map<String, Long> getFilterReorderCounts();
+
+    /**
+     * The total number of subscribed listeners
+     */
+    int getListenerCount();
+
+    /**
+     * The number of lookups of the subscriptions of a message type that were answered by the dispatch cache
+     */
+    long getDispatchCacheHits();
+
+    /**
+     * The number of lookups that missed the dispatch cache, each of them rebuilt the cached subscriptions of a message type
+     */
+    long getDispatchCacheMisses();
+
+    /**
+     * The number of times the dispatch cache was cleared because listeners were subscribed or unsubscribed
+     */
+    long getDispatchCacheInvalidations();
+
+    /**
+     * The number of message types in the dispatch cache
+     */
+    int getDispatchCacheSize();
+
+    /**
+     * The number of message types without subscriptions that are remembered to skip their publication
+     */
+    int getUnusedEventCacheSize();
+}
@@ -0,0 +1,175 @@
+package net.engio.mbassy.bus;
+
+import net.engio.mbassy.bus.config.ConfigurationError;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.dispatch.AdaptiveFilteredMessageDispatcher;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the state of a message bus with asynchronous message dispatch as an MXBean, see {@link MessageBusMXBean}
+ */
+class MessageBusMonitor implements MessageBusMXBean {
+
+    private final AbstractSyncAsyncMessageBus<?, ?> bus;
+
+    private MessageBusMonitor(AbstractSyncAsyncMessageBus<?, ?> bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * Register a monitor of the given bus with the platform MBean server
+     *
+     * @return The name of the registered MBean
+     * @throws ConfigurationError if the MBean can not be registered, e.g. because another bus has the same id
+     */
+    static ObjectName register(AbstractSyncAsyncMessageBus<?, ?> bus) {
+        String busId = bus.getRuntime().get(IBusConfiguration.Properties.BusId);
+        try {
+            ObjectName name = new ObjectName("net.engio.mbassy:type=MessageBus,name=" + ObjectName.quote(busId));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MessageBusMonitor(bus), name);
+            return name;
+        } catch (JMException e) {
+            throw ConfigurationError.MBeanRegistration(busId, e);
+        }
+    }
+
+    static void unregister(ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // already unregistered by a previous shutdown
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister " + name, e);
+        }
+    }
+
+    @Override
+    public String getBusId() {
+        return bus.getRuntime().get(IBusConfiguration.Properties.BusId);
+    }
+
+    @Override
+    public int getPendingMessages() {
+        return bus.getPendingMessages().size();
+    }
+
+    @Override
+    public int getRemainingQueueCapacity() {
+        return bus.getPendingMessages().remainingCapacity();
+    }
+
+    @Override
+    public long getInFlightPublications() {
+        return bus.getInFlightPublications();
+    }
+
+    @Override
+    public Map<String, String> getDispatcherThreadStates() {
+        Map<String, String> states = new HashMap<String, String>();
+        for (Thread dispatcher : bus.getDispatchers()) {
+            states.put(dispatcher.getName(), dispatcher.getState().name());
+        }
+        return states;
+    }
+
+    @Override
+    public int getActiveHandlerThreads() {
+        ExecutorService executor = bus.getExecutor();
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getActiveCount() : -1;
+    }
+
+    @Override
+    public int getPendingHandlerInvocations() {
+        ExecutorService executor = bus.getExecutor();
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : -1;
+    }
+
+    @Override
+    public Map<String, Integer> getSubscriptionsPerMessageType() {
+        return byName(bus.getSubscriptionManager().getSubscriptionCountByMessageType());
+    }
+
+    @Override
+    public Map<String, Integer> getListenersPerClass() {
+        return byName(bus.getSubscriptionManager().getListenerCountByClass());
+    }
+
+    @Override
+    public Map<String, String[]> getFilterOrder() {
+        Map<String, String[]> order = new HashMap<String, String[]>();
+        for (Map.Entry<String, AdaptiveFilteredMessageDispatcher> filters
+                : bus.getSubscriptionManager().getAdaptiveFilters().entrySet()) {
+            AdaptiveFilteredMessageDispatcher.FilterStatistics[] statistics = filters.getValue().getFilterStatistics();
+            String[] descriptions = new String[statistics.length];
+            for (int i = 0; i < statistics.length; i++) {
+                descriptions[i] = statistics[i].toString();
+            }
+            order.put(filters.getKey(), descriptions);
+        }
+        return order;
+    }
+
+    @Override
+    public Map<String, Long> getFilterReorderCounts() {
+        Map<String, Long> reorderings = new HashMap<String, Long>();
+        for (Map.Entry<String, AdaptiveFilteredMessageDispatcher> filters
+                : bus.getSubscriptionManager().getAdaptiveFilters().entrySet()) {
+            reorderings.put(filters.getKey(), filters.getValue().getReorderCount());
+        }
+        return reorderings;
+    }
+
+    @Override
+    public int getListenerCount() {
+        int listeners = 0;
+        for (int count : bus.getSubscriptionManager().getListenerCountByClass().values()) {
+            listeners += count;
+        }
+        return listeners;
+    }
+
+    @Override
+    public long getDispatchCacheHits() {
+        return bus.getSubscriptionManager().getCacheHitCount();
+    }
+
+    @Override
+    public long getDispatchCacheMisses() {
+        return bus.getSubscriptionManager().getCacheRebuildCount();
+    }
+
+    @Override
+    public long getDispatchCacheInvalidations() {
+        return bus.getSubscriptionManager().getCacheInvalidationCount();
+    }
+
+    @Override
+    public int getDispatchCacheSize() {
+        return bus.getSubscriptionManager().getCacheSize();
+    }
+
+    @Override
+    public int getUnusedEventCacheSize() {
+        return bus.getUnusedEventCacheSize();
+    }
+
+    // classes of different class loaders may have the same name, their counts are added
+    private static Map<String, Integer> byName(Map<Class<?>, Integer> counts) {
+        Map<String, Integer> byName = new HashMap<String, Integer>();
+        for (Map.Entry<Class<?>, Integer> count : counts.entrySet()) {
+            byName.merge(count.getKey().getName(), count.getValue(), Integer::sum);
+        }
+        return byName;
+    }
+}
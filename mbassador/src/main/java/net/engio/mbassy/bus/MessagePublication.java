@@ -3,9 +3,17 @@ package net.engio.mbassy.bus;
 import net.engio.mbassy.bus.common.DeadMessage;
 import net.engio.mbassy.bus.common.FilteredMessage;
 import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.bus.metrics.IMessageMetrics;
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.listener.MessagePure;
 import net.engio.mbassy.subscription.Subscription;
+import net.engio.mbassy.subscription.SubscriptionContext;
+import net.engio.mbassy.subscription.SubscriptionList;
 
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A message publication is created for each asynchronous message dispatch. It reflects the state
@@ -27,6 +35,14 @@ public class MessagePublication implements IMessagePublication {
     private volatile boolean dispatched = false;
     private final BusRuntime runtime;
     private PublicationError error = null;
+    // results of message pure filters that have been evaluated for this publication (created on demand)
+    private IdentityHashMap<IMessageFilter, Boolean> filterResults;
+    // records the execution if the bus has the metrics feature
+    private IMessageMetrics metrics;
+    // counts the executing publications of the bus if it registers an MBean
+    private LongAdder inFlight;
+    // the flight recorder event of an asynchronous publication that waits in the queue of the bus (if recorded)
+    private Object queueWait;
 
 
     protected MessagePublication(BusRuntime runtime, Collection<Subscription> subscriptions, Object message, State initialState) {
@@ -45,8 +61,30 @@ public class MessagePublication implements IMessagePublication {
      */
     public void execute() {
         state = State.Running;
-        for (Subscription sub : subscriptions) {
-           sub.publish(this, message);
+        if (queueWait != null) {
+            FlightRecorderEvents.endQueueWait(queueWait, message, null);
+            queueWait = null;
+        }
+        if (inFlight != null) {
+            inFlight.increment();
+        }
+        Object event = FlightRecorderEvents.beginPublication();
+        try {
+            if (metrics == null) {
+                dispatch();
+            } else {
+                long start = System.nanoTime();
+                try {
+                    dispatch();
+                } finally {
+                    metrics.published(this, System.nanoTime() - start);
+                }
+            }
+        } finally {
+            FlightRecorderEvents.endPublication(event, message, subscriptions.size());
+            if (inFlight != null) {
+                inFlight.decrement();
+            }
         }
         state = State.Finished;
         // This part is necessary to support the feature of publishing a DeadMessage or FilteredMessage
@@ -64,6 +102,16 @@ public class MessagePublication implements IMessagePublication {
         }
     }
 
+    private void dispatch() {
+        if (subscriptions instanceof SubscriptionList) {
+            ((SubscriptionList) subscriptions).publish(this, message);
+        } else {
+            for (Subscription sub : subscriptions) {
+                sub.publish(this, message);
+            }
+        }
+    }
+
     public boolean isFinished() {
         return state.equals(State.Finished);
     }
@@ -85,6 +133,25 @@ public class MessagePublication implements IMessagePublication {
         return error;
     }
 
+    /**
+     * Evaluate the given filter for the message of this publication. Filters marked as {@link MessagePure}
+     * are evaluated only once, subsequent calls return the result of the first evaluation.
+     */
+    public boolean accepts(IMessageFilter filter, boolean messagePure, SubscriptionContext context) {
+        if (!messagePure) {
+            return filter.accepts(message, context);
+        }
+        if (filterResults == null) {
+            filterResults = new IdentityHashMap<IMessageFilter, Boolean>(4);
+        }
+        Boolean result = filterResults.get(filter);
+        if (result == null) {
+            result = filter.accepts(message, context);
+            filterResults.put(filter, result);
+        }
+        return result;
+    }
+
     public void markDispatched() {
         dispatched = true;
     }
@@ -92,6 +159,27 @@ public class MessagePublication implements IMessagePublication {
         this.error = error;
     }
 
+    /**
+     * Record the execution of this publication with the given metrics
+     */
+    public MessagePublication setMetrics(IMessageMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Count the execution of this publication with the given counter while it is running
+     */
+    public MessagePublication setInFlightCounter(LongAdder inFlight) {
+        this.inFlight = inFlight;
+        return this;
+    }
+
+    // called before the publication is added to the queue of asynchronous publications
+    void markEnqueued() {
+        queueWait = FlightRecorderEvents.beginQueueWait();
+    }
+
     public MessagePublication markScheduled() {
         if (state.equals(State.Initial)) {
             state = State.Scheduled;
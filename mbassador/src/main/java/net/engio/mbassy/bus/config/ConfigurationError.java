@@ -19,6 +19,16 @@ public class ConfigurationError extends RuntimeException{
         return new ConfigurationError("The expected feature " + featureType +  " was missing. Use addFeature() in IBusConfiguration to add features.");
     }
 
+    public static ConfigurationError MissingProperty(String property){
+        return new ConfigurationError("The expected property " + property + " was not set. Use setProperty() in IBusConfiguration to set properties.");
+    }
+
+    public static ConfigurationError MBeanRegistration(String busId, Exception cause){
+        ConfigurationError error = new ConfigurationError("The MBean of the bus " + busId + " could not be registered. The id of each bus must be unique.");
+        error.initCause(cause);
+        return error;
+    }
+
     @Override
     public String toString() {
         return message;
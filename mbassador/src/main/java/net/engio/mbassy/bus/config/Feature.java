@@ -2,6 +2,8 @@ package net.engio.mbassy.bus.config;
 
 import net.engio.mbassy.bus.IMessagePublication;
 import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.bus.metrics.IMessageMetrics;
+import net.engio.mbassy.bus.metrics.MessageMetrics;
 import net.engio.mbassy.listener.MetadataReader;
 import net.engio.mbassy.subscription.ISubscriptionManagerProvider;
 import net.engio.mbassy.subscription.SubscriptionFactory;
@@ -76,6 +78,28 @@ public interface Feature {
         }
     }
 
+    /**
+     * Records invocation counts, error counts and latencies of all message handlers and publications, see {@link IMessageMetrics}.
+     * Without this feature, handler invocations and publications are not measured at all.
+     */
+    class Metrics implements Feature{
+
+        public static final Metrics Default(){
+            return new Metrics().setMetrics(new MessageMetrics());
+        }
+
+        private IMessageMetrics metrics;
+
+        public IMessageMetrics getMetrics() {
+            return metrics;
+        }
+
+        public Metrics setMetrics(IMessageMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+    }
+
     class AsynchronousHandlerInvocation implements Feature{
 
         protected static final ThreadFactory MessageHandlerThreadFactory = new ThreadFactory() {
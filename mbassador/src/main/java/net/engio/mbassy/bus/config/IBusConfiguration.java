@@ -85,6 +85,24 @@ public interface IBusConfiguration{
         public static final String BusId = "bus.id";
         public static final String PublicationErrorHandlers = "bus.handlers.error";
         public static final String AsynchronousHandlerExecutor = "bus.handlers.async-executor";
+        /**
+         * Set to true to let handlers with several filters evaluate cheap and selective filters first,
+         * see {@link net.engio.mbassy.dispatch.AdaptiveFilteredMessageDispatcher} (default: false)
+         */
+        public static final String AdaptiveFilterOrdering = "bus.filters.adaptive-ordering";
+        /**
+         * The {@link net.engio.mbassy.bus.metrics.IMessageMetrics} of the bus, set from {@link Feature.Metrics}
+         * (not available if the feature is not configured)
+         */
+        public static final String Metrics = "bus.metrics";
+        /**
+         * Set to true to monitor a bus with asynchronous message dispatch (queue depth, dispatcher threads,
+         * subscriptions, dispatch cache) with an MBean named after the {@link #BusId}, see
+         * {@link net.engio.mbassy.bus.MessageBusMXBean} (default: false). The MBean is registered by
+         * {@link net.engio.mbassy.bus.AbstractSyncAsyncMessageBus#registerMBean()} once the bus has been created and
+         * unregistered when the bus is shut down.
+         */
+        public static final String Jmx = "bus.jmx";
 
     }
 }
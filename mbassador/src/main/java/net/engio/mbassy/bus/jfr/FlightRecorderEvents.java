@@ -0,0 +1,67 @@
+package net.engio.mbassy.bus.jfr;
+
+import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.listener.MessageHandler;
+
+/**
+ * Emits JDK Flight Recorder events for publications, dispatches to subscriptions, handler invocations, the time
+ * asynchronous publications and handler invocations spend in their queue and publication errors.
+ * <p/>
+ * This is the implementation for Java 8 that does not record anything. The jar contains a second implementation in
+ * META-INF/versions/11 that is used on Java 11 and later (multi-release jar). It creates events only while a recording
+ * has them enabled, otherwise each call is a single check.
+ * <p/>
+ * The methods come in pairs: begin returns an event that must be passed to the corresponding end (null if the event
+ * is not recorded), which commits it with the given details.
+ */
+public final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * True if this runtime records the events, false for the Java 8 implementation
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    public static Object beginPublication() {
+        return null;
+    }
+
+    public static void endPublication(Object event, Object message, int subscriptions) {
+    }
+
+    public static Object beginDispatch() {
+        return null;
+    }
+
+    public static void endDispatch(Object event, Object message, MessageHandler handler) {
+    }
+
+    public static Object beginInvocation() {
+        return null;
+    }
+
+    public static void endInvocation(Object event, Object message, MessageHandler handler) {
+    }
+
+    /**
+     * Begin the wait of an asynchronous publication or handler invocation in its queue
+     */
+    public static Object beginQueueWait() {
+        return null;
+    }
+
+    /**
+     * End the wait in the queue when the publication or invocation starts to execute
+     *
+     * @param handler The handler of an asynchronous invocation or null for an asynchronous publication
+     */
+    public static void endQueueWait(Object event, Object message, MessageHandler handler) {
+    }
+
+    public static void error(PublicationError error) {
+    }
+}
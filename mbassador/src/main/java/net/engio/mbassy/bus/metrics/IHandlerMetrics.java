@@ -0,0 +1,21 @@
+package net.engio.mbassy.bus.metrics;
+
+import net.engio.mbassy.bus.error.PublicationError;
+
+/**
+ * Records the invocations of a single message handler, see {@link IMessageMetrics#forHandler}
+ */
+public interface IHandlerMetrics {
+
+    /**
+     * Record an invocation of the handler (successful or not)
+     *
+     * @param nanos The duration of the invocation in nanoseconds
+     */
+    void invoked(long nanos);
+
+    /**
+     * Record an error of the handler. The error is recorded before it is passed to the error handlers of the bus.
+     */
+    void failed(PublicationError error);
+}
@@ -0,0 +1,29 @@
+package net.engio.mbassy.bus.metrics;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.listener.MessageHandler;
+
+/**
+ * Message metrics are notified about every handler invocation and message publication of a bus that has
+ * the {@link net.engio.mbassy.bus.config.Feature.Metrics} feature. Without the feature, invocations and publications
+ * are not measured at all.
+ * <p/>
+ * Implementations must be thread-safe, they are called concurrently by all publishing threads.
+ * See {@link MessageMetrics} for the default implementation.
+ */
+public interface IMessageMetrics {
+
+    /**
+     * Get the metrics of the given handler. This is called when a subscription for the handler is created, i.e. once
+     * for every listener class that defines or inherits the handler, and never while messages are published.
+     */
+    IHandlerMetrics forHandler(MessageHandler handler);
+
+    /**
+     * Record the execution of a publication, i.e. the time it took to dispatch the message to all subscriptions.
+     * Asynchronous handlers are only scheduled during the execution of a publication.
+     *
+     * @param nanos The duration of the execution in nanoseconds
+     */
+    void published(MessagePublication publication, long nanos);
+}
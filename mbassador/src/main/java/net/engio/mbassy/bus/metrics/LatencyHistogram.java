@@ -0,0 +1,123 @@
+package net.engio.mbassy.bus.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations in nanoseconds. Each power of two is divided into four buckets, such that
+ * a reported percentile is at most 25% above the actual value. Durations below 4 ns are recorded exactly,
+ * durations above 2^40 ns (about 18 minutes) are recorded in the last bucket.
+ * <p/>
+ * Buckets are {@link LongAdder}s that are created when the first duration falls into them, such that concurrent
+ * recording does not contend on a single counter and a histogram only allocates the buckets it actually uses.
+ */
+public final class LatencyHistogram {
+
+    // number of bits below the highest one bit that select the bucket within a power of two
+    private static final int SubBucketBits = 2;
+
+    private static final int SubBuckets = 1 << SubBucketBits;
+
+    private static final int MaxExponent = 40;
+
+    private static final int BucketCount = (MaxExponent - SubBucketBits + 2) * SubBuckets;
+
+    private final AtomicReferenceArray<LongAdder> buckets = new AtomicReferenceArray<LongAdder>(BucketCount);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // the clock is not guaranteed to be monotonic on all platforms
+        }
+        int index = bucketOf(nanos);
+        LongAdder bucket = buckets.get(index);
+        if (bucket == null) {
+            buckets.compareAndSet(index, null, new LongAdder());
+            bucket = buckets.get(index);
+        }
+        bucket.increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos < SubBuckets) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MaxExponent) {
+            return BucketCount - 1;
+        }
+        int subBucket = (int) (nanos >>> (exponent - SubBucketBits)) & (SubBuckets - 1);
+        return (exponent - SubBucketBits + 1) * SubBuckets + subBucket;
+    }
+
+    // the largest duration that is recorded in the given bucket
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SubBuckets) {
+            return bucket;
+        }
+        if (bucket == BucketCount - 1) {
+            return Long.MAX_VALUE; // also holds all durations above 2^40 ns
+        }
+        int shift = bucket / SubBuckets - 1;
+        long lowerBound = (long) (SubBuckets + bucket % SubBuckets) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long recorded = getCount();
+        return recorded == 0 ? 0 : (double) getTotalNanos() / recorded;
+    }
+
+    /**
+     * Get the duration that the given percentage of all recorded durations did not exceed (within the accuracy of
+     * the histogram), e.g. 99 for the 99th percentile. Returns 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100: " + percentile);
+        }
+        long[] counts = new long[BucketCount];
+        long total = 0;
+        for (int i = 0; i < BucketCount; i++) {
+            LongAdder bucket = buckets.get(i);
+            counts[i] = bucket == null ? 0 : bucket.sum();
+            total += counts[i];
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long max = getMaxNanos();
+        for (int i = 0; i < BucketCount; i++) {
+            rank -= counts[i];
+            if (rank <= 0) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return total == 0 ? 0 : max;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + Math.round(getMeanNanos()) + "ns, p50=" + getPercentile(50)
+                + "ns, p99=" + getPercentile(99) + "ns, max=" + getMaxNanos() + "ns";
+    }
+}
@@ -0,0 +1,128 @@
+package net.engio.mbassy.bus.metrics;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.listener.MessageHandler;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The default message metrics keep invocation counts, error counts and a {@link LatencyHistogram} per message handler
+ * and per published message type in memory. The statistics can be read at any time while messages are published.
+ * The statistics of a handler are kept per handler method, so a handler that is inherited by several listener classes
+ * has a single statistics for all of them. Handler methods and message types are weakly referenced, the statistics
+ * of classes that have been unloaded are dropped.
+ */
+public class MessageMetrics implements IMessageMetrics {
+
+    // guarded by itself, handlers are only looked up when their subscription is created
+    private final Map<Method, Statistics> handlers = new WeakHashMap<Method, Statistics>();
+
+    // guarded by itself, contains all message types of the lookup
+    private final Map<Class<?>, Statistics> publications = new WeakHashMap<Class<?>, Statistics>();
+
+    // the statistics are attached to the message type, a published message type is only looked up
+    private final ClassValue<Statistics> publicationLookup = new ClassValue<Statistics>() {
+        @Override
+        protected Statistics computeValue(Class<?> messageType) {
+            Statistics statistics = new Statistics();
+            synchronized (publications) {
+                publications.put(messageType, statistics);
+            }
+            return statistics;
+        }
+    };
+
+    @Override
+    public IHandlerMetrics forHandler(MessageHandler handler) {
+        synchronized (handlers) {
+            return handlers.computeIfAbsent(handler.getMethod(), method -> new Statistics());
+        }
+    }
+
+    @Override
+    public void published(MessagePublication publication, long nanos) {
+        Statistics statistics = publicationLookup.get(publication.getMessage().getClass());
+        statistics.invoked(nanos);
+        if (publication.hasError()) {
+            statistics.failed(publication.getError());
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of all handler methods that have been subscribed so far
+     */
+    public Map<Method, Statistics> getHandlerStatistics() {
+        synchronized (handlers) {
+            return new HashMap<Method, Statistics>(handlers);
+        }
+    }
+
+    /**
+     * The statistics of the given handler method or null if it has never been subscribed
+     */
+    public Statistics getHandlerStatistics(Method handler) {
+        synchronized (handlers) {
+            return handlers.get(handler);
+        }
+    }
+
+    /**
+     * A snapshot of the statistics of the publications of all message types that have been published so far
+     */
+    public Map<Class<?>, Statistics> getPublicationStatistics() {
+        synchronized (publications) {
+            return new HashMap<Class<?>, Statistics>(publications);
+        }
+    }
+
+    /**
+     * The statistics of the publications of the given message type or null if it has never been published
+     */
+    public Statistics getPublicationStatistics(Class<?> messageType) {
+        synchronized (publications) {
+            return publications.get(messageType);
+        }
+    }
+
+    /**
+     * The number of invocations (or publications), errors and the distribution of their durations
+     */
+    public static final class Statistics implements IHandlerMetrics {
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private final LongAdder errors = new LongAdder();
+
+        @Override
+        public void invoked(long nanos) {
+            latencies.record(nanos);
+        }
+
+        @Override
+        public void failed(PublicationError error) {
+            errors.increment();
+        }
+
+        public long getCount() {
+            return latencies.getCount();
+        }
+
+        public long getErrorCount() {
+            return errors.sum();
+        }
+
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            return latencies + ", errors=" + getErrorCount();
+        }
+    }
+}
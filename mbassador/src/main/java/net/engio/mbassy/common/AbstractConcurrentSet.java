@@ -25,6 +25,7 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
 
     // Internal state
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    protected final LockStatistics lockStatistics = new LockStatistics();
     private final Map<T, ISetEntry<T>> entries; // maintain a map of entries for O(1) lookup
     protected Entry<T> head; // reference to the first element
 
@@ -40,7 +41,7 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
         Lock writeLock = lock.writeLock();
         boolean changed;
         try {
-            writeLock.lock();
+            lockStatistics.lockWrite(lock);
             changed = insert(element);
         } finally {
             writeLock.unlock();
@@ -53,7 +54,7 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
         Lock readLock = lock.readLock();
         ISetEntry<T> entry;
         try {
-            readLock.lock();
+            lockStatistics.lockRead(lock);
             entry = entries.get(element);
         } finally {
             readLock.unlock();
@@ -90,7 +91,7 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
         boolean changed = false;
         Lock writeLock = lock.writeLock();
         try {
-            writeLock.lock();
+            lockStatistics.lockWrite(lock);
             for (T element : elements) {
                 if (element != null) {
                     changed |= insert(element);
@@ -109,7 +110,7 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
         } else {
             Lock writeLock = lock.writeLock();
             try {
-                writeLock.lock();
+                lockStatistics.lockWrite(lock);
                 ISetEntry<T> listelement = entries.get(element);
                 if (listelement == null) {
                     return false; //removed by other thread in the meantime
@@ -128,6 +129,13 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
         }
     }
 
+    /**
+     * The contention of the lock that guards modifications of this set
+     */
+    public LockStatistics getLockStatistics() {
+        return lockStatistics;
+    }
+
     @Override
     public Object[] toArray() {
         return this.entries.entrySet().toArray();
@@ -158,7 +166,7 @@ public abstract class AbstractConcurrentSet<T> implements Set<T> {
     public void clear() {
         Lock writeLock = this.lock.writeLock();
         try {
-            writeLock.lock();
+            lockStatistics.lockWrite(lock);
                 head = null;
                 entries.clear();
         } finally {
@@ -0,0 +1,496 @@
+package net.engio.mbassy.common;
+
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * This data structure is optimized for sets that are read (iterated) very frequently and modified rarely,
+ * like the listeners of a subscription.
+ * <p/>
+ * All elements are kept in a flat array of slots which is published together with its fill level as a {@link Snapshot}.
+ * Readers never block and never allocate: {@link #snapshot()} returns the current snapshot which can be walked with a plain
+ * index loop, each slot is converted to its element using {@link #valueOf(Object)}. Writes are serialized:
+ * <ul>
+ *     <li>New elements are appended to the free capacity of the slot array, then a new snapshot is published. Running readers
+ *     are not affected because they never look beyond the fill level of their snapshot. The array is only copied when
+ *     its capacity is exhausted.</li>
+ *     <li>Removed elements are replaced by null in place, such that a removed element that has not yet been reached by
+ *     a running reader will not appear in that reader anymore. The remaining slots are copied into a new array once
+ *     at least half of the slots are empty.</li>
+ * </ul>
+ * Larger sets additionally maintain a hash index of their slots, which is published with the snapshot. It is used for the
+ * uniqueness checks of writers and lets {@link #contains(Object)} run without locking. This makes all writes amortized
+ * constant time while each element costs not much more than its slot.
+ */
+public abstract class AbstractCopyOnWriteSet<T> implements Set<T> {
+
+    // sets up to this size are searched linearly, larger sets maintain a hash index
+    private static final int INDEX_THRESHOLD = 16;
+
+    private static final int MIN_CAPACITY = 2;
+
+    private static final int DELETED = -1;
+
+    // the published slots, replaced on every write
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // number of slots in the current snapshot that are neither empty nor known to be stale
+    private volatile int count = 0;
+
+    // The following fields are only accessed by writers (synchronized)
+
+    // number of empty or stale slots in the current snapshot
+    private int garbage = 0;
+
+    // open addressing hash table of slot positions (0 = free, DELETED or position + 1), published with the snapshots.
+    // Entries are added and deleted in place, readers ignore positions beyond the size of their snapshot
+    private int[] index;
+
+    // number of index entries that are not free
+    private int indexOccupied = 0;
+
+    /**
+     * Wrap the given element into the slot object that is stored in the slot array
+     */
+    protected abstract Object createSlot(T element);
+
+    /**
+     * Get the element stored in the given slot of a snapshot.
+     *
+     * @return The element or null if the slot is empty or its element is not available anymore (i.e. has been garbage collected)
+     */
+    public abstract T valueOf(Object slot);
+
+    /**
+     * Called for every slot whose element has been explicitly removed from this set
+     */
+    protected void releaseSlot(Object slot) {
+    }
+
+    /**
+     * Called for every slot that is dropped from this set because its element is not available anymore
+     */
+    protected void dropStaleSlot(Object slot) {
+    }
+
+    /**
+     * Get the number of elements that have been garbage collected and were removed from this set
+     */
+    public long getCollectedCount() {
+        return 0;
+    }
+
+    /**
+     * Get the current snapshot of this set. Readers must not modify it.
+     */
+    public final Snapshot snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public synchronized boolean add(T element) {
+        if (element == null) return false;
+        return insert(element);
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends T> elements) {
+        boolean changed = false;
+        for (T element : elements) {
+            if (element != null) {
+                changed |= insert(element);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Appends a new element at the end of the set.
+     * Note: This method is expected to be synchronized by the calling code
+     */
+    private boolean insert(T element) {
+        if (find(element) >= 0) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        if (current.size == current.slots.length) {
+            // no capacity left: copy the remaining slots into a new array that can hold 50% more elements
+            current = compact(current, Math.max(MIN_CAPACITY, count + (count >> 1) + 1));
+        }
+        int position = current.size;
+        current.slots[position] = createSlot(element);
+        count++;
+        // the index is updated before the snapshot is published, such that readers of the snapshot find the new element
+        if (index != null) {
+            indexInsert(current.slots, position + 1, element.hashCode(), position);
+        } else if (count > INDEX_THRESHOLD) {
+            rebuildIndex(current.slots, position + 1);
+        }
+        snapshot = new Snapshot(current.slots, position + 1, index);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(Object element) {
+        if (element == null) return false;
+        int position = find(element);
+        if (position < 0) {
+            return false;
+        }
+        Snapshot current = snapshot;
+        Object slot = current.slots[position];
+        current.slots[position] = null;
+        if (index != null) {
+            indexDelete(element.hashCode(), position);
+        }
+        count--;
+        garbage++;
+        releaseSlot(slot);
+        if (garbage * 2 >= current.size) {
+            compact(current, Math.max(MIN_CAPACITY, count));
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Snapshot current = snapshot;
+        snapshot = Snapshot.EMPTY;
+        count = 0;
+        garbage = 0;
+        index = null;
+        for (int i = 0; i < current.size; i++) {
+            if (current.slots[i] != null) {
+                releaseSlot(current.slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Remove all slots whose element is not available anymore. This is never required for correctness
+     * since readers skip such slots anyway.
+     *
+     * @return The number of removed slots
+     */
+    public synchronized int expungeStaleSlots() {
+        Snapshot current = snapshot;
+        int live = 0, stale = 0;
+        for (int i = 0; i < current.size; i++) {
+            Object slot = current.slots[i];
+            if (slot != null) {
+                if (valueOf(slot) != null) {
+                    live++;
+                } else {
+                    stale++;
+                }
+            }
+        }
+        if (stale > 0) {
+            compact(current, Math.max(MIN_CAPACITY, live));
+        }
+        return stale;
+    }
+
+    /**
+     * Account for slots whose element is known to be not available anymore. The slots are dropped
+     * as soon as at least half of all slots are either empty or stale.
+     * Note: This method is expected to be synchronized by the calling code
+     */
+    protected final void staleSlotsDetected(int stale) {
+        count -= stale;
+        garbage += stale;
+        Snapshot current = snapshot;
+        if (garbage * 2 >= current.size) {
+            compact(current, Math.max(MIN_CAPACITY, count));
+        }
+    }
+
+    /**
+     * Copy all slots with available elements into a new array of the given capacity and publish the result.
+     * Note: This method is expected to be synchronized by the calling code
+     */
+    private Snapshot compact(Snapshot current, int capacity) {
+        Object[] slots = new Object[capacity];
+        int size = 0;
+        for (int i = 0; i < current.size; i++) {
+            Object slot = current.slots[i];
+            if (slot != null) {
+                if (valueOf(slot) != null) {
+                    slots[size++] = slot;
+                } else {
+                    dropStaleSlot(slot);
+                }
+            }
+        }
+        count = size;
+        garbage = 0;
+        if (size > INDEX_THRESHOLD) {
+            rebuildIndex(slots, size);
+        } else {
+            index = null;
+        }
+        Snapshot compacted = new Snapshot(slots, size, index);
+        snapshot = compacted;
+        return compacted;
+    }
+
+    /**
+     * Find the position of the slot holding the given element.
+     * Note: This method is expected to be synchronized by the calling code
+     */
+    private int find(Object element) {
+        return find(snapshot, element);
+    }
+
+    // find the slot holding the given element using the index of the snapshot, no locking required
+    private int find(Snapshot current, Object element) {
+        int[] table = current.index;
+        if (table == null) {
+            return indexOf(current, element);
+        }
+        int mask = table.length - 1;
+        for (int i = spread(element.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == 0) {
+                return -1;
+            }
+            // entries of elements added after the snapshot point beyond its size
+            if (entry != DELETED && entry <= current.size && matches(current.slots[entry - 1], element)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void indexInsert(Object[] slots, int size, int hash, int position) {
+        if ((indexOccupied + 1) * 4 > index.length * 3) {
+            rebuildIndex(slots, size); // the new slot is already part of the slots
+            return;
+        }
+        int mask = index.length - 1;
+        int i = spread(hash) & mask;
+        while (index[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (index[i] == 0) {
+            indexOccupied++;
+        }
+        index[i] = position + 1;
+    }
+
+    private void indexDelete(int hash, int position) {
+        int mask = index.length - 1;
+        for (int i = spread(hash) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (index[i] == position + 1) {
+                index[i] = DELETED;
+                return;
+            }
+        }
+    }
+
+    private void rebuildIndex(Object[] slots, int size) {
+        // keep the load factor below 0.5
+        int[] table = new int[Integer.highestOneBit(Math.max(count, INDEX_THRESHOLD)) << 2];
+        int mask = table.length - 1;
+        int occupied = 0;
+        for (int position = 0; position < size; position++) {
+            T value = valueOf(slots[position]);
+            if (value != null) {
+                int i = spread(value.hashCode()) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = position + 1;
+                occupied++;
+            }
+        }
+        index = table;
+        indexOccupied = occupied;
+    }
+
+    // linear probing needs well distributed hashes, consecutive hash codes would form long probe sequences
+    private static int spread(int hash) {
+        hash = (hash ^ (hash >>> 16)) * 0x85ebca6b;
+        hash = (hash ^ (hash >>> 13)) * 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean matches(Object slot, Object element) {
+        T value = valueOf(slot);
+        return value == element || (value != null && value.equals(element));
+    }
+
+    // find the slot holding the given element, no locking required
+    private int indexOf(Snapshot snapshot, Object element) {
+        Object[] slots = snapshot.slots;
+        for (int i = 0; i < snapshot.size; i++) {
+            if (matches(slots[i], element)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        if (element == null) {
+            return false;
+        }
+        // larger sets are searched using the index that has been published with the snapshot
+        return find(snapshot, element) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            // iterators work on the snapshot that was current at the time of their creation
+            private final Snapshot current = snapshot;
+
+            private int position = 0;
+
+            private T next = advance();
+
+            private T last;
+
+            private T advance() {
+                while (position < current.size) {
+                    T value = valueOf(current.slots[position++]);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            }
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public T next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance();
+                return last;
+            }
+
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                AbstractCopyOnWriteSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        Snapshot current = snapshot;
+        Object[] values = new Object[current.size];
+        int size = 0;
+        for (int i = 0; i < current.size; i++) {
+            T value = valueOf(current.slots[i]);
+            if (value != null) {
+                values[size++] = value;
+            }
+        }
+        if (size == values.length) {
+            return values;
+        }
+        Object[] trimmed = new Object[size];
+        System.arraycopy(values, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    @SuppressWarnings({"unchecked", "hiding"})
+    @Override
+    public <T> T[] toArray(T[] a) {
+        Object[] values = toArray();
+        T[] result = a.length >= values.length
+                ? a
+                : (T[]) Array.newInstance(a.getClass().getComponentType(), values.length);
+        System.arraycopy(values, 0, result, 0, values.length);
+        if (result.length > values.length) {
+            result[values.length] = null;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> elements) {
+        // all elements are searched in the same snapshot, no locking required
+        Snapshot current = snapshot;
+        for (Object element : elements) {
+            if (element == null || find(current, element) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeAll(Collection<?> elements) {
+        boolean changed = false;
+        for (Object element : elements) {
+            changed |= remove(element);
+        }
+        return changed;
+    }
+
+    @Override
+    public synchronized boolean retainAll(Collection<?> elements) {
+        List<T> removed = new ArrayList<T>();
+        Snapshot current = snapshot;
+        for (int i = 0; i < current.size; i++) {
+            T value = valueOf(current.slots[i]);
+            if (value != null && !elements.contains(value)) {
+                removed.add(value);
+            }
+        }
+        for (T value : removed) {
+            remove(value);
+        }
+        return !removed.isEmpty();
+    }
+
+    /**
+     * The slots of a set at a specific point in time. Only the first {@code size} slots belong to the snapshot.
+     * A slot is null if its element has been removed after the snapshot was taken.
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new Object[0], 0, null);
+
+        public final Object[] slots;
+
+        public final int size;
+
+        // the index of larger sets, null if the slots are searched linearly
+        final int[] index;
+
+        Snapshot(Object[] slots, int size, int[] index) {
+            this.slots = slots;
+            this.size = size;
+            this.index = index;
+        }
+    }
+
+}
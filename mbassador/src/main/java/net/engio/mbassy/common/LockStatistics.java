@@ -0,0 +1,61 @@
+package net.engio.mbassy.common;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acquires the read or write lock of a {@link ReentrantReadWriteLock} and measures the time spent waiting for it.
+ * Uncontended acquisitions are not timed, such that the statistics do not add noticeable cost to the locking code.
+ * The statistics are approximate: a read acquisition counts as contended if the lock was held for writing or had
+ * queued threads when it was requested.
+ */
+public final class LockStatistics {
+
+    private final LongAdder waits = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    public void lockRead(ReentrantReadWriteLock lock) {
+        // a failed tryLock would let readers barge ahead of queued writers, so contention is detected upfront
+        // the holder of the write lock never waits for the read lock
+        if (!lock.isWriteLockedByCurrentThread() && (lock.isWriteLocked() || lock.hasQueuedThreads())) {
+            long start = System.nanoTime();
+            lock.readLock().lock();
+            record(start);
+        } else {
+            lock.readLock().lock();
+        }
+    }
+
+    public void lockWrite(ReentrantReadWriteLock lock) {
+        if (!lock.writeLock().tryLock()) {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            record(start);
+        }
+    }
+
+    private void record(long start) {
+        waitNanos.add(System.nanoTime() - start);
+        waits.increment();
+    }
+
+    /**
+     * The number of lock acquisitions that had to wait for another thread
+     */
+    public long getWaitCount() {
+        return waits.sum();
+    }
+
+    /**
+     * The total time spent waiting for the lock in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "waits=" + getWaitCount() + ", wait nanos=" + getWaitNanos();
+    }
+}
@@ -0,0 +1,137 @@
+package net.engio.mbassy.common;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The reference cleaner removes garbage collected elements from their {@link WeakCopyOnWriteSet} in a background thread.
+ * All weak slots are registered with a single reference queue. Whenever the garbage collector clears a slot,
+ * the cleaner thread wakes up and reports the stale slots to the owning set, such that publishers never pay
+ * for the cleanup and sets that are never read do not retain stale slots.
+ * <p/>
+ * The cleaner thread is a daemon thread that is started when the first weak slot is created. It does not retain the
+ * context class loader or the access control context of the thread that happens to create it, and it can be stopped
+ * with {@link #shutdown()}, e.g. when an application that contains the library is undeployed. Errors are reported to
+ * the uncaught exception handler of the cleaner thread (see {@link Thread#setDefaultUncaughtExceptionHandler}).
+ */
+public final class ReferenceCleaner {
+
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+    // total number of garbage collected elements that have been expunged
+    private static final AtomicLong collected = new AtomicLong();
+
+    // the running cleaner thread, null before the first weak slot is created and after shutdown()
+    private static volatile Thread cleaner;
+
+    private ReferenceCleaner() {
+    }
+
+    static ReferenceQueue<Object> getQueue() {
+        if (cleaner == null) {
+            start();
+        }
+        return queue;
+    }
+
+    private static synchronized void start() {
+        if (cleaner != null) {
+            return;
+        }
+        // created as privileged action to not inherit the access control context (and thus the class loaders) of the caller
+        Thread thread = AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+            @Override
+            public Thread run() {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        clean();
+                    }
+                }, "ReferenceCleaner");
+            }
+        });
+        thread.setContextClassLoader(null);
+        thread.setDaemon(true); // do not prevent the JVM from exiting
+        cleaner = thread;
+        thread.start();
+    }
+
+    private static void clean() {
+        Thread current = Thread.currentThread();
+        while (cleaner == current) {
+            try {
+                expunge(queue.remove());
+            } catch (InterruptedException e) {
+                return; // shutdown
+            } catch (Throwable t) {
+                // the cleaner must never die, a stale slot will be dropped with the next compaction anyway
+                current.getUncaughtExceptionHandler().uncaughtException(current, t);
+            }
+        }
+    }
+
+    /**
+     * Stop the cleaner thread and wait for it to terminate. Stale slots of weak sets are then only dropped when their set
+     * is compacted. The cleaner thread is started again when the next weak slot is created.
+     */
+    public static synchronized void shutdown() {
+        Thread thread = cleaner;
+        if (thread == null) {
+            return;
+        }
+        cleaner = null;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Whether the cleaner thread is running
+     */
+    public static boolean isRunning() {
+        return cleaner != null;
+    }
+
+    // drain all references that are currently enqueued and report them to each owning set at once
+    private static void expunge(Reference<?> reference) {
+        Map<WeakCopyOnWriteSet<?>, List<WeakCopyOnWriteSet.WeakSlot<?>>> slotsByOwner =
+                new IdentityHashMap<WeakCopyOnWriteSet<?>, List<WeakCopyOnWriteSet.WeakSlot<?>>>();
+        do {
+            WeakCopyOnWriteSet.WeakSlot<?> slot = (WeakCopyOnWriteSet.WeakSlot<?>) reference;
+            WeakCopyOnWriteSet<?> owner = slot.owner;
+            if (owner != null) {
+                List<WeakCopyOnWriteSet.WeakSlot<?>> slots = slotsByOwner.get(owner);
+                if (slots == null) {
+                    slots = new ArrayList<WeakCopyOnWriteSet.WeakSlot<?>>();
+                    slotsByOwner.put(owner, slots);
+                }
+                slots.add(slot);
+            }
+        } while ((reference = queue.poll()) != null);
+        for (Map.Entry<WeakCopyOnWriteSet<?>, List<WeakCopyOnWriteSet.WeakSlot<?>>> entry : slotsByOwner.entrySet()) {
+            entry.getKey().slotsCollected(entry.getValue());
+        }
+    }
+
+    static void collected() {
+        collected.incrementAndGet();
+    }
+
+    /**
+     * Get the total number of garbage collected elements that have been expunged from any set since the start of the JVM.
+     */
+    public static long getCollectedCount() {
+        return collected.get();
+    }
+
+}
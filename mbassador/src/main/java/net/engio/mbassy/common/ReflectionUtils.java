@@ -112,6 +112,19 @@ public class ReflectionUtils
 
 
 
+    // marks the absence of a meta annotation in the cache
+    private static final Object NoAnnotation = new Object();
+
+    // resolved meta annotations by requested annotation type, attached to the annotation type that is inspected.
+    // Only requested types that are visible to the class loader of the inspected type are cached, such that
+    // the cache never holds a class of a class loader that could otherwise be unloaded earlier
+    private static final ClassValue<Map<Class<?>, Object>> metaAnnotationCache = new ClassValue<Map<Class<?>, Object>>() {
+        @Override
+        protected Map<Class<?>, Object> computeValue(Class<?> annotationType) {
+            return new ConcurrentHashMap<Class<?>, Object>(4);
+        }
+    };
+
     /**
     * Searches for an Annotation of the given type on the class.  Supports meta annotations.
     *
@@ -134,8 +147,48 @@ public class ReflectionUtils
         return null;
     }
 
+    /**
+     * Searches for an Annotation of the given type on the given element, either directly or as a (possibly indirect)
+     * meta annotation of any of its annotations. Meta annotations are resolved only once per annotation type.
+     */
     public static <A extends Annotation> A getAnnotation( AnnotatedElement from, Class<A> annotationType){
-       return getAnnotation(from, annotationType, new HashSet<AnnotatedElement>());
+        A ann = from.getAnnotation( annotationType );
+        if( ann != null) return ann;
+        for ( Annotation metaAnn : from.getAnnotations() ) {
+            ann = getMetaAnnotation(metaAnn.annotationType(), annotationType);
+            if ( ann != null ) {
+                return ann;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <A extends Annotation> A getMetaAnnotation( Class<? extends Annotation> from, Class<A> annotationType){
+        if (!isVisible(annotationType, from.getClassLoader())) {
+            return getAnnotation(from, annotationType, new HashSet<AnnotatedElement>());
+        }
+        Map<Class<?>, Object> resolved = metaAnnotationCache.get(from);
+        Object ann = resolved.get(annotationType);
+        if (ann == null) {
+            ann = getAnnotation(from, annotationType, new HashSet<AnnotatedElement>());
+            resolved.put(annotationType, ann == null ? NoAnnotation : ann);
+        }
+        return ann == NoAnnotation ? null : (A) ann;
+    }
+
+    // whether the given type is defined by the given class loader or one of its parents
+    private static boolean isVisible(Class<?> type, ClassLoader loader) {
+        ClassLoader typeLoader = type.getClassLoader();
+        if (typeLoader == null) {
+            return true;
+        }
+        for (ClassLoader current = loader; current != null; current = current.getParent()) {
+            if (current == typeLoader) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static boolean isOverriddenBy( Method superclassMethod, Method subclassMethod ) {
@@ -0,0 +1,18 @@
+package net.engio.mbassy.common;
+
+/**
+ * This implementation uses strong references to the elements. The slots of a snapshot are the elements themselves.
+ */
+public class StrongCopyOnWriteSet<T> extends AbstractCopyOnWriteSet<T> {
+
+    @Override
+    protected Object createSlot(T element) {
+        return element;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final T valueOf(Object slot) {
+        return (T) slot;
+    }
+}
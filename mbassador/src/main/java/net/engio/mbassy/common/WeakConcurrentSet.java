@@ -36,7 +36,7 @@ public class WeakConcurrentSet<T> extends AbstractConcurrentSet<T>{
             private void removeOrphans(){
                 Lock writelock = lock.writeLock();
                 try{
-                    writelock.lock();
+                    lockStatistics.lockWrite(lock);
                     do {
                         ISetEntry orphaned = current;
                         current = current.next();
@@ -0,0 +1,84 @@
+package net.engio.mbassy.common;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * This implementation uses weak references to the elements. The slots of a snapshot are {@link WeakReference}s
+ * which are resolved by readers. Readers skip slots of garbage collected elements but never modify the set.
+ * Stale slots are dropped in the background by the {@link ReferenceCleaner} as soon as the garbage collector
+ * has cleared them.
+ * <p/>
+ * Each element costs exactly one weak reference (which also links back to its set for the cleaner) and its position
+ * in the slot array.
+ */
+public class WeakCopyOnWriteSet<T> extends AbstractCopyOnWriteSet<T> {
+
+    // number of garbage collected elements, guarded by this
+    private volatile long collected;
+
+    @Override
+    protected Object createSlot(T element) {
+        return new WeakSlot<T>(element, this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final T valueOf(Object slot) {
+        return slot == null ? null : ((WeakSlot<T>) slot).get();
+    }
+
+    // explicitly removed elements must not be reported as garbage collected
+    // the slot can not be cleared because running readers might still resolve it
+    @Override
+    protected void releaseSlot(Object slot) {
+        ((WeakSlot) slot).owner = null;
+    }
+
+    @Override
+    protected void dropStaleSlot(Object slot) {
+        markCollected((WeakSlot) slot);
+    }
+
+    /**
+     * Account for the given slots which have been cleared by the garbage collector.
+     * Slots that have already been removed from this set are ignored.
+     */
+    synchronized void slotsCollected(Iterable<WeakSlot<?>> slots) {
+        int stale = 0;
+        for (WeakSlot<?> slot : slots) {
+            if (markCollected(slot)) {
+                stale++;
+            }
+        }
+        if (stale > 0) {
+            staleSlotsDetected(stale);
+        }
+    }
+
+    // every slot is counted exactly once, either by the cleaner or when it is dropped implicitly
+    private boolean markCollected(WeakSlot<?> slot) {
+        if (slot.owner != this) {
+            return false;
+        }
+        slot.owner = null;
+        collected++;
+        ReferenceCleaner.collected();
+        return true;
+    }
+
+    @Override
+    public long getCollectedCount() {
+        return collected;
+    }
+
+    static final class WeakSlot<T> extends WeakReference<T> {
+
+        // null if the element has been removed explicitly or is already accounted for as collected
+        volatile WeakCopyOnWriteSet<T> owner;
+
+        private WeakSlot(T referent, WeakCopyOnWriteSet<T> owner) {
+            super(referent, ReferenceCleaner.getQueue());
+            this.owner = owner;
+        }
+    }
+}
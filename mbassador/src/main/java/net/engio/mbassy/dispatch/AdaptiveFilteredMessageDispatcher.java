@@ -0,0 +1,221 @@
+package net.engio.mbassy.dispatch;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.listener.MessagePure;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A filtering dispatcher that changes the order in which the filters of its handler are evaluated based on their
+ * observed cost and selectivity, such that cheap filters that reject many messages run first.
+ * A sample of the dispatches measures the evaluation time and rejection rate of each filter. Periodically,
+ * the filters are ranked by cost per rejection and the new order is published without blocking concurrent dispatches.
+ *
+ * Since the order of evaluation changes, filters must not depend on each other, i.e. a filter must not assume
+ * that another filter of the same handler has already accepted the message.
+ * See {@link net.engio.mbassy.bus.config.IBusConfiguration.Properties#AdaptiveFilterOrdering}
+ */
+public final class AdaptiveFilteredMessageDispatcher extends DelegatingMessageDispatcher {
+
+    // one out of this number of dispatches is measured
+    public static final int SampleRate = 8;
+
+    // filters are ranked again after this number of measured dispatches
+    public static final int RankingInterval = 1024;
+
+    // the rank of a filter is only estimated again if it has been evaluated at least this often since the last ranking
+    private static final int MinEvaluations = 32;
+
+    // the filters in the order of evaluation, replaced as a whole when the filters are reordered
+    private volatile FilterStatistics[] order;
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final AtomicBoolean ranking = new AtomicBoolean();
+
+    private final AtomicLong reorderings = new AtomicLong();
+
+    public AdaptiveFilteredMessageDispatcher(IMessageDispatcher dispatcher) {
+        super(dispatcher);
+        IMessageFilter[] filter = dispatcher.getContext().getHandler().getFilter();
+        FilterStatistics[] statistics = new FilterStatistics[filter.length];
+        for (int i = 0; i < filter.length; i++) {
+            statistics[i] = new FilterStatistics(filter[i], i);
+        }
+        this.order = statistics;
+    }
+
+    @Override
+    public void dispatch(MessagePublication publication, Object message, Iterable listeners) {
+        FilterStatistics[] filters = order;
+        boolean accepted = ThreadLocalRandom.current().nextInt(SampleRate) == 0
+                ? passesFiltersMeasured(filters, publication)
+                : passesFilters(filters, publication);
+        if (accepted) {
+            getDelegate().dispatch(publication, message, listeners);
+        }
+    }
+
+    private boolean passesFilters(FilterStatistics[] filters, MessagePublication publication) {
+        for (FilterStatistics filter : filters) {
+            if (!publication.accepts(filter.filter, filter.messagePure, getContext())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean passesFiltersMeasured(FilterStatistics[] filters, MessagePublication publication) {
+        boolean accepted = true;
+        for (FilterStatistics filter : filters) {
+            long start = System.nanoTime();
+            accepted = publication.accepts(filter.filter, filter.messagePure, getContext());
+            filter.record(System.nanoTime() - start, accepted);
+            if (!accepted) {
+                break;
+            }
+        }
+        if (samples.incrementAndGet() % RankingInterval == 0 && ranking.compareAndSet(false, true)) {
+            try {
+                rank();
+            } finally {
+                ranking.set(false);
+            }
+        }
+        return accepted;
+    }
+
+    // estimates the rank of each filter and publishes a new order if it changed
+    private void rank() {
+        FilterStatistics[] current = order;
+        for (FilterStatistics filter : current) {
+            filter.estimateRank();
+        }
+        FilterStatistics[] ranked = current.clone();
+        Arrays.sort(ranked, ByRank);
+        if (!Arrays.equals(current, ranked)) {
+            order = ranked;
+            reorderings.incrementAndGet();
+        }
+    }
+
+    /**
+     * The statistics of all filters in their current order of evaluation
+     */
+    public FilterStatistics[] getFilterStatistics() {
+        return order.clone();
+    }
+
+    /**
+     * The number of times the order of filters has changed
+     */
+    public long getReorderCount() {
+        return reorderings.get();
+    }
+
+    // ascending by rank, filters of equal rank retain their declaration order
+    private static final Comparator<FilterStatistics> ByRank = new Comparator<FilterStatistics>() {
+        @Override
+        public int compare(FilterStatistics o1, FilterStatistics o2) {
+            int byRank = Double.compare(o1.rank, o2.rank);
+            return byRank != 0 ? byRank : Integer.compare(o1.position, o2.position);
+        }
+    };
+
+    /**
+     * The measured evaluations of a single filter
+     */
+    public static final class FilterStatistics {
+
+        private final IMessageFilter filter;
+
+        private final boolean messagePure;
+
+        // position of the filter in the handler configuration
+        private final int position;
+
+        // measurements since the last ranking
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        // measurements of previous rankings
+        private volatile long totalEvaluations;
+        private volatile long totalRejections;
+        private volatile long totalNanos;
+
+        // expected cost of evaluating the filter per rejected message, filters with lower rank are evaluated first
+        private volatile double rank;
+
+        private FilterStatistics(IMessageFilter filter, int position) {
+            this.filter = filter;
+            this.messagePure = filter.getClass().isAnnotationPresent(MessagePure.class);
+            this.position = position;
+            this.rank = Double.MAX_VALUE;
+        }
+
+        private void record(long duration, boolean accepted) {
+            evaluations.increment();
+            nanos.add(duration);
+            if (!accepted) {
+                rejections.increment();
+            }
+        }
+
+        // only called by the thread that ranks the filters
+        private void estimateRank() {
+            long evaluated = evaluations.sum();
+            if (evaluated < MinEvaluations) {
+                return; // not enough data, keep the previous rank
+            }
+            long rejected = rejections.sumThenReset();
+            long duration = nanos.sumThenReset();
+            evaluations.add(-evaluated);
+            totalEvaluations += evaluated;
+            totalRejections += rejected;
+            totalNanos += duration;
+            double costPerEvaluation = (double) duration / evaluated;
+            double rejectionRate = (double) rejected / evaluated;
+            // filters that did not reject any message run last
+            rank = rejected == 0 ? Double.MAX_VALUE : costPerEvaluation / rejectionRate;
+        }
+
+        public IMessageFilter getFilter() {
+            return filter;
+        }
+
+        /**
+         * The number of measured evaluations
+         */
+        public long getEvaluations() {
+            return totalEvaluations + evaluations.sum();
+        }
+
+        /**
+         * The number of measured evaluations that rejected the message
+         */
+        public long getRejections() {
+            return totalRejections + rejections.sum();
+        }
+
+        /**
+         * The average duration of a measured evaluation in nanoseconds
+         */
+        public double getAverageNanos() {
+            long evaluated = getEvaluations();
+            return evaluated == 0 ? 0 : (double) (totalNanos + nanos.sum()) / evaluated;
+        }
+
+        @Override
+        public String toString() {
+            return filter.getClass().getName() + " (evaluations=" + getEvaluations() + ", rejections=" + getRejections()
+                    + ", average nanos=" + getAverageNanos() + ")";
+        }
+    }
+}
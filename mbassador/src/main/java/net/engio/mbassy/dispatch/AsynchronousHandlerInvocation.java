@@ -2,6 +2,7 @@ package net.engio.mbassy.dispatch;
 
 import net.engio.mbassy.bus.MessagePublication;
 import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
 import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
 
 import java.util.concurrent.ExecutorService;
@@ -29,9 +30,11 @@ public class AsynchronousHandlerInvocation extends AbstractSubscriptionContextAw
      */
     @Override
     public void invoke(final Object listener, final Object message, final MessagePublication publication){
+        final Object queueWait = FlightRecorderEvents.beginQueueWait();
         executor.execute(new Runnable() {
             @Override
             public void run() {
+                    FlightRecorderEvents.endQueueWait(queueWait, message, getContext().getHandler());
                     delegate.invoke(listener, message, publication);
             }
         });
@@ -1,8 +1,8 @@
 package net.engio.mbassy.dispatch;
 
-import net.engio.mbassy.bus.IMessagePublication;
 import net.engio.mbassy.bus.MessagePublication;
 import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.listener.MessagePure;
 
 /**
  * A dispatcher that implements message filtering based on the filter configuration
@@ -16,18 +16,25 @@ public final class FilteredMessageDispatcher extends DelegatingMessageDispatcher
 
     private final IMessageFilter[] filter;
 
+    // filters whose result is shared by all subscriptions within a publication
+    private final boolean[] messagePure;
+
     public FilteredMessageDispatcher(IMessageDispatcher dispatcher) {
         super(dispatcher);
         this.filter = dispatcher.getContext().getHandler().getFilter();
+        this.messagePure = new boolean[filter == null ? 0 : filter.length];
+        for (int i = 0; i < messagePure.length; i++) {
+            messagePure[i] = filter[i].getClass().isAnnotationPresent(MessagePure.class);
+        }
     }
 
-    private boolean passesFilter(Object message) {
+    private boolean passesFilter(MessagePublication publication, Object message) {
 
         if (filter == null) {
             return true;
         } else {
-            for (IMessageFilter aFilter : filter) {
-                if (!aFilter.accepts(message, getContext())) {
+            for (int i = 0; i < filter.length; i++) {
+                if (!publication.accepts(filter[i], messagePure[i], getContext())) {
                     return false;
                 }
             }
@@ -38,7 +45,7 @@ public final class FilteredMessageDispatcher extends DelegatingMessageDispatcher
 
     @Override
     public void dispatch(MessagePublication publication, Object message, Iterable listeners){
-        if (passesFilter(message)) {
+        if (passesFilter(publication, message)) {
             getDelegate().dispatch(publication, message, listeners);
         }
     }
@@ -1,7 +1,7 @@
 package net.engio.mbassy.dispatch;
 
-import net.engio.mbassy.bus.IMessagePublication;
 import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
 import net.engio.mbassy.subscription.ISubscriptionContextAware;
 
 /**
@@ -28,7 +28,9 @@ public interface IMessageDispatcher extends ISubscriptionContextAware {
      *
      * @param publication The message publication that initiated the dispatch
      * @param message     The message that should be delivered to the listeners
-     * @param listeners   The listeners that should receive the message
+     * @param listeners   The listeners that should receive the message. The listeners of a subscription are an
+     *                    {@link AbstractCopyOnWriteSet}, implementations may walk its
+     *                    {@link AbstractCopyOnWriteSet#snapshot()} to avoid the creation of an iterator
      */
     void dispatch(MessagePublication publication, Object message, Iterable listeners);
 
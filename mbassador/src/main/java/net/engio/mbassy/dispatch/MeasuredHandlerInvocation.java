@@ -0,0 +1,36 @@
+package net.engio.mbassy.dispatch;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.bus.metrics.IHandlerMetrics;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
+
+/**
+ * Records the duration of every invocation of the wrapped (decorated) invocation with the metrics of the handler.
+ * Errors are recorded by the {@link net.engio.mbassy.subscription.SubscriptionContext} when they are reported.
+ * This invocation is only used if the bus has the {@link net.engio.mbassy.bus.config.Feature.Metrics} feature.
+ */
+public class MeasuredHandlerInvocation extends AbstractSubscriptionContextAware implements IHandlerInvocation {
+
+    private final IHandlerInvocation delegate;
+
+    private final IHandlerMetrics metrics;
+
+    public MeasuredHandlerInvocation(IHandlerInvocation delegate, IHandlerMetrics metrics) {
+        super(delegate.getContext());
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invoke(final Object listener, final Object message, MessagePublication publication) {
+        long start = System.nanoTime();
+        try {
+            delegate.invoke(listener, message, publication);
+        } finally {
+            metrics.invoked(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package net.engio.mbassy.dispatch;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
+import net.engio.mbassy.subscription.SubscriptionContext;
+
+/**
+ * Standard implementation for direct, unfiltered message delivery.
+ * <p/>
+ * For each message delivery, this dispatcher walks the current snapshot of the listeners
+ * and uses the previously provided handler invocation to deliver the message
+ * to each listener. No locks are taken and no iterator is created if the listeners
+ * are an {@link AbstractCopyOnWriteSet}, any other iterable is iterated.
+ *
+ * @author bennidi
+ *         Date: 11/23/12
+ */
+public class MessageDispatcher extends AbstractSubscriptionContextAware implements IMessageDispatcher {
+
+    private final IHandlerInvocation invocation;
+
+    public MessageDispatcher(SubscriptionContext context, IHandlerInvocation invocation) {
+        super(context);
+        this.invocation = invocation;
+    }
+
+    @Override
+    public void dispatch(final MessagePublication publication, final Object message, final Iterable listeners){
+        publication.markDispatched();
+        if (listeners instanceof AbstractCopyOnWriteSet) {
+            dispatch(publication, message, (AbstractCopyOnWriteSet<?>) listeners);
+        } else {
+            for (Object listener : listeners) {
+                invocation.invoke(listener, message, publication);
+            }
+        }
+    }
+
+    // walks the snapshot of the listeners without locks and without creating an iterator
+    private void dispatch(final MessagePublication publication, final Object message, final AbstractCopyOnWriteSet<?> listeners){
+        final AbstractCopyOnWriteSet.Snapshot snapshot = listeners.snapshot();
+        final Object[] slots = snapshot.slots;
+        for (int i = 0, size = snapshot.size; i < size; i++) {
+            Object listener = listeners.valueOf(slots[i]);
+            if (listener != null) { // listeners might have been removed or garbage collected
+                invocation.invoke(listener, message, publication);
+            }
+        }
+    }
+
+    @Override
+    public IHandlerInvocation getInvocation() {
+        return invocation;
+    }
+}
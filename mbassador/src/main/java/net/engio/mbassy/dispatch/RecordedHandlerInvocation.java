@@ -0,0 +1,36 @@
+package net.engio.mbassy.dispatch;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.listener.MessageHandler;
+import net.engio.mbassy.subscription.AbstractSubscriptionContextAware;
+
+/**
+ * Emits a flight recorder event for every invocation of the wrapped (decorated) invocation, see {@link FlightRecorderEvents}.
+ * This invocation is only used if the runtime supports flight recorder events.
+ */
+public class RecordedHandlerInvocation extends AbstractSubscriptionContextAware implements IHandlerInvocation {
+
+    private final IHandlerInvocation delegate;
+
+    private final MessageHandler handler;
+
+    public RecordedHandlerInvocation(IHandlerInvocation delegate) {
+        super(delegate.getContext());
+        this.delegate = delegate;
+        this.handler = delegate.getContext().getHandler();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invoke(final Object listener, final Object message, MessagePublication publication) {
+        Object event = FlightRecorderEvents.beginInvocation();
+        try {
+            delegate.invoke(listener, message, publication);
+        } finally {
+            FlightRecorderEvents.endInvocation(event, message, handler);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.engio.mbassy.dispatch.condition;
+
+import net.engio.mbassy.listener.IMessageFilter;
+
+/**
+ * A condition compiler turns the condition of a handler (see {@link net.engio.mbassy.listener.Handler#condition()})
+ * into a message filter. Additional compilers are discovered using the {@link java.util.ServiceLoader} and consulted
+ * by descending priority. Compilers with a priority above {@link #BuiltInPriority} are consulted before the built-in
+ * expression language, all others only for conditions that the expression language does not support.
+ * To provide a compiler, list its implementation in META-INF/services/net.engio.mbassy.dispatch.condition.ConditionCompiler.
+ *
+ * Implementations need a public no-arg constructor and must be thread safe.
+ */
+public interface ConditionCompiler {
+
+    /**
+     * The priority of the built-in expression language
+     */
+    int BuiltInPriority = 0;
+
+    /**
+     * Create a filter for the given condition of a handler of messages of the given type.
+     *
+     * @return the filter or null if the condition is not supported by this compiler
+     * @throws IllegalArgumentException if the condition is supported but invalid
+     */
+    <M> IMessageFilter<M> compile(String condition, Class<?> messageType);
+
+    /**
+     * Compilers of higher priority are consulted first (default: {@link #BuiltInPriority}, i.e. after the built-in
+     * expression language)
+     */
+    default int getPriority() {
+        return BuiltInPriority;
+    }
+}
@@ -0,0 +1,83 @@
+package net.engio.mbassy.dispatch.condition;
+
+import net.engio.mbassy.listener.IMessageFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Creates the filters for handler conditions using the built-in expression language or any
+ * {@link ConditionCompiler} available on the class path.
+ */
+public final class ConditionCompilers {
+
+    private ConditionCompilers() {
+    }
+
+    // compilers are looked up when the first condition is compiled
+    private static final class Installed {
+        private static final List<ConditionCompiler> compilers = load();
+
+        private static List<ConditionCompiler> load() {
+            List<ConditionCompiler> compilers = new ArrayList<ConditionCompiler>();
+            for (ConditionCompiler compiler : ServiceLoader.load(ConditionCompiler.class, ConditionCompiler.class.getClassLoader())) {
+                compilers.add(compiler);
+            }
+            // the sort is stable, compilers of the same priority remain in the order they are found
+            Collections.sort(compilers, ByPriorityDesc);
+            return Collections.unmodifiableList(compilers);
+        }
+    }
+
+    private static final Comparator<ConditionCompiler> ByPriorityDesc = new Comparator<ConditionCompiler>() {
+        @Override
+        public int compare(ConditionCompiler o1, ConditionCompiler o2) {
+            return Integer.compare(o2.getPriority(), o1.getPriority());
+        }
+    };
+
+    /**
+     * The compilers that have been found using the service loader, by descending priority
+     */
+    public static List<ConditionCompiler> getInstalled() {
+        return Installed.compilers;
+    }
+
+    /**
+     * Create a filter for the given condition using the first compiler that supports it, see
+     * {@link ConditionCompiler#getPriority()}
+     *
+     * @throws IllegalStateException if no compiler supports the condition, reporting why the built-in
+     * expression language can not compile it
+     * @throws IllegalArgumentException if the condition is invalid
+     */
+    public static <M> IMessageFilter<M> compile(String condition, Class<?> messageType) {
+        List<ConditionCompiler> compilers = getInstalled();
+        int next = 0;
+        for (; next < compilers.size() && compilers.get(next).getPriority() > ConditionCompiler.BuiltInPriority; next++) {
+            IMessageFilter<M> filter = compilers.get(next).compile(condition, messageType);
+            if (filter != null) {
+                return filter;
+            }
+        }
+        IllegalArgumentException unsupported;
+        try {
+            return ExpressionFilter.compile(condition, messageType);
+        } catch (IllegalArgumentException e) {
+            unsupported = e;
+        }
+        for (; next < compilers.size(); next++) {
+            IMessageFilter<M> filter = compilers.get(next).compile(condition, messageType);
+            if (filter != null) {
+                return filter;
+            }
+        }
+        throw new IllegalStateException("The condition `" + condition + "` is not supported by the built-in expression language: "
+                + unsupported.getMessage() + (compilers.isEmpty()
+                        ? " No other condition compiler is available (add mbassador-groovy to use groovy conditions)."
+                        : " None of the installed condition compilers " + compilers + " supports it."), unsupported);
+    }
+}
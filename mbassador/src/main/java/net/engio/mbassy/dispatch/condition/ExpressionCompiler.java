@@ -0,0 +1,428 @@
+package net.engio.mbassy.dispatch.condition;
+
+import net.engio.mbassy.subscription.SubscriptionContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles a condition into a method handle that takes the message and the subscription context
+ * and returns a boolean. The expression is parsed by recursive descent and every sub expression is
+ * turned into a method handle of the same shape, such that the whole condition ends up as a single tree
+ * of method handle combinators that the JIT can inline.
+ *
+ * Grammar (operators in ascending order of precedence):
+ * <pre>
+ *     or         := and ( '||' and )*
+ *     and        := equality ( '&amp;&amp;' equality )*
+ *     equality   := relational ( ( '==' | '!=' ) relational )*
+ *     relational := unary ( ( '&lt;' | '&lt;=' | '&gt;' | '&gt;=' ) unary )*
+ *     unary      := '!' unary | '-' number | postfix
+ *     postfix    := primary ( '.' identifier [ '(' [ or ( ',' or )* ] ')' ] )*
+ *     primary    := 'msg' | 'context' | number | string | 'true' | 'false' | 'null' | '(' or ')'
+ * </pre>
+ */
+final class ExpressionCompiler {
+
+    // the parameters of every compiled (sub) expression: the message and the subscription context
+    private static final Class<?>[] PARAMETERS = {Object.class, SubscriptionContext.class};
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodHandle NOT = operator("not", boolean.class, boolean.class);
+
+    private static final MethodHandle TRUTH = operator("truth", boolean.class, Object.class);
+
+    private static final MethodHandle LENGTH = operator("length", int.class, Object.class);
+
+    private final String source;
+
+    private final Class<?> messageType;
+
+    private final List<Token> tokens;
+
+    private int position;
+
+    private ExpressionCompiler(String source, Class<?> messageType) {
+        this.source = source;
+        this.messageType = messageType;
+        this.tokens = Token.tokenize(source);
+    }
+
+    /**
+     * Compile the given condition for messages of the given type.
+     *
+     * @return a method handle of type (Object, SubscriptionContext)boolean
+     * @throws IllegalArgumentException if the condition is not a valid expression of the language
+     * or refers to members that do not exist
+     */
+    static MethodHandle compile(String source, Class<?> messageType) {
+        ExpressionCompiler compiler = new ExpressionCompiler(source, messageType);
+        MethodHandle condition = compiler.toBoolean(compiler.parseOr());
+        compiler.expect(Token.Kind.End, null);
+        return condition;
+    }
+
+    private MethodHandle parseOr() {
+        MethodHandle left = parseAnd();
+        while (accept("||")) {
+            MethodHandle right = toBoolean(parseAnd());
+            left = MethodHandles.guardWithTest(toBoolean(left), constant(boolean.class, true), right);
+        }
+        return left;
+    }
+
+    private MethodHandle parseAnd() {
+        MethodHandle left = parseEquality();
+        while (accept("&&")) {
+            MethodHandle right = toBoolean(parseEquality());
+            left = MethodHandles.guardWithTest(toBoolean(left), right, constant(boolean.class, false));
+        }
+        return left;
+    }
+
+    private MethodHandle parseEquality() {
+        MethodHandle left = parseRelational();
+        while (true) {
+            if (accept("==")) {
+                left = compare("equal", left, parseRelational());
+            } else if (accept("!=")) {
+                left = compare("notEqual", left, parseRelational());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private MethodHandle parseRelational() {
+        MethodHandle left = parseUnary();
+        while (true) {
+            if (accept("<")) {
+                left = compare("less", left, parseUnary());
+            } else if (accept("<=")) {
+                left = compare("lessOrEqual", left, parseUnary());
+            } else if (accept(">")) {
+                left = compare("greater", left, parseUnary());
+            } else if (accept(">=")) {
+                left = compare("greaterOrEqual", left, parseUnary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private MethodHandle parseUnary() {
+        if (accept("!")) {
+            return MethodHandles.filterReturnValue(toBoolean(parseUnary()), NOT);
+        }
+        if (accept("-")) {
+            Token number = expect(Token.Kind.Number, null);
+            return number("-" + number.text, number);
+        }
+        return parsePostfix();
+    }
+
+    private MethodHandle parsePostfix() {
+        MethodHandle target = parsePrimary();
+        while (accept(".")) {
+            Token member = expect(Token.Kind.Identifier, null);
+            if (accept("(")) {
+                List<MethodHandle> arguments = new ArrayList<MethodHandle>();
+                if (!accept(")")) {
+                    do {
+                        arguments.add(parseOr());
+                    } while (accept(","));
+                    expect(Token.Kind.Operator, ")");
+                }
+                target = invokeMethod(target, member, arguments);
+            } else {
+                target = readProperty(target, member);
+            }
+        }
+        return target;
+    }
+
+    private MethodHandle parsePrimary() {
+        Token token = next();
+        switch (token.kind) {
+            case Number:
+                return number(token.text, token);
+            case Text:
+                return constant(String.class, token.text);
+            case Identifier:
+                if (token.text.equals("msg")) {
+                    MethodHandle message = MethodHandles.dropArguments(MethodHandles.identity(Object.class), 1, SubscriptionContext.class);
+                    return message.asType(message.type().changeReturnType(messageType));
+                }
+                if (token.text.equals("context")) {
+                    return MethodHandles.dropArguments(MethodHandles.identity(SubscriptionContext.class), 0, Object.class);
+                }
+                if (token.text.equals("true") || token.text.equals("false")) {
+                    return constant(boolean.class, Boolean.valueOf(token.text));
+                }
+                if (token.text.equals("null")) {
+                    return constant(Object.class, null);
+                }
+                throw error(token, "unknown variable '" + token.text + "', use msg or context");
+            case Operator:
+                if (token.text.equals("(")) {
+                    MethodHandle nested = parseOr();
+                    expect(Token.Kind.Operator, ")");
+                    return nested;
+                }
+                // fall through
+            default:
+                throw error(token, "unexpected " + token);
+        }
+    }
+
+    private MethodHandle number(String text, Token token) {
+        try {
+            if (text.endsWith("L") || text.endsWith("l")) {
+                return constant(long.class, Long.parseLong(text.substring(0, text.length() - 1)));
+            }
+            if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return constant(double.class, Double.parseDouble(text));
+            }
+            long value = Long.parseLong(text);
+            return value == (int) value ? constant(int.class, (int) value) : constant(long.class, value);
+        } catch (NumberFormatException e) {
+            throw error(token, "invalid number " + text);
+        }
+    }
+
+    // comparisons of primitive numbers are done on primitives, everything else is boxed
+    private MethodHandle compare(String operator, MethodHandle left, MethodHandle right) {
+        Class<?> leftType = left.type().returnType();
+        Class<?> rightType = right.type().returnType();
+        Class<?> operandType = Object.class;
+        if (isNumeric(leftType) && isNumeric(rightType)) {
+            operandType = isFloatingPoint(leftType) || isFloatingPoint(rightType) ? double.class : long.class;
+        }
+        return combine(operator(operator, boolean.class, operandType, operandType), left, right);
+    }
+
+    private MethodHandle readProperty(MethodHandle target, Token property) {
+        Class<?> type = receiverType(target, property);
+        if (type.isArray() && property.text.equals("length")) {
+            return combine(LENGTH, target);
+        }
+        String capitalized = Character.toUpperCase(property.text.charAt(0)) + property.text.substring(1);
+        MethodHandle accessor = findMethod(type, "get" + capitalized, new Class<?>[0]);
+        if (accessor == null) {
+            accessor = findMethod(type, "is" + capitalized, new Class<?>[0]);
+        }
+        if (accessor == null) {
+            accessor = findField(type, property.text);
+        }
+        if (accessor == null) {
+            throw error(property, "no property " + property.text + " in " + type.getName());
+        }
+        return combine(accessor, target);
+    }
+
+    private MethodHandle invokeMethod(MethodHandle target, Token name, List<MethodHandle> arguments) {
+        Class<?> type = receiverType(target, name);
+        Class<?>[] argumentTypes = new Class<?>[arguments.size()];
+        for (int i = 0; i < argumentTypes.length; i++) {
+            argumentTypes[i] = arguments.get(i).type().returnType();
+        }
+        MethodHandle method = findMethod(type, name.text, argumentTypes);
+        if (method == null) {
+            throw error(name, "no method " + name.text + " with " + argumentTypes.length + " matching parameter(s) in " + type.getName());
+        }
+        MethodHandle[] all = new MethodHandle[arguments.size() + 1];
+        all[0] = target;
+        for (int i = 0; i < arguments.size(); i++) {
+            all[i + 1] = arguments.get(i);
+        }
+        return combine(method, all);
+    }
+
+    private Class<?> receiverType(MethodHandle target, Token member) {
+        Class<?> type = target.type().returnType();
+        if (type.isPrimitive()) {
+            throw error(member, "can not access " + member.text + " of a " + type.getName() + " value");
+        }
+        return type;
+    }
+
+    // the virtual methods of the given type with the given name that accept the given arguments
+    private static MethodHandle findMethod(Class<?> type, String name, Class<?>[] argumentTypes) {
+        MethodHandle found = null;
+        for (Method method : getMethods(type)) {
+            if (!method.getName().equals(name) || Modifier.isStatic(method.getModifiers())
+                    || method.getParameterTypes().length != argumentTypes.length || !accepts(method.getParameterTypes(), argumentTypes)) {
+                continue;
+            }
+            MethodHandle handle = unreflect(method);
+            if (handle != null) {
+                if (found != null && !found.type().equals(handle.type())) {
+                    return null; // ambiguous
+                }
+                found = handle;
+            }
+        }
+        return found;
+    }
+
+    // all methods declared in the type and its super types, most specific first
+    private static Set<Method> getMethods(Class<?> type) {
+        Set<Method> methods = new LinkedHashSet<Method>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (!method.isBridge() && !isOverridden(methods, method)) {
+                    methods.add(method);
+                }
+            }
+        }
+        for (Method method : type.getMethods()) {
+            if (!method.isBridge() && !isOverridden(methods, method)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private static boolean isOverridden(Set<Method> methods, Method method) {
+        for (Method existing : methods) {
+            if (existing.getName().equals(method.getName())
+                    && Arrays.equals(existing.getParameterTypes(), method.getParameterTypes())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MethodHandle findField(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                    try {
+                        makeAccessible(field);
+                        return LOOKUP.unreflectGetter(field);
+                    } catch (IllegalAccessException e) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        makeAccessible(method);
+        try {
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            return null; // e.g. public method of a non-public class that is also available through a public super type
+        }
+    }
+
+    private static void makeAccessible(AccessibleObject member) {
+        try {
+            member.setAccessible(true);
+        } catch (RuntimeException e) {
+            // members of encapsulated modules stay inaccessible unless they are public
+        }
+    }
+
+    private static boolean accepts(Class<?>[] parameterTypes, Class<?>[] argumentTypes) {
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameter = box(parameterTypes[i]);
+            Class<?> argument = box(argumentTypes[i]);
+            if (!parameter.isAssignableFrom(argument) && argument != Object.class) {
+                if (!(isNumeric(parameterTypes[i]) && isNumeric(argumentTypes[i]))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // invoke the target with the results of the given expressions, all of which take the message and context
+    private static MethodHandle combine(MethodHandle target, MethodHandle... arguments) {
+        MethodType targetType = target.type();
+        MethodHandle combined = target;
+        int[] reorder = new int[arguments.length * PARAMETERS.length];
+        // from right to left such that the positions of the remaining parameters do not change
+        for (int i = arguments.length - 1; i >= 0; i--) {
+            MethodHandle argument = MethodHandles.explicitCastArguments(arguments[i], arguments[i].type().changeReturnType(targetType.parameterType(i)));
+            combined = MethodHandles.collectArguments(combined, i, argument);
+            reorder[i * 2] = 0;
+            reorder[i * 2 + 1] = 1;
+        }
+        return MethodHandles.permuteArguments(combined, MethodType.methodType(targetType.returnType(), PARAMETERS), reorder);
+    }
+
+    private MethodHandle toBoolean(MethodHandle expression) {
+        Class<?> type = expression.type().returnType();
+        if (type == boolean.class) {
+            return expression;
+        }
+        return MethodHandles.filterReturnValue(expression.asType(expression.type().changeReturnType(Object.class)), TRUTH);
+    }
+
+    private static MethodHandle constant(Class<?> type, Object value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(type, value), 0, PARAMETERS);
+    }
+
+    private static MethodHandle operator(String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            return LOOKUP.findStatic(Operators.class, name, MethodType.methodType(returnType, parameters));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return type.isPrimitive() && type != boolean.class && type != void.class;
+    }
+
+    private static boolean isFloatingPoint(Class<?> type) {
+        return type == double.class || type == float.class;
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private boolean accept(String operator) {
+        Token token = tokens.get(position);
+        if (token.kind == Token.Kind.Operator && token.text.equals(operator)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token expect(Token.Kind kind, String text) {
+        Token token = next();
+        if (token.kind != kind || text != null && !token.text.equals(text)) {
+            throw error(token, "expected " + (text != null ? "'" + text + "'" : kind.toString().toLowerCase()) + " but found " + token);
+        }
+        return token;
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.kind != Token.Kind.End) {
+            position++;
+        }
+        return token;
+    }
+
+    private IllegalArgumentException error(Token token, String message) {
+        return new IllegalArgumentException("Invalid condition `" + source + "` at position " + token.offset + ": " + message);
+    }
+}
@@ -0,0 +1,55 @@
+package net.engio.mbassy.dispatch.condition;
+
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.subscription.SubscriptionContext;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * A filter for handler conditions written in the built-in expression language. The language covers the
+ * common cases of conditions without requiring groovy: property access (msg.size reads getSize(), isSize() or the field size),
+ * method calls (msg.getType().equals('x')), literals (numbers, strings in single or double quotes, true, false, null),
+ * comparisons (==, !=, &lt;, &lt;=, &gt;, &gt;=) and boolean logic (&amp;&amp;, ||, !, parentheses).
+ *
+ * Comparisons follow groovy semantics, i.e. == compares values using equals() and numbers of different types are compared by value.
+ * The condition is compiled into a tree of method handles when the filter is created.
+ */
+public final class ExpressionFilter<M> implements IMessageFilter<M> {
+
+    private final String source;
+
+    // (Object, SubscriptionContext)boolean
+    private final MethodHandle condition;
+
+    private ExpressionFilter(String source, MethodHandle condition) {
+        this.source = source;
+        this.condition = condition;
+    }
+
+    /**
+     * Compile the given condition for messages of the given type
+     *
+     * @throws IllegalArgumentException if the condition is not supported by the expression language
+     */
+    public static <T> ExpressionFilter<T> compile(String source, Class<?> type) {
+        return new ExpressionFilter<T>(source, ExpressionCompiler.compile(source, type));
+    }
+
+    @Override
+    public boolean accepts(M message, SubscriptionContext context) {
+        try {
+            return (boolean) condition.invokeExact((Object) message, context);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Error while evaluating condition `" + source + "`", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
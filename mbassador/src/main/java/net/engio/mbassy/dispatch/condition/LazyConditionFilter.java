@@ -0,0 +1,28 @@
+package net.engio.mbassy.dispatch.condition;
+
+import net.engio.mbassy.listener.IMessageFilter;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A filter whose condition is compiled separately from its creation. By default the metadata reader compiles the
+ * condition while it reads the listener class, such that an invalid condition fails the subscription. Compiling in the
+ * background is opt-in, see {@link net.engio.mbassy.listener.MetadataReader#setConditionPrecompiler(Executor)}.
+ * A filter that has not been compiled yet compiles its condition when it is evaluated for the first time.
+ */
+public interface LazyConditionFilter<M> extends IMessageFilter<M> {
+
+    /**
+     * Compile the condition unless it has been compiled already
+     *
+     * @throws IllegalArgumentException if the condition is invalid
+     */
+    void compile();
+
+    /**
+     * Compile the condition using the given executor unless it has been compiled already. A compilation error is
+     * thrown to the executor, which reports it like any failed task (e.g. to the uncaught exception handler of its
+     * thread), and it is thrown again whenever the filter is used.
+     */
+    void precompile(Executor executor);
+}
@@ -0,0 +1,171 @@
+package net.engio.mbassy.dispatch.condition;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The operators of the expression language. Comparisons of primitive values use the primitive
+ * variants, everything else is compared using the object variants which follow the semantics of
+ * groovy: numbers are compared by value, == uses equals() and null is smaller than any other value.
+ */
+final class Operators {
+
+    private Operators() {
+    }
+
+    static boolean not(boolean value) {
+        return !value;
+    }
+
+    // groovy truth: null, zero, empty strings, collections and arrays are false
+    static boolean truth(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        }
+        if (value instanceof Character) {
+            return (Character) value != 0;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() != 0;
+        }
+        if (value instanceof Collection) {
+            return !((Collection) value).isEmpty();
+        }
+        if (value instanceof Map) {
+            return !((Map) value).isEmpty();
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value) != 0;
+        }
+        return true;
+    }
+
+    static int length(Object array) {
+        return Array.getLength(array);
+    }
+
+    static boolean equal(long left, long right) {
+        return left == right;
+    }
+
+    static boolean notEqual(long left, long right) {
+        return left != right;
+    }
+
+    static boolean less(long left, long right) {
+        return left < right;
+    }
+
+    static boolean lessOrEqual(long left, long right) {
+        return left <= right;
+    }
+
+    static boolean greater(long left, long right) {
+        return left > right;
+    }
+
+    static boolean greaterOrEqual(long left, long right) {
+        return left >= right;
+    }
+
+    static boolean equal(double left, double right) {
+        return left == right;
+    }
+
+    static boolean notEqual(double left, double right) {
+        return left != right;
+    }
+
+    static boolean less(double left, double right) {
+        return left < right;
+    }
+
+    static boolean lessOrEqual(double left, double right) {
+        return left <= right;
+    }
+
+    static boolean greater(double left, double right) {
+        return left > right;
+    }
+
+    static boolean greaterOrEqual(double left, double right) {
+        return left >= right;
+    }
+
+    static boolean equal(Object left, Object right) {
+        if (left == right) {
+            return true;
+        }
+        if (left == null || right == null) {
+            return false;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return compare(left, right) == 0;
+        }
+        if (left instanceof Character && right instanceof CharSequence
+                || left instanceof CharSequence && right instanceof Character) {
+            return left.toString().equals(right.toString());
+        }
+        return left.equals(right);
+    }
+
+    static boolean notEqual(Object left, Object right) {
+        return !equal(left, right);
+    }
+
+    static boolean less(Object left, Object right) {
+        return compare(left, right) < 0;
+    }
+
+    static boolean lessOrEqual(Object left, Object right) {
+        return compare(left, right) <= 0;
+    }
+
+    static boolean greater(Object left, Object right) {
+        return compare(left, right) > 0;
+    }
+
+    static boolean greaterOrEqual(Object left, Object right) {
+        return compare(left, right) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Object left, Object right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == null) {
+            return -1;
+        }
+        if (right == null) {
+            return 1;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+            }
+            if (left instanceof BigDecimal || right instanceof BigDecimal
+                    || left instanceof BigInteger || right instanceof BigInteger) {
+                return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+            }
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof Comparable) {
+            return ((Comparable<Object>) left).compareTo(right);
+        }
+        throw new IllegalArgumentException("Can not compare " + left.getClass().getName() + " with " + right.getClass().getName());
+    }
+
+    private static boolean isIntegral(Object number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte;
+    }
+}
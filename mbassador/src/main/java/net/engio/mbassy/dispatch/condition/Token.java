@@ -0,0 +1,116 @@
+package net.engio.mbassy.dispatch.condition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A token of a condition expression
+ */
+final class Token {
+
+    enum Kind {
+        Identifier, Number, Text, Operator, End
+    }
+
+    // operators ordered such that longer ones are matched first
+    private static final String[] OPERATORS = {"&&", "||", "==", "!=", "<=", ">=", "<", ">", "!", "-", "(", ")", ".", ","};
+
+    final Kind kind;
+
+    final String text;
+
+    // position of the token in the expression
+    final int offset;
+
+    private Token(Kind kind, String text, int offset) {
+        this.kind = kind;
+        this.text = text;
+        this.offset = offset;
+    }
+
+    static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<Token>();
+        int position = 0;
+        int length = source.length();
+        while (position < length) {
+            char current = source.charAt(position);
+            if (Character.isWhitespace(current)) {
+                position++;
+            } else if (Character.isJavaIdentifierStart(current)) {
+                int end = position + 1;
+                while (end < length && Character.isJavaIdentifierPart(source.charAt(end))) {
+                    end++;
+                }
+                tokens.add(new Token(Kind.Identifier, source.substring(position, end), position));
+                position = end;
+            } else if (Character.isDigit(current)) {
+                int end = position + 1;
+                while (end < length && isNumberPart(source, end)) {
+                    end++;
+                }
+                tokens.add(new Token(Kind.Number, source.substring(position, end), position));
+                position = end;
+            } else if (current == '\'' || current == '"') {
+                position = readText(source, position, tokens);
+            } else {
+                position = readOperator(source, position, tokens);
+            }
+        }
+        tokens.add(new Token(Kind.End, "", length));
+        return tokens;
+    }
+
+    private static boolean isNumberPart(String source, int position) {
+        char current = source.charAt(position);
+        if (Character.isDigit(current) || current == 'L' || current == 'l' || current == 'e' || current == 'E') {
+            return true;
+        }
+        char previous = source.charAt(position - 1);
+        if ((current == '-' || current == '+') && (previous == 'e' || previous == 'E')) {
+            return true;
+        }
+        // a dot is part of the number only if a digit follows, e.g. not in 1.toString()
+        return current == '.' && position + 1 < source.length() && Character.isDigit(source.charAt(position + 1));
+    }
+
+    private static int readText(String source, int start, List<Token> tokens) {
+        char quote = source.charAt(start);
+        StringBuilder text = new StringBuilder();
+        int position = start + 1;
+        while (position < source.length()) {
+            char current = source.charAt(position++);
+            if (current == quote) {
+                tokens.add(new Token(Kind.Text, text.toString(), start));
+                return position;
+            }
+            if (current == '\\' && position < source.length()) {
+                char escaped = source.charAt(position++);
+                switch (escaped) {
+                    case 'n': text.append('\n'); break;
+                    case 't': text.append('\t'); break;
+                    case 'r': text.append('\r'); break;
+                    default: text.append(escaped);
+                }
+            } else {
+                text.append(current);
+            }
+        }
+        throw new IllegalArgumentException("Invalid condition `" + source + "` at position " + start + ": unterminated string");
+    }
+
+    private static int readOperator(String source, int position, List<Token> tokens) {
+        for (String operator : OPERATORS) {
+            if (source.startsWith(operator, position)) {
+                tokens.add(new Token(Kind.Operator, operator, position));
+                return position + operator.length();
+            }
+        }
+        throw new IllegalArgumentException("Invalid condition `" + source + "` at position " + position
+                + ": unsupported character '" + source.charAt(position) + "'");
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.End ? "end of expression" : "'" + text + "'";
+    }
+}
@@ -29,6 +29,9 @@ public @interface Handler {
      * attributes of the event object. Note that the expression must resolve to either
      * <code>true</code> to allow the event or <code>false</code> to block it from delivery to the handler. 
      * The message itself is available as "msg" variable. 
+     * Simple conditions (property access, method calls, comparisons and boolean logic) are compiled
+     * by the built-in expression language, see {@link net.engio.mbassy.dispatch.condition.ExpressionFilter}.
+     * Any other groovy expression requires the mbassador-groovy module.
      * @return the condition in Groovy syntax.
      */
     @Language(value = "groovy",
@@ -64,7 +67,7 @@ public @interface Handler {
 
     /**
      * Enable or disable default filter for cancelled events, uses {@link Cancellable} interfce, and only events implementing this interface will be affected
-     * by this settings.
+     * by this settings. Cancelled events skip such handlers without evaluating any of their filters.
      */
     boolean ignoreCancelled() default false;
 
@@ -0,0 +1,410 @@
+package net.engio.mbassy.listener;
+
+import net.engio.mbassy.common.ReflectionUtils;
+import net.engio.mbassy.dispatch.HandlerInvocation;
+import net.engio.mbassy.dispatch.ReflectiveHandlerInvocation;
+import net.engio.mbassy.dispatch.condition.ConditionCompilers;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Any method in any class annotated with the @Handler annotation represents a message handler. The class that contains
+ * the handler is called a  message listener and more generally, any class containing a message handler in its class hierarchy
+ * defines such a message listener.
+ *
+ * @author bennidi
+ *         Date: 11/14/12
+ */
+public class MessageHandler {
+
+    public static final class Properties{
+
+        public static final String MethodHandle = "methodHandle";
+        public static final String HandlerMethod = "handler";
+        public static final String InvocationMode = "invocationMode";
+        public static final String Filter = "filter";
+        public static final String Condition = "condition";
+        public static final String HandledMessage = "message";
+        public static final String IsSynchronized = "synchronized";
+        public static final String Listener = "listener";
+        public static final String AcceptSubtypes = "subtypes";
+        public static final String Priority = "priority";
+        public static final String IgnoreCancelled = "ignoreCancelled";
+        public static final String Invocation = "invocation";
+
+        /**
+         * Create the property map for the {@link MessageHandler} constructor using the default objects.
+         *
+         * @param handler  The handler annotated method of the listener
+         * @param handlerConfig The annotation that configures the handler
+         * @param filter   The set of preconfigured filters if any
+         * @param listenerConfig The listener metadata
+         * @return  A map of properties initialized from the given parameters that will conform to the requirements of the
+         *         {@link MessageHandler} constructor.
+         * @deprecated use the typed {@link Builder#Create(Method, Handler, IMessageFilter[], MessageListener)} instead
+         */
+        @Deprecated
+        public static final Map<String, Object> Create(Method handler,
+                                                       Handler handlerConfig,
+                                                       IMessageFilter[] filter,
+                                                       MessageListener listenerConfig){
+            return Builder.Create(handler, handlerConfig, filter, listenerConfig).toProperties();
+        }
+    }
+
+    /**
+     * A typed builder for message handlers. All required values are checked once in {@link #build()},
+     * optional values default to the defaults of the {@link Handler} annotation.
+     */
+    public static final class Builder {
+
+        private MethodHandle methodHandle;
+        private Method handler;
+        private IMessageFilter[] filter = new IMessageFilter[0];
+        private String condition = "";
+        private int priority = 0;
+        private boolean ignoreCancelled = false;
+        private Class<? extends HandlerInvocation> invocation = ReflectiveHandlerInvocation.class;
+        private Invoke invocationMode = Invoke.Synchronously;
+        private Class<?> handledMessage;
+        private boolean acceptsSubtypes = true;
+        private MessageListener listenerConfig;
+        private boolean isSynchronized = false;
+
+        /**
+         * Create a builder for the given handler method using the default objects.
+         *
+         * @param handler  The handler annotated method of the listener
+         * @param handlerConfig The annotation that configures the handler
+         * @param filter   The set of preconfigured filters if any
+         * @param listenerConfig The listener metadata
+         * @return A builder initialized from the given parameters
+         */
+        public static Builder Create(Method handler,
+                                     Handler handlerConfig,
+                                     IMessageFilter[] filter,
+                                     MessageListener listenerConfig){
+            if(handler == null){
+                throw new IllegalArgumentException("The message handler configuration may not be null");
+            }
+            if(handler.getParameterCount() != 1) {
+                throw new IllegalArgumentException("The message handler must have only singe parameter");
+            }
+            if(filter == null){
+                filter = new IMessageFilter[]{};
+            }
+            Class<?> handledMessage = handler.getParameterTypes()[0];
+            handler.setAccessible(true);
+            MethodHandle methodHandle;
+            try {
+                methodHandle = MethodHandles.lookup().unreflect(handler);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            // add a filter for the condition if present
+            if(! handlerConfig.condition().isEmpty()){
+                IMessageFilter[] expandedFilter = new IMessageFilter[filter.length + 1];
+                System.arraycopy(filter, 0, expandedFilter, 0, filter.length);
+                expandedFilter[filter.length] = ConditionCompilers.compile(handlerConfig.condition(), handledMessage);
+                filter = expandedFilter;
+            }
+            return new Builder()
+                    .setMethodHandle(methodHandle)
+                    .setHandler(handler)
+                    .setFilter(filter)
+                    .setCondition(handlerConfig.condition())
+                    .setPriority(handlerConfig.priority())
+                    .setIgnoreCancelled(handlerConfig.ignoreCancelled())
+                    .setInvocation(handlerConfig.invocation())
+                    .setInvocationMode(handlerConfig.delivery())
+                    .setAcceptsSubtypes(!handlerConfig.rejectSubtypes())
+                    .setListenerConfig(listenerConfig)
+                    .setSynchronized(ReflectionUtils.getAnnotation(handler, Synchronized.class) != null)
+                    .setHandledMessage(handledMessage);
+        }
+
+        public Builder setMethodHandle(MethodHandle methodHandle) {
+            this.methodHandle = methodHandle;
+            return this;
+        }
+
+        public Builder setHandler(Method handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        public Builder setFilter(IMessageFilter[] filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        public Builder setCondition(String condition) {
+            this.condition = condition;
+            return this;
+        }
+
+        public Builder setPriority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Builder setIgnoreCancelled(boolean ignoreCancelled) {
+            this.ignoreCancelled = ignoreCancelled;
+            return this;
+        }
+
+        public Builder setInvocation(Class<? extends HandlerInvocation> invocation) {
+            this.invocation = invocation;
+            return this;
+        }
+
+        public Builder setInvocationMode(Invoke invocationMode) {
+            this.invocationMode = invocationMode;
+            return this;
+        }
+
+        public Builder setHandledMessage(Class<?> handledMessage) {
+            this.handledMessage = handledMessage;
+            return this;
+        }
+
+        public Builder setAcceptsSubtypes(boolean acceptsSubtypes) {
+            this.acceptsSubtypes = acceptsSubtypes;
+            return this;
+        }
+
+        public Builder setListenerConfig(MessageListener listenerConfig) {
+            this.listenerConfig = listenerConfig;
+            return this;
+        }
+
+        public Builder setSynchronized(boolean isSynchronized) {
+            this.isSynchronized = isSynchronized;
+            return this;
+        }
+
+        public MessageHandler build() {
+            return new MessageHandler(this);
+        }
+
+        private Map<String, Object> toProperties() {
+            Map<String, Object> properties = new HashMap<String, Object>();
+            properties.put(Properties.MethodHandle, methodHandle);
+            properties.put(Properties.HandlerMethod, handler);
+            properties.put(Properties.Filter, filter);
+            properties.put(Properties.Condition, condition);
+            properties.put(Properties.Priority, priority);
+            properties.put(Properties.IgnoreCancelled, ignoreCancelled);
+            properties.put(Properties.Invocation, invocation);
+            properties.put(Properties.InvocationMode, invocationMode);
+            properties.put(Properties.AcceptSubtypes, acceptsSubtypes);
+            properties.put(Properties.Listener, listenerConfig);
+            properties.put(Properties.IsSynchronized, isSynchronized);
+            properties.put(Properties.HandledMessage, handledMessage);
+            return properties;
+        }
+
+        private static <T> T require(String property, T value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Property " + property + " was expected to be not null");
+            }
+            return value;
+        }
+    }
+
+    private final MethodHandle methodHandle;
+
+    private final Method handler;
+
+    private final IMessageFilter[] filter;
+
+	private final String condition;
+
+    private final int priority;
+
+    private final boolean ignoreCancelled;
+
+    private final Class<? extends HandlerInvocation> invocation;
+
+    private final Invoke invocationMode;
+
+    private final Class<?> handledMessage;
+
+    private final boolean acceptsSubtypes;
+
+    private final MessageListener listenerConfig;
+
+    private final boolean isSynchronized;
+
+    private static final Object NoAnnotation = new Object();
+
+    // annotations that have been looked up by type
+    private final Map<Class<? extends Annotation>, Object> annotations;
+
+
+    /**
+     * @deprecated use {@link Builder} instead, this constructor validates the types of all properties reflectively
+     */
+    @Deprecated
+    public MessageHandler(Map<String, Object> properties){
+        super();
+        validate(properties);
+        this.methodHandle = (MethodHandle) properties.get(Properties.MethodHandle);
+        this.handler = (Method)properties.get(Properties.HandlerMethod);
+        this.filter = (IMessageFilter[])properties.get(Properties.Filter);
+        this.condition = (String)properties.get(Properties.Condition);
+        this.priority = (Integer)properties.get(Properties.Priority);
+        this.ignoreCancelled = (Boolean) properties.get(Properties.IgnoreCancelled);
+        this.invocation = (Class<? extends HandlerInvocation>)properties.get(Properties.Invocation);
+        this.invocationMode = (Invoke)properties.get(Properties.InvocationMode);
+        this.acceptsSubtypes = (Boolean)properties.get(Properties.AcceptSubtypes);
+        this.listenerConfig = (MessageListener)properties.get(Properties.Listener);
+        this.isSynchronized = (Boolean)properties.get(Properties.IsSynchronized);
+        this.handledMessage = (Class<?>)properties.get(Properties.HandledMessage);
+        this.annotations = new ConcurrentHashMap<Class<? extends Annotation>, Object>(4);
+    }
+
+    public MessageHandler(Builder builder){
+        super();
+        this.methodHandle = Builder.require(Properties.MethodHandle, builder.methodHandle);
+        this.handler = Builder.require(Properties.HandlerMethod, builder.handler);
+        this.filter = Builder.require(Properties.Filter, builder.filter);
+        this.condition = Builder.require(Properties.Condition, builder.condition);
+        this.priority = builder.priority;
+        this.ignoreCancelled = builder.ignoreCancelled;
+        this.invocation = Builder.require(Properties.Invocation, builder.invocation);
+        this.invocationMode = Builder.require(Properties.InvocationMode, builder.invocationMode);
+        this.acceptsSubtypes = builder.acceptsSubtypes;
+        this.listenerConfig = Builder.require(Properties.Listener, builder.listenerConfig);
+        this.isSynchronized = builder.isSynchronized;
+        this.handledMessage = Builder.require(Properties.HandledMessage, builder.handledMessage);
+        this.annotations = new ConcurrentHashMap<Class<? extends Annotation>, Object>(4);
+    }
+
+    // copy of the given handler that belongs to another listener (a subclass inheriting the handler)
+    private MessageHandler(MessageHandler template, MessageListener listenerConfig){
+        super();
+        this.methodHandle = template.methodHandle;
+        this.handler = template.handler;
+        this.filter = template.filter;
+        this.condition = template.condition;
+        this.priority = template.priority;
+        this.ignoreCancelled = template.ignoreCancelled;
+        this.invocation = template.invocation;
+        this.invocationMode = template.invocationMode;
+        this.acceptsSubtypes = template.acceptsSubtypes;
+        this.listenerConfig = listenerConfig;
+        this.isSynchronized = template.isSynchronized;
+        this.handledMessage = template.handledMessage;
+        this.annotations = template.annotations;
+    }
+
+    /**
+     * Create a handler for the given listener that shares the method handle, filters and all other
+     * configuration of this handler
+     */
+    MessageHandler forListener(MessageListener listenerConfig){
+        return listenerConfig == this.listenerConfig ? this : new MessageHandler(this, listenerConfig);
+    }
+
+    private void validate(Map<String, Object> properties){
+        // define expected types of known properties
+        Object[][] expectedProperties = new Object[][]{
+                new Object[]{Properties.MethodHandle, MethodHandle.class },
+                new Object[]{Properties.HandlerMethod, Method.class },
+                new Object[]{Properties.Priority, Integer.class },
+                new Object[]{Properties.IgnoreCancelled, Boolean.class },
+                new Object[]{Properties.Invocation, Class.class },
+                new Object[]{Properties.Filter, IMessageFilter[].class },
+                new Object[]{Properties.Condition, String.class },
+                new Object[]{Properties.HandledMessage, Class.class },
+                new Object[]{Properties.IsSynchronized, Boolean.class },
+                new Object[]{Properties.Listener, MessageListener.class },
+                new Object[]{Properties.AcceptSubtypes, Boolean.class }
+        };
+        // ensure types match
+        for(Object[] property : expectedProperties){
+            if (properties.get(property[0]) == null || !((Class)property[1]).isAssignableFrom(properties.get(property[0]).getClass()))
+                throw new IllegalArgumentException("Property " + property[0] + " was expected to be not null and of type " + property[1]
+                        + " but was: " + properties.get(property[0]));
+        }
+    }
+
+    // filters might look up annotations with every message
+    @SuppressWarnings("unchecked")
+    public <A extends Annotation> A getAnnotation(Class<A> annotationType){
+        Object annotation = annotations.get(annotationType);
+        if (annotation == null) {
+            annotation = ReflectionUtils.getAnnotation(handler, annotationType);
+            annotations.put(annotationType, annotation == null ? NoAnnotation : annotation);
+        }
+        return annotation == NoAnnotation ? null : (A) annotation;
+    }
+
+    public boolean isSynchronized(){
+        return isSynchronized;
+    }
+
+    public boolean useStrongReferences(){
+        return listenerConfig.useStrongReferences();
+    }
+
+    public boolean isFromListener(Class listener){
+        return listenerConfig.isFromListener(listener);
+    }
+
+    public boolean isAsynchronous() {
+        return invocationMode.equals(Invoke.Asynchronously);
+    }
+
+    public boolean isFiltered() {
+        return filter.length > 0 || (condition != null && condition.trim().length() > 0);
+    }
+
+    public boolean isIgnoreCancelled() {
+        return ignoreCancelled;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public MethodHandle getMethodHandle() {
+        return methodHandle;
+    }
+
+    public Method getMethod() {
+        return handler;
+    }
+
+    public IMessageFilter[] getFilter() {
+        return filter;
+    }
+
+    public String getCondition() {
+    	return this.condition;
+    }
+
+    public Class<?> getHandledMessage() {
+        return handledMessage;
+    }
+
+    public Class<? extends HandlerInvocation> getHandlerInvocation(){
+        return invocation;
+    }
+
+    public boolean handlesMessage(Class<?> messageType) {
+        return handledMessage.equals(messageType) || (acceptsSubtypes() && handledMessage.isAssignableFrom(messageType));
+    }
+
+    public boolean acceptsSubtypes() {
+        return acceptsSubtypes;
+    }
+
+}
@@ -18,7 +18,7 @@ import java.util.List;
  *
  * This class is an internal representation of a message listener used to encapsulate all relevant objects
  * and data about that message listener, especially all its handlers.
- * There will be only one instance of MessageListener per message listener class and message bus instance.
+ * There will be only one instance of MessageListener per message listener class, it is shared by all message bus instances.
  *
  * @author bennidi
  *         Date: 12/16/12
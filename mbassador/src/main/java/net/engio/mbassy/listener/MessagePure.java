@@ -0,0 +1,18 @@
+package net.engio.mbassy.listener;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a message filter whose result only depends on the message, i.e. it does not look at the subscription context
+ * or any other state that differs between handlers. Such a filter is evaluated at most once per message publication and
+ * its result is shared by all subscriptions using the same filter instance. Since filters configured in @Handler are
+ * shared by all handlers that use the same filter class, this avoids evaluating expensive checks once per handler.
+ *
+ * Note: The filter must not have side effects that are expected to happen for each handler and must not depend on state
+ * of the message that handlers may change during the publication (like the cancellation of a {@link Cancellable})
+ */
+@Retention(value = RetentionPolicy.RUNTIME)
+@Inherited
+@Target(value = {ElementType.TYPE})
+public @interface MessagePure {
+}
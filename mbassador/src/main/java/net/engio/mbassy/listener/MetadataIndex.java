@@ -0,0 +1,412 @@
+package net.engio.mbassy.listener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An optional on-disk index of the message handlers of listener classes that can be used by the {@link MetadataReader}
+ * to skip the reflective scan of the class hierarchy of known listener classes after a restart.
+ * <p/>
+ * For each listener class, the index stores the handler methods that have been found by the last scan together with
+ * the classes the result depends on: the class, its super classes and interfaces and the annotation types of their
+ * methods (including meta-annotations). These classes are identified by a stamp of their code source, the size and
+ * modification time of their class file or of the jar containing them. The stamp of a jar is computed once per
+ * class loader.
+ * The index file is read into memory when it is opened, only the class names are decoded upfront. The entry of a class
+ * is decoded and validated when it is looked up for the first time. Entries of changed classes are ignored and replaced
+ * by the result of a new scan. Classes without a code source on disk (e.g. generated classes) are never indexed.
+ * The configuration of each handler is always read from its annotations, only the result of the handler
+ * detection is cached.
+ * <p/>
+ * The index is never written implicitly. Call {@link #save()} once all relevant listeners have been subscribed,
+ * i.e. at the end of the startup.
+ * <pre>
+ * MetadataIndex index = MetadataIndex.open(Paths.get("mbassador.idx"));
+ * IBusConfiguration config = new BusConfiguration()
+ *      .addFeature(Feature.SyncPubSub.Default().setMetadataReader(new MetadataReader(index)))
+ *      ...
+ * // subscribe listeners, then
+ * index.save();
+ * </pre>
+ */
+public class MetadataIndex {
+
+    private static final int MAGIC = 0x4D424958; // MBIX
+
+    private static final int VERSION = 2;
+
+    // the stamp of the code source of each class, computed once per class
+    private static final ClassValue<Long> ClassStamps = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return stampOf(type);
+        }
+    };
+
+    // the stamps of jar files, computed once per protection domain, i.e. once per jar and class loader. A jar that is
+    // replaced and loaded by a new class loader is stamped again
+    private static final Map<ProtectionDomain, Long> ArchiveStamps
+            = Collections.synchronizedMap(new WeakHashMap<ProtectionDomain, Long>());
+
+    // the code sources that are class directories, the stamp of their classes is the stamp of the class file
+    private static final Set<Path> ClassDirectories = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+    private final Path file;
+
+    // the content of the index file, null if there is no usable index file
+    private final ByteBuffer content;
+
+    // the offsets of all entries in the index file by the name of their listener class
+    private final Map<String, Integer> offsets;
+
+    // all entries that have been recorded since the index was opened
+    private final ConcurrentHashMap<String, byte[]> entries = new ConcurrentHashMap<String, byte[]>();
+
+    // names of the classes whose entry in the index file has been validated (or which can not be indexed)
+    private final Set<String> validated = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private final LongAdder hits = new LongAdder();
+
+    private volatile boolean modified = false;
+
+    private MetadataIndex(Path file, ByteBuffer content, Map<String, Integer> offsets) {
+        this.file = file;
+        this.content = content;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Open the index stored in the given file. If the file does not exist or can not be read, an empty index is returned
+     * which will be written to the given file with the next {@link #save()}.
+     */
+    public static MetadataIndex open(Path file) {
+        if (Files.isRegularFile(file)) {
+            try {
+                // the file is not kept open (or mapped) such that save() can replace it
+                ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+                return new MetadataIndex(file, content, readOffsets(content));
+            } catch (IOException | RuntimeException e) {
+                // a corrupted or incompatible index is ignored, it will be replaced with the next save
+            }
+        }
+        return new MetadataIndex(file, null, new HashMap<String, Integer>());
+    }
+
+    // entry layout: int length, string class name, long stamp, int dependency count, string per dependency,
+    // int handler count, 4 strings per handler
+    private static Map<String, Integer> readOffsets(ByteBuffer content) {
+        ByteBuffer buffer = content.duplicate();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalStateException("Unknown index format");
+        }
+        int count = readLength(buffer, 8); // an entry has at least a length and a name
+        Map<String, Integer> offsets = new HashMap<String, Integer>(count * 2);
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.position();
+            int length = readLength(buffer, 1);
+            offsets.put(readString(buffer), offset);
+            buffer.position(offset + 4 + length);
+        }
+        return offsets;
+    }
+
+    /**
+     * Get the handler methods of the given listener class if the class is known and has not changed since it was indexed.
+     *
+     * @return Pairs of the annotated handler method and the method that implements it (which might be an overriding method),
+     * or null if the class needs to be scanned
+     */
+    Method[][] lookup(Class<?> listener) {
+        String name = listener.getName();
+        byte[] entry = entries.get(name);
+        ByteBuffer buffer;
+        if (entry != null) {
+            buffer = ByteBuffer.wrap(entry);
+        } else {
+            Integer offset = offsets.get(name);
+            if (offset == null) {
+                return null;
+            }
+            buffer = content.duplicate();
+            buffer.position(offset + 4);
+        }
+        try {
+            readString(buffer); // the class name
+            long stamp = buffer.getLong();
+            Class<?>[] dependencies = new Class<?>[readLength(buffer, 4)];
+            for (int i = 0; i < dependencies.length; i++) {
+                dependencies[i] = resolve(listener, readString(buffer));
+            }
+            if (stamp != stampOf(dependencies)) {
+                return null; // a class has changed
+            }
+            Method[][] handlers = new Method[readLength(buffer, 16)][];
+            for (int i = 0; i < handlers.length; i++) {
+                Class<?> annotatedClass = findInHierarchy(listener, readString(buffer));
+                String methodName = readString(buffer);
+                Class<?> parameterType = Class.forName(readString(buffer), false, annotatedClass.getClassLoader());
+                Class<?> implementationClass = findInHierarchy(listener, readString(buffer));
+                Method annotated = annotatedClass.getDeclaredMethod(methodName, parameterType);
+                handlers[i] = new Method[]{annotated, implementationClass == annotatedClass
+                        ? annotated : implementationClass.getDeclaredMethod(methodName, parameterType)};
+            }
+            validated.add(name);
+            hits.increment();
+            return handlers;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null; // the class hierarchy has changed in an incompatible way
+        }
+    }
+
+    /**
+     * Record the handlers of the given listener class unless they are already known to be part of the index.
+     */
+    void recordIfAbsent(Class<?> listener, Method[][] handlers) {
+        String name = listener.getName();
+        if (!validated.contains(name) && !entries.containsKey(name)) {
+            record(listener, handlers);
+        }
+    }
+
+    /**
+     * Record the result of a scan of the given listener class.
+     */
+    private void record(Class<?> listener, Method[][] handlers) {
+        Class<?>[] dependencies = dependenciesOf(listener);
+        long stamp = stampOf(dependencies);
+        if (stamp == 0) {
+            validated.add(listener.getName()); // a class file is not available, e.g. for generated classes
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeString(out, listener.getName());
+            out.writeLong(stamp);
+            out.writeInt(dependencies.length);
+            for (Class<?> dependency : dependencies) {
+                writeString(out, dependency.getName());
+            }
+            out.writeInt(handlers.length);
+            for (Method[] handler : handlers) {
+                writeString(out, handler[0].getDeclaringClass().getName());
+                writeString(out, handler[0].getName());
+                writeString(out, handler[0].getParameterTypes()[0].getName());
+                writeString(out, handler[1].getDeclaringClass().getName());
+            }
+            out.flush();
+            entries.put(listener.getName(), bytes.toByteArray());
+            modified = true;
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // can not happen with an in-memory stream
+        }
+    }
+
+    /**
+     * Write the index to its file if any listener class has been scanned since the index was opened.
+     * Entries of the previous index file are retained unless their class has been scanned again.
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        // cleared before the entries are copied, such that entries recorded while saving mark the index as modified
+        modified = false;
+        boolean saved = false;
+        try {
+            Map<String, byte[]> content = new HashMap<String, byte[]>();
+            for (Map.Entry<String, Integer> offset : offsets.entrySet()) {
+                content.put(offset.getKey(), copyEntry(offset.getValue()));
+            }
+            content.putAll(entries);
+
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(content.size());
+                for (byte[] entry : content.values()) {
+                    out.writeInt(entry.length);
+                    out.write(entry);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saved = true;
+        } finally {
+            if (!saved) {
+                modified = true; // the next save tries again
+            }
+        }
+    }
+
+    /**
+     * Get the number of listener classes whose handlers have been taken from this index instead of being scanned
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of listener classes in this index
+     */
+    public int size() {
+        int size = offsets.size();
+        for (String name : entries.keySet()) {
+            if (!offsets.containsKey(name)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private byte[] copyEntry(int offset) {
+        ByteBuffer buffer = content.duplicate();
+        buffer.position(offset);
+        byte[] entry = new byte[readLength(buffer, 1)];
+        buffer.get(entry);
+        return entry;
+    }
+
+    // the classes the handlers of a listener depend on: the listener, its super classes and interfaces and the
+    // annotation types of their methods including meta-annotations. Classes of the bootstrap class loader never change
+    static Class<?>[] dependenciesOf(Class<?> listener) {
+        Set<Class<?>> dependencies = new LinkedHashSet<Class<?>>();
+        Deque<Class<?>> pending = new ArrayDeque<Class<?>>();
+        pending.add(listener);
+        while (!pending.isEmpty()) {
+            Class<?> type = pending.poll();
+            if (type.getClassLoader() == null || !dependencies.add(type)) {
+                continue;
+            }
+            if (type.getSuperclass() != null) {
+                pending.add(type.getSuperclass());
+            }
+            Collections.addAll(pending, type.getInterfaces());
+            if (type.isAnnotation()) {
+                for (Annotation meta : type.getDeclaredAnnotations()) {
+                    pending.add(meta.annotationType());
+                }
+            } else {
+                for (Method method : type.getDeclaredMethods()) {
+                    for (Annotation annotation : method.getDeclaredAnnotations()) {
+                        pending.add(annotation.annotationType());
+                    }
+                }
+            }
+        }
+        return dependencies.toArray(new Class<?>[dependencies.size()]);
+    }
+
+    // the combined stamp of the given classes, 0 if the code source of any of them is unknown
+    static long stampOf(Class<?>[] classes) {
+        long stamp = 17;
+        for (Class<?> type : classes) {
+            long classStamp = ClassStamps.get(type);
+            if (classStamp == 0) {
+                return 0;
+            }
+            stamp = 31 * (31 * stamp + type.getName().hashCode()) + classStamp;
+        }
+        return stamp != 0 ? stamp : 1;
+    }
+
+    // the stamp of the class file of the given class or of the jar containing it, 0 if it is unknown
+    private static long stampOf(Class<?> type) {
+        try {
+            ProtectionDomain domain = type.getProtectionDomain();
+            CodeSource source = domain != null ? domain.getCodeSource() : null;
+            if (source == null || source.getLocation() == null) {
+                return 0;
+            }
+            Long stamp = ArchiveStamps.get(domain);
+            if (stamp != null) {
+                return stamp;
+            }
+            Path location = Paths.get(source.getLocation().toURI());
+            if (ClassDirectories.contains(location) || Files.isDirectory(location)) {
+                ClassDirectories.add(location);
+                return stampOf(location.resolve(type.getName().replace('.', '/') + ".class"));
+            }
+            stamp = stampOf(location);
+            ArchiveStamps.put(domain, stamp);
+            return stamp;
+        } catch (URISyntaxException | FileSystemNotFoundException | IllegalArgumentException | SecurityException e) {
+            return 0; // not a file on disk
+        }
+    }
+
+    private static long stampOf(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long stamp = 31 * attributes.size() + attributes.lastModifiedTime().toMillis();
+            return stamp != 0 ? stamp : 1;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // the classes of the hierarchy of the listener are resolved without the class loader
+    private static Class<?> resolve(Class<?> listener, String name) throws ClassNotFoundException {
+        for (Class<?> current = listener; current != null; current = current.getSuperclass()) {
+            if (current.getName().equals(name)) {
+                return current;
+            }
+        }
+        return Class.forName(name, false, listener.getClassLoader());
+    }
+
+    private static Class<?> findInHierarchy(Class<?> listener, String name) throws ClassNotFoundException {
+        for (Class<?> current = listener; current != null; current = current.getSuperclass()) {
+            if (current.getName().equals(name)) {
+                return current;
+            }
+        }
+        throw new ClassNotFoundException(name);
+    }
+
+    // a length or count of elements with the given minimum size, checked against the remaining content such that
+    // a corrupted index can not cause huge allocations
+    private static int readLength(ByteBuffer buffer, int minimumElementSize) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / minimumElementSize) {
+            throw new IllegalStateException("Corrupted index");
+        }
+        return length;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readLength(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,276 @@
+package net.engio.mbassy.listener;
+
+import net.engio.mbassy.common.IPredicate;
+import net.engio.mbassy.common.ReflectionUtils;
+import net.engio.mbassy.dispatch.condition.LazyConditionFilter;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The meta data reader is responsible for parsing and validating message handler configurations.
+ *
+ * @author bennidi
+ *         Date: 11/16/12
+ */
+public class MetadataReader {
+
+    //  This predicate is used to find all message listeners (methods annotated with @Handler)
+    private static final IPredicate<Method> AllMessageHandlers = new IPredicate<Method>() {
+        @Override
+        public boolean apply(Method target) {
+            return ReflectionUtils.getAnnotation(target, Handler.class) != null;
+        }
+    };
+
+    // Filter instances and listener metadata only depend on their class. They are shared by all readers (and thereby all buses)
+    // and are attached to the class itself such that the cache never prevents a class loader from being unloaded
+
+    private static final ClassValue<IMessageFilter> FilterCache = new ClassValue<IMessageFilter>() {
+        @Override
+        protected IMessageFilter computeValue(Class<?> filterType) {
+            try {
+                return (IMessageFilter) filterType.newInstance();
+            } catch (Exception e) {
+                throw new RuntimeException(e);// propagate as runtime exception
+            }
+        }
+    };
+
+    private static final ClassValue<ResolvedListener> ListenerCache = new ClassValue<ResolvedListener>() {
+        @Override
+        protected ResolvedListener computeValue(Class<?> listenerType) {
+            return new ResolvedListener();
+        }
+    };
+
+    // handlers visible in a class as pairs of the deepest annotated method and the method that implements it
+    // (including disabled and invalid ones since they still hide the handlers they override)
+    private static final ClassValue<Method[][]> VisibleHandlerCache = new ClassValue<Method[][]>() {
+        @Override
+        protected Method[][] computeValue(Class<?> type) {
+            return findVisibleHandlers(type);
+        }
+    };
+
+    // handler metadata by implementing method, attached to the class declaring it
+    private static final ClassValue<ConcurrentMap<Method, MessageHandler>> DeclaredHandlerCache = new ClassValue<ConcurrentMap<Method, MessageHandler>>() {
+        @Override
+        protected ConcurrentMap<Method, MessageHandler> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Method, MessageHandler>(4);
+        }
+    };
+
+    // holds the metadata of a listener class once it has been read
+    private static final class ResolvedListener {
+
+        private volatile MessageListener listener;
+
+        // pairs of annotated handler method and implementing method
+        private Method[][] handlers;
+    }
+
+    // retrieve all instances of filters associated with the given subscription
+    private IMessageFilter[] getFilter(Handler subscription) {
+        if (subscription.filters().length == 0) {
+            return null;
+        }
+        IMessageFilter[] filters = new IMessageFilter[subscription.filters().length];
+        int i = 0;
+        for (Filter filterDef : subscription.filters()) {
+            filters[i] = FilterCache.get(filterDef.value());
+            i++;
+        }
+        return filters;
+    }
+
+    // optional index of previously scanned listener classes
+    private final MetadataIndex index;
+
+    public MetadataReader() {
+        this(null);
+    }
+
+    /**
+     * Create a reader that uses the given index to avoid scanning known listener classes
+     */
+    public MetadataReader(MetadataIndex index) {
+        this.index = index;
+    }
+
+    // compiles handler conditions in the background when a listener class is read (opt-in)
+    private volatile Executor conditionPrecompiler;
+
+    /**
+     * Compile the conditions of handlers in the background using the given executor instead of while their listener
+     * class is read. An invalid condition then no longer fails the subscription, the error is reported to the executor
+     * and thrown whenever the handler is filtered. Pass null to compile conditions while the listener class is read
+     * (the default).
+     */
+    public MetadataReader setConditionPrecompiler(Executor conditionPrecompiler) {
+        this.conditionPrecompiler = conditionPrecompiler;
+        return this;
+    }
+
+    // get all listeners defined by the given class (includes
+    // listeners defined in super classes)
+    // the metadata of each class is read only once, concurrent requests for the same class wait for the first one
+    public MessageListener getMessageListener(Class target) {
+        ResolvedListener resolved = ListenerCache.get(target);
+        MessageListener listener = resolved.listener;
+        if (listener == null) {
+            synchronized (resolved) {
+                listener = resolved.listener;
+                if (listener == null) {
+                    Method[][] handlers = index != null ? index.lookup(target) : null;
+                    if (handlers == null) {
+                        handlers = findHandlers(target);
+                    }
+                    listener = readMessageListener(target, handlers);
+                    resolved.handlers = handlers;
+                    resolved.listener = listener;
+                }
+            }
+        }
+        if (index != null) {
+            index.recordIfAbsent(target, resolved.handlers);
+        }
+        return listener;
+    }
+
+    private MessageListener readMessageListener(Class target, Method[][] handlers) {
+        MessageListener listenerMetadata = new MessageListener(target);
+        for (Method[] handler : handlers) {
+            listenerMetadata.addHandler(getHandlerTemplate(handler).forListener(listenerMetadata));
+        }
+        return listenerMetadata;
+    }
+
+    // the handler metadata of an implementing method is resolved only once and shared by all listener classes inheriting it
+    private MessageHandler getHandlerTemplate(Method[] handler) {
+        Map<Method, MessageHandler> declared = DeclaredHandlerCache.get(handler[1].getDeclaringClass());
+        MessageHandler template = declared.get(handler[1]);
+        Executor precompiler = conditionPrecompiler;
+        if (template == null) {
+            Handler handlerConfig = ReflectionUtils.getAnnotation(handler[0], Handler.class);
+            template = MessageHandler.Builder.Create(handler[1],
+                                                     handlerConfig,
+                                                     getFilter(handlerConfig),
+                                                     new MessageListener(handler[1].getDeclaringClass()))
+                                             .build();
+            MessageHandler existing = declared.putIfAbsent(handler[1], template);
+            if (existing != null) {
+                template = existing;
+            } else if (precompiler != null) {
+                precompileConditions(template, precompiler);
+            }
+        }
+        // the template may have been created by a reader that compiles in the background, compiling again is a no-op
+        if (precompiler == null) {
+            compileConditions(template);
+        }
+        return template;
+    }
+
+    private void compileConditions(MessageHandler handler) {
+        for (IMessageFilter filter : handler.getFilter()) {
+            if (filter instanceof LazyConditionFilter) {
+                ((LazyConditionFilter) filter).compile();
+            }
+        }
+    }
+
+    private void precompileConditions(MessageHandler handler, Executor executor) {
+        for (IMessageFilter filter : handler.getFilter()) {
+            if (filter instanceof LazyConditionFilter) {
+                ((LazyConditionFilter) filter).precompile(executor);
+            }
+        }
+    }
+
+    // find all enabled handlers of the given class as pairs of the annotated method and the method that implements it
+    private Method[][] findHandlers(Class target) {
+        Method[][] visibleHandlers = VisibleHandlerCache.get(target);
+        List<Method[]> handlers = new ArrayList<Method[]>(visibleHandlers.length);
+        for (Method[] handler : visibleHandlers) {
+            Handler handlerConfig = ReflectionUtils.getAnnotation(handler[0], Handler.class);
+            if (!handlerConfig.enabled() || !isValidMessageHandler(handler[0])) {
+                continue; // disabled or invalid listeners are ignored
+            }
+            handlers.add(handler);
+        }
+        return handlers.toArray(new Method[handlers.size()][]);
+    }
+
+    // the handlers visible in a class are derived from the ones of its super class such that a hierarchy
+    // is scanned only once, no matter how many listener classes extend it
+    private static Method[][] findVisibleHandlers(Class<?> target) {
+        Class<?> superClass = target.getSuperclass();
+        Method[][] inherited = superClass == null ? new Method[0][] : VisibleHandlerCache.get(superClass);
+        List<Method> declaredHandlers = new ArrayList<Method>();
+        try {
+            for (Method method : target.getDeclaredMethods()) {
+                if (AllMessageHandlers.apply(method)) {
+                    declaredHandlers.add(method);
+                }
+            }
+        } catch (Exception e) {
+            // class can not be inspected, e.g. because of missing dependencies
+        }
+        Method[] declared = declaredHandlers.toArray(new Method[declaredHandlers.size()]);
+        if (declared.length == 0 && !declaresAny(target, inherited)) {
+            return inherited;
+        }
+        List<Method[]> handlers = new ArrayList<Method[]>(declared.length + inherited.length);
+        for (Method handler : declared) {
+            handlers.add(new Method[]{handler, handler});
+        }
+        for (Method[] handler : inherited) {
+            // only the deepest annotated method of a hierarchy is considered
+            if (ReflectionUtils.containsOverridingMethod(declared, handler[0])) {
+                continue;
+            }
+            // a method overriding a handler without @Handler inherits the configuration of the overridden method
+            Method overridingMethod = getDeclaredMethod(target, handler[0]);
+            handlers.add(new Method[]{handler[0], overridingMethod == null ? handler[1] : overridingMethod});
+        }
+        return handlers.toArray(new Method[handlers.size()][]);
+    }
+
+    private static boolean declaresAny(Class<?> target, Method[][] handlers) {
+        for (Method[] handler : handlers) {
+            if (getDeclaredMethod(target, handler[0]) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method getDeclaredMethod(Class<?> target, Method overridden) {
+        try {
+            return target.getDeclaredMethod(overridden.getName(), overridden.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Exception e) {
+            return null; // class can not be inspected
+        }
+    }
+
+    private boolean isValidMessageHandler(Method handler) {
+        if (handler == null || ReflectionUtils.getAnnotation( handler, Handler.class) == null) {
+            return false;
+        }
+        if (handler.getParameterTypes().length != 1) {
+            // a messageHandler only defines one parameter (the message)
+            System.out.println("Found no or more than one parameter in messageHandler [" + handler.getName()
+                    + "]. A messageHandler must define exactly one parameter");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+package net.engio.mbassy.subscription;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
+import net.engio.mbassy.dispatch.AdaptiveFilteredMessageDispatcher;
+import net.engio.mbassy.dispatch.IMessageDispatcher;
+import net.engio.mbassy.listener.Cancellable;
+
+import java.util.Comparator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A subscription is a thread-safe container that manages exactly one message handler of all registered
+ * message listeners of the same class, i.e. all subscribed instances (excluding subclasses) of a SingleMessageHandler.class
+ * will be referenced in the subscription created for SingleMessageHandler.class.
+ *
+ * There will be as many unique subscription objects per message listener class as there are message handlers
+ * defined in the message listeners class hierarchy.
+ *
+ * The subscription provides functionality for message publication by means of delegation to the respective
+ * message dispatcher.
+ *
+ * Since there might be a lot of subscriptions, each one only holds the state that is not shared with other subscriptions:
+ * its listeners and the dispatcher chain (which also provides access to the subscription context).
+ */
+public class Subscription {
+
+    // provides a stable order of subscriptions with equal priority
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private final long id = sequence.incrementAndGet();
+
+    protected final AbstractCopyOnWriteSet<Object> listeners;
+
+    private final IMessageDispatcher dispatcher;
+
+    // created with the first callback, most subscriptions never have one
+    private volatile CopyOnWriteArrayList<Runnable> onSubscription;
+
+
+    // skip cancelled messages without calling the dispatcher
+    private final boolean ignoresCancelled;
+
+
+    Subscription(IMessageDispatcher dispatcher, AbstractCopyOnWriteSet<Object> listeners) {
+        this.dispatcher = dispatcher;
+        this.listeners = listeners;
+        this.ignoresCancelled = dispatcher.getContext().getHandler().isIgnoreCancelled();
+    }
+
+    /**
+     * Check whether this subscription manages a message handler of the given listener class.
+     */
+    public boolean belongsTo(Class listener){
+        return dispatcher.getContext().getHandler().isFromListener(listener);
+    }
+
+    /**
+     * Check whether this subscriptions manages the given listener instance.
+     */
+    public boolean contains(Object listener){
+        return listeners.contains(listener);
+    }
+
+    /**
+     * Check whether this subscription manages a specific message type.
+     */
+    public boolean handlesMessageType(Class<?> messageType) {
+        return dispatcher.getContext().getHandler().handlesMessage(messageType);
+    }
+
+    public Class<?> getHandledMessageType(){
+        return dispatcher.getContext().getHandler().getHandledMessage();
+    }
+
+
+    public void publish(MessagePublication publication, Object message){
+        if (ignoresCancelled && message instanceof Cancellable && ((Cancellable) message).isCancelled())
+            return;
+        if(!listeners.isEmpty()) {
+            Object event = FlightRecorderEvents.beginDispatch();
+            try {
+                dispatcher.dispatch(publication, message, listeners);
+            } finally {
+                FlightRecorderEvents.endDispatch(event, message, dispatcher.getContext().getHandler());
+            }
+        }
+    }
+
+    /**
+     * Check whether this subscription ignores messages that have been cancelled, see {@link Cancellable}
+     */
+    public boolean ignoresCancelled() {
+        return ignoresCancelled;
+    }
+
+    public int getPriority() {
+        return dispatcher.getContext().getHandler().getPriority();
+    }
+
+
+    public void subscribe(Object o) {
+        listeners.add(o);
+        CopyOnWriteArrayList<Runnable> callbacks = onSubscription;
+        if(callbacks != null){
+            for(Runnable callback : callbacks){
+                callback.run();
+            }
+        }
+    }
+
+    public boolean unsubscribe(Object existingListener) {
+        return listeners.remove(existingListener);
+    }
+
+    public int size() {
+        return listeners.size();
+    }
+
+    /**
+     * Get the number of weakly referenced listeners that have been garbage collected and were removed
+     * from this subscription in the background.
+     */
+    public long getCollectedListeners() {
+        return listeners.getCollectedCount();
+    }
+
+
+    /**
+     * The dispatcher that orders the filters of the handler by their observed cost and selectivity or null if
+     * the filters are evaluated in declaration order, see
+     * {@link net.engio.mbassy.bus.config.IBusConfiguration.Properties#AdaptiveFilterOrdering}
+     */
+    public AdaptiveFilteredMessageDispatcher getAdaptiveFilters() {
+        return dispatcher instanceof AdaptiveFilteredMessageDispatcher
+                ? (AdaptiveFilteredMessageDispatcher) dispatcher
+                : null;
+    }
+
+    public Handle getHandle(){
+        return new Handle();
+    }
+
+    public static final Comparator<Subscription> SubscriptionByPriorityDesc = new Comparator<Subscription>() {
+        @Override
+        public int compare(Subscription o1, Subscription o2) {
+            int byPriority = ((Integer)o2.getPriority()).compareTo(o1.getPriority());
+            return byPriority == 0 ? Long.compare(o2.id, o1.id) : byPriority;
+        }
+    };
+
+
+    /**
+     *  A handle exposes specific functionality of a subscription to be used by clients.
+     *
+     */
+    public class Handle {
+
+        /**
+         * Add a runnable that is invoked after a new listener is subscribed to the corresponding subscription.
+         * The runnable does not receive any information on the event to prevent clients from untroducing coupling
+         * between senders/receivers.
+         *
+         * @param handler The code to be run after each subscription
+         */
+        void onSubscription(Runnable handler){
+            synchronized (Subscription.this) {
+                if (onSubscription == null) {
+                    onSubscription = new CopyOnWriteArrayList<Runnable>();
+                }
+            }
+            onSubscription.add(handler);
+        }
+
+    }
+
+
+}
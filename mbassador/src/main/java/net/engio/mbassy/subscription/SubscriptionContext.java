@@ -4,6 +4,8 @@ import net.engio.mbassy.bus.BusRuntime;
 import net.engio.mbassy.bus.common.RuntimeProvider;
 import net.engio.mbassy.bus.error.IPublicationErrorHandler;
 import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.bus.metrics.IHandlerMetrics;
 import net.engio.mbassy.listener.MessageHandler;
 
 import java.util.Collection;
@@ -27,11 +29,20 @@ public class SubscriptionContext implements RuntimeProvider {
 
     private final BusRuntime runtime;
 
+    // null if the bus does not record metrics
+    private final IHandlerMetrics metrics;
+
     public SubscriptionContext(final BusRuntime runtime, final MessageHandler handler,
                                final Collection<IPublicationErrorHandler> errorHandlers) {
+        this(runtime, handler, errorHandlers, null);
+    }
+
+    public SubscriptionContext(final BusRuntime runtime, final MessageHandler handler,
+                               final Collection<IPublicationErrorHandler> errorHandlers, final IHandlerMetrics metrics) {
         this.runtime = runtime;
         this.handler = handler;
         this.errorHandlers = errorHandlers;
+        this.metrics = metrics;
     }
 
     /**
@@ -49,12 +60,23 @@ public class SubscriptionContext implements RuntimeProvider {
         return errorHandlers;
     }
 
+    /**
+     * Get the metrics of the handler, null if the bus does not record metrics
+     */
+    public IHandlerMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public BusRuntime getRuntime() {
         return runtime;
     }
 
     public final void handleError(PublicationError error){
+        FlightRecorderEvents.error(error);
+        if (metrics != null) {
+            metrics.failed(error);
+        }
         for (IPublicationErrorHandler errorHandler : errorHandlers) {
             errorHandler.handleError(error);
         }
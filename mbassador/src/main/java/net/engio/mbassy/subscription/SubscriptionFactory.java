@@ -4,8 +4,10 @@ import net.engio.mbassy.bus.BusRuntime;
 import net.engio.mbassy.bus.config.IBusConfiguration;
 import net.engio.mbassy.bus.error.IPublicationErrorHandler;
 import net.engio.mbassy.bus.error.MessageBusException;
-import net.engio.mbassy.common.StrongConcurrentSet;
-import net.engio.mbassy.common.WeakConcurrentSet;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.bus.metrics.IMessageMetrics;
+import net.engio.mbassy.common.StrongCopyOnWriteSet;
+import net.engio.mbassy.common.WeakCopyOnWriteSet;
 import net.engio.mbassy.dispatch.*;
 import net.engio.mbassy.listener.MessageHandler;
 
@@ -22,12 +24,16 @@ public class SubscriptionFactory {
     public Subscription createSubscription(BusRuntime runtime, MessageHandler handlerMetadata) throws MessageBusException{
         try {
             Collection<IPublicationErrorHandler> errorHandlers = runtime.get(IBusConfiguration.Properties.PublicationErrorHandlers);
-            SubscriptionContext context = new SubscriptionContext(runtime, handlerMetadata, errorHandlers);
+            IMessageMetrics metrics = runtime.contains(IBusConfiguration.Properties.Metrics)
+                    ? runtime.<IMessageMetrics>get(IBusConfiguration.Properties.Metrics)
+                    : null;
+            SubscriptionContext context = new SubscriptionContext(runtime, handlerMetadata, errorHandlers,
+                    metrics != null ? metrics.forHandler(handlerMetadata) : null);
             IHandlerInvocation invocation = buildInvocationForHandler(context);
             IMessageDispatcher dispatcher = buildDispatcher(context, invocation);
-            return new Subscription(context, dispatcher, handlerMetadata.useStrongReferences()
-                ? new StrongConcurrentSet<Object>()
-                : new WeakConcurrentSet<Object>());
+            return new Subscription(dispatcher, handlerMetadata.useStrongReferences()
+                ? new StrongCopyOnWriteSet<Object>()
+                : new WeakCopyOnWriteSet<Object>());
         } catch (MessageBusException e) {
             throw e;
         } catch (Exception e) {
@@ -40,6 +46,14 @@ public class SubscriptionFactory {
         if(context.getHandler().isSynchronized()){
             invocation = new SynchronizedHandlerInvocation(invocation);
         }
+        // measured in the thread that invokes the handler, including the wait for the lock of synchronized handlers
+        if (context.getMetrics() != null) {
+            invocation = new MeasuredHandlerInvocation(invocation, context.getMetrics());
+        }
+        // invocation events are only created while a flight recording is running (Java 11 and later)
+        if (FlightRecorderEvents.isSupported()) {
+            invocation = new RecordedHandlerInvocation(invocation);
+        }
         if (context.getHandler().isAsynchronous()) {
             invocation = new AsynchronousHandlerInvocation(invocation);
         }
@@ -49,11 +63,21 @@ public class SubscriptionFactory {
     protected IMessageDispatcher buildDispatcher(SubscriptionContext context, IHandlerInvocation invocation) throws MessageBusException {
         IMessageDispatcher dispatcher = new MessageDispatcher(context, invocation);
         if (context.getHandler().isFiltered()) {
-            dispatcher = new FilteredMessageDispatcher(dispatcher);
+            dispatcher = useAdaptiveFilterOrdering(context)
+                    ? new AdaptiveFilteredMessageDispatcher(dispatcher)
+                    : new FilteredMessageDispatcher(dispatcher);
         }
         return dispatcher;
     }
 
+    // the order only matters if there is more than one filter
+    private boolean useAdaptiveFilterOrdering(SubscriptionContext context) {
+        BusRuntime runtime = context.getRuntime();
+        return context.getHandler().getFilter().length > 1
+                && runtime.contains(IBusConfiguration.Properties.AdaptiveFilterOrdering)
+                && Boolean.TRUE.equals(runtime.get(IBusConfiguration.Properties.AdaptiveFilterOrdering));
+    }
+
     protected IHandlerInvocation createBaseHandlerInvocation(SubscriptionContext context) throws MessageBusException {
         Class<? extends HandlerInvocation> invocation = context.getHandler().getHandlerInvocation();
         if(invocation.isMemberClass() && !Modifier.isStatic(invocation.getModifiers())){
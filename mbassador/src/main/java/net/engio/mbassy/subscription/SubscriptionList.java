@@ -0,0 +1,79 @@
+package net.engio.mbassy.subscription;
+
+import net.engio.mbassy.bus.MessagePublication;
+import net.engio.mbassy.listener.Cancellable;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * The subscriptions that receive a message type in the order of their dispatch. If the message type is {@link Cancellable},
+ * the list contains a skip table such that the publication of a cancelled message jumps directly to the next
+ * subscription that still receives cancelled messages, instead of visiting all subscriptions that ignore them.
+ *
+ * The list is immutable.
+ */
+public final class SubscriptionList extends AbstractList<Subscription> implements RandomAccess {
+
+    private final Subscription[] subscriptions;
+
+    // for each position, the position of the first subscription at or after it that receives cancelled messages
+    // (null if no subscription ignores cancelled messages)
+    private final int[] receivingCancelled;
+
+    public SubscriptionList(Collection<Subscription> subscriptions, Class<?> messageType) {
+        this.subscriptions = subscriptions.toArray(new Subscription[subscriptions.size()]);
+        this.receivingCancelled = Cancellable.class.isAssignableFrom(messageType) ? createSkipTable(this.subscriptions) : null;
+    }
+
+    private static int[] createSkipTable(Subscription[] subscriptions) {
+        int[] skipTable = new int[subscriptions.length];
+        boolean ignoresCancelled = false;
+        int next = subscriptions.length;
+        for (int i = subscriptions.length - 1; i >= 0; i--) {
+            if (subscriptions[i].ignoresCancelled()) {
+                ignoresCancelled = true;
+            } else {
+                next = i;
+            }
+            skipTable[i] = next;
+        }
+        return ignoresCancelled ? skipTable : null;
+    }
+
+    /**
+     * Publish the given message to all subscriptions, skipping those that ignore cancelled messages
+     * as soon as the message has been cancelled (a handler may also revoke the cancellation).
+     */
+    public void publish(MessagePublication publication, Object message) {
+        final Subscription[] subscriptions = this.subscriptions;
+        final int[] skipTable = this.receivingCancelled;
+        if (skipTable == null) {
+            for (Subscription subscription : subscriptions) {
+                subscription.publish(publication, message);
+            }
+            return;
+        }
+        Cancellable cancellable = (Cancellable) message;
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (cancellable.isCancelled()) {
+                i = skipTable[i];
+                if (i == subscriptions.length) {
+                    return;
+                }
+            }
+            subscriptions[i].publish(publication, message);
+        }
+    }
+
+    @Override
+    public Subscription get(int index) {
+        return subscriptions[index];
+    }
+
+    @Override
+    public int size() {
+        return subscriptions.length;
+    }
+}
@@ -1,13 +1,17 @@
 package net.engio.mbassy.subscription;
 
 import net.engio.mbassy.bus.BusRuntime;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.common.LockStatistics;
 import net.engio.mbassy.common.ReflectionUtils;
 import net.engio.mbassy.common.StrongConcurrentSet;
+import net.engio.mbassy.dispatch.AdaptiveFilteredMessageDispatcher;
 import net.engio.mbassy.listener.MessageHandler;
 import net.engio.mbassy.listener.MetadataReader;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -46,12 +50,19 @@ public class SubscriptionManager {
 
     // Synchronize read/write access to the subscription maps
     private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final LockStatistics lockStatistics = new LockStatistics();
 
     private final BusRuntime runtime;
 
     // cached TreeSet, cleared on each register
     private final Map<Class<?>, Collection<Subscription>> subscriptionByMessageTypeCache = new ConcurrentHashMap<>(200);
 
+    // number of cached subscription lists built since creation and number of times the cache was cleared
+    private final LongAdder cacheRebuilds = new LongAdder();
+    private final LongAdder cacheInvalidations = new LongAdder();
+    // number of lookups answered by the cache, only counted if the bus registers an MBean (null otherwise)
+    private final LongAdder cacheHits;
+
     public SubscriptionManager(MetadataReader metadataReader, SubscriptionFactory subscriptionFactory, BusRuntime runtime) {
         this.metadataReader = metadataReader;
         this.subscriptionFactory = subscriptionFactory;
@@ -59,6 +70,9 @@ public class SubscriptionManager {
 
         subscriptionsPerMessage = new HashMap<Class, ArrayList<Subscription>>(256);
         subscriptionsPerListener = new HashMap<Class, Subscription[]>(256);
+        boolean jmx = runtime.contains(IBusConfiguration.Properties.Jmx)
+                && runtime.<Boolean>get(IBusConfiguration.Properties.Jmx);
+        this.cacheHits = jmx ? new LongAdder() : null;
     }
 
 
@@ -75,7 +89,7 @@ public class SubscriptionManager {
             isRemoved &= subscription.unsubscribe(listener);
         }
         if (isRemoved) {
-            subscriptionByMessageTypeCache.clear();
+            invalidateCache();
             return true;
         }
         return false;
@@ -86,7 +100,7 @@ public class SubscriptionManager {
         Subscription[] subscriptions;
         ReadLock readLock = readWriteLock.readLock();
         try {
-            readLock.lock();
+            lockStatistics.lockRead(readWriteLock);
             subscriptions = subscriptionsPerListener.get(listener.getClass());
         } finally {
             readLock.unlock();
@@ -129,7 +143,7 @@ public class SubscriptionManager {
                     sub.subscribe(listener);
                 }
             }
-            subscriptionByMessageTypeCache.clear();
+            invalidateCache();
             return true;
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -140,7 +154,7 @@ public class SubscriptionManager {
     private void subscribe(Object listener, Subscription[] subscriptions) {
         WriteLock writeLock = readWriteLock.writeLock();
         try {
-            writeLock.lock();
+            lockStatistics.lockWrite(readWriteLock);
             // Basically this is a deferred double check.
             // It's an ugly pattern but necessary because atomic upgrade from read to write lock
             // is not possible.
@@ -177,11 +191,20 @@ public class SubscriptionManager {
     // obtain the set of subscriptions for the given message type
     // Note: never returns null!
     public Collection<Subscription> getSubscriptionsByMessageType(Class messageType) {
+        // a plain lookup first, computeIfAbsent locks the bin of an existing entry on Java 8
+        Collection<Subscription> cached = subscriptionByMessageTypeCache.get(messageType);
+        if (cached != null) {
+            if (cacheHits != null) {
+                cacheHits.increment();
+            }
+            return cached;
+        }
         return subscriptionByMessageTypeCache.computeIfAbsent(messageType, msgType -> {
+            cacheRebuilds.increment();
             SortedSet<Subscription> subscriptions = new TreeSet<>(Subscription.SubscriptionByPriorityDesc);
             ReadLock readLock = readWriteLock.readLock();
             try {
-                readLock.lock();
+                lockStatistics.lockRead(readWriteLock);
 
                 Subscription subscription;
                 ArrayList<Subscription> subsPerMessage = subscriptionsPerMessage.get(msgType);
@@ -208,7 +231,115 @@ public class SubscriptionManager {
             } finally {
                 readLock.unlock();
             }
-            return new ArrayList<>(subscriptions);
+            return new SubscriptionList(subscriptions, msgType);
         });
     }
+
+    private void invalidateCache() {
+        subscriptionByMessageTypeCache.clear();
+        cacheInvalidations.increment();
+    }
+
+    /**
+     * The number of times the subscriptions of a message type were collected because they were not cached
+     */
+    public long getCacheRebuildCount() {
+        return cacheRebuilds.sum();
+    }
+
+    /**
+     * The number of lookups of the subscriptions of a message type that were answered by the cache.
+     * Only counted if the bus registers an MBean, see {@link IBusConfiguration.Properties#Jmx}, 0 otherwise.
+     */
+    public long getCacheHitCount() {
+        return cacheHits != null ? cacheHits.sum() : 0;
+    }
+
+    /**
+     * The number of message types whose subscriptions are currently cached
+     */
+    public int getCacheSize() {
+        return subscriptionByMessageTypeCache.size();
+    }
+
+    /**
+     * The number of subscriptions (i.e. message handlers of distinct listener classes) per handled message type.
+     * Subscriptions of super types are not included.
+     */
+    public Map<Class<?>, Integer> getSubscriptionCountByMessageType() {
+        Map<Class<?>, Integer> counts = new HashMap<Class<?>, Integer>();
+        ReadLock readLock = readWriteLock.readLock();
+        try {
+            lockStatistics.lockRead(readWriteLock);
+            for (Map.Entry<Class, ArrayList<Subscription>> subscriptions : subscriptionsPerMessage.entrySet()) {
+                counts.put(subscriptions.getKey(), subscriptions.getValue().size());
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * The number of subscribed listeners per listener class (excluding subclasses)
+     */
+    public Map<Class<?>, Integer> getListenerCountByClass() {
+        Map<Class<?>, Integer> counts = new HashMap<Class<?>, Integer>();
+        ReadLock readLock = readWriteLock.readLock();
+        try {
+            lockStatistics.lockRead(readWriteLock);
+            for (Map.Entry<Class, Subscription[]> subscriptions : subscriptionsPerListener.entrySet()) {
+                // every subscription of a listener class holds the same listeners
+                counts.put(subscriptions.getKey(), subscriptions.getValue()[0].size());
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * The dispatchers of all subscriptions that order their filters adaptively, by the name of their handler
+     * (listener class and method name), see {@link Subscription#getAdaptiveFilters()}
+     */
+    public Map<String, AdaptiveFilteredMessageDispatcher> getAdaptiveFilters() {
+        Map<String, AdaptiveFilteredMessageDispatcher> filters = new HashMap<String, AdaptiveFilteredMessageDispatcher>();
+        ReadLock readLock = readWriteLock.readLock();
+        try {
+            lockStatistics.lockRead(readWriteLock);
+            for (Map.Entry<Class, Subscription[]> subscriptions : subscriptionsPerListener.entrySet()) {
+                for (Subscription subscription : subscriptions.getValue()) {
+                    AdaptiveFilteredMessageDispatcher dispatcher = subscription.getAdaptiveFilters();
+                    if (dispatcher != null) {
+                        filters.put(subscriptions.getKey().getName() + "."
+                                + dispatcher.getContext().getHandler().getMethod().getName(), dispatcher);
+                    }
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return filters;
+    }
+
+    /**
+     * The number of times the cached subscriptions were discarded because a listener was subscribed or unsubscribed
+     */
+    public long getCacheInvalidationCount() {
+        return cacheInvalidations.sum();
+    }
+
+    /**
+     * The contention of the lock that guards the subscriptions per message type and per listener class
+     */
+    public LockStatistics getLockStatistics() {
+        return lockStatistics;
+    }
+
+    /**
+     * The contention of the lock that guards the set of classes without message handlers
+     */
+    public LockStatistics getNonListenerLockStatistics() {
+        return nonListeners.getLockStatistics();
+    }
 }
@@ -0,0 +1,261 @@
+package net.engio.mbassy.bus.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import net.engio.mbassy.bus.error.PublicationError;
+import net.engio.mbassy.listener.MessageHandler;
+
+import java.lang.reflect.Method;
+
+/**
+ * Emits JDK Flight Recorder events for publications, dispatches to subscriptions, handler invocations, the time
+ * asynchronous publications and handler invocations spend in their queue and publication errors.
+ * <p/>
+ * This is the implementation for Java 11 and later. An event is only created if a recording has enabled its type,
+ * otherwise each call is a single check. The duration events have a default threshold of 10 ms which can be
+ * lowered in the settings of a recording, e.g. net.engio.mbassy.Invocation#threshold=0 ms.
+ * <p/>
+ * The methods come in pairs: begin returns an event that must be passed to the corresponding end (null if the event
+ * is not recorded), which commits it with the given details.
+ */
+public final class FlightRecorderEvents {
+
+    private static final boolean Supported;
+
+    private static final EventType PublicationType;
+    private static final EventType DispatchType;
+    private static final EventType InvocationType;
+    private static final EventType QueueWaitType;
+    private static final EventType ErrorType;
+
+    static {
+        EventType[] types = null;
+        try {
+            types = new EventType[]{
+                    EventType.getEventType(PublicationEvent.class),
+                    EventType.getEventType(DispatchEvent.class),
+                    EventType.getEventType(InvocationEvent.class),
+                    EventType.getEventType(QueueWaitEvent.class),
+                    EventType.getEventType(ErrorEvent.class)};
+        } catch (LinkageError | SecurityException e) {
+            // the runtime image does not contain the jdk.jfr module
+        }
+        Supported = types != null;
+        PublicationType = Supported ? types[0] : null;
+        DispatchType = Supported ? types[1] : null;
+        InvocationType = Supported ? types[2] : null;
+        QueueWaitType = Supported ? types[3] : null;
+        ErrorType = Supported ? types[4] : null;
+    }
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * True if this runtime records the events, false for the Java 8 implementation
+     */
+    public static boolean isSupported() {
+        return Supported;
+    }
+
+    public static Object beginPublication() {
+        if (!Supported || !PublicationType.isEnabled()) {
+            return null;
+        }
+        PublicationEvent event = new PublicationEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endPublication(Object event, Object message, int subscriptions) {
+        if (event == null) {
+            return;
+        }
+        PublicationEvent publication = (PublicationEvent) event;
+        publication.end();
+        if (publication.shouldCommit()) {
+            publication.messageType = message.getClass();
+            publication.subscriptions = subscriptions;
+            publication.commit();
+        }
+    }
+
+    public static Object beginDispatch() {
+        if (!Supported || !DispatchType.isEnabled()) {
+            return null;
+        }
+        DispatchEvent event = new DispatchEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endDispatch(Object event, Object message, MessageHandler handler) {
+        if (event == null) {
+            return;
+        }
+        DispatchEvent dispatch = (DispatchEvent) event;
+        dispatch.end();
+        if (dispatch.shouldCommit()) {
+            dispatch.messageType = message.getClass();
+            dispatch.handler = nameOf(handler.getMethod());
+            dispatch.commit();
+        }
+    }
+
+    public static Object beginInvocation() {
+        if (!Supported || !InvocationType.isEnabled()) {
+            return null;
+        }
+        InvocationEvent event = new InvocationEvent();
+        event.begin();
+        return event;
+    }
+
+    public static void endInvocation(Object event, Object message, MessageHandler handler) {
+        if (event == null) {
+            return;
+        }
+        InvocationEvent invocation = (InvocationEvent) event;
+        invocation.end();
+        if (invocation.shouldCommit()) {
+            invocation.messageType = message.getClass();
+            invocation.handler = nameOf(handler.getMethod());
+            invocation.commit();
+        }
+    }
+
+    /**
+     * Begin the wait of an asynchronous publication or handler invocation in its queue
+     */
+    public static Object beginQueueWait() {
+        if (!Supported || !QueueWaitType.isEnabled()) {
+            return null;
+        }
+        QueueWaitEvent event = new QueueWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the wait in the queue when the publication or invocation starts to execute
+     *
+     * @param handler The handler of an asynchronous invocation or null for an asynchronous publication
+     */
+    public static void endQueueWait(Object event, Object message, MessageHandler handler) {
+        if (event == null) {
+            return;
+        }
+        QueueWaitEvent wait = (QueueWaitEvent) event;
+        wait.end();
+        if (wait.shouldCommit()) {
+            wait.messageType = message.getClass();
+            wait.handler = handler != null ? nameOf(handler.getMethod()) : null;
+            wait.commit();
+        }
+    }
+
+    public static void error(PublicationError error) {
+        if (!Supported || !ErrorType.isEnabled()) {
+            return;
+        }
+        ErrorEvent event = new ErrorEvent();
+        if (event.shouldCommit()) {
+            Object message = error.getPublishedMessage();
+            event.messageType = message != null ? message.getClass() : null;
+            event.handler = error.getHandler() != null ? nameOf(error.getHandler()) : null;
+            event.message = error.getMessage();
+            event.cause = error.getCause() != null ? error.getCause().getClass() : null;
+            event.commit();
+        }
+    }
+
+    private static String nameOf(Method handler) {
+        return handler.getDeclaringClass().getName() + "." + handler.getName();
+    }
+
+    @Name("net.engio.mbassy.Publication")
+    @Label("Publication")
+    @Description("Dispatch of a message to all subscriptions of its type, excluding asynchronous handlers")
+    @Category("MBassador")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class PublicationEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Subscriptions")
+        int subscriptions;
+    }
+
+    @Name("net.engio.mbassy.Dispatch")
+    @Label("Dispatch")
+    @Description("Dispatch of a message to a subscription, including its filters and all subscribed listeners")
+    @Category("MBassador")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class DispatchEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Handler")
+        String handler;
+    }
+
+    @Name("net.engio.mbassy.Invocation")
+    @Label("Handler Invocation")
+    @Description("Invocation of a message handler for a single listener")
+    @Category("MBassador")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class InvocationEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Handler")
+        String handler;
+    }
+
+    @Name("net.engio.mbassy.QueueWait")
+    @Label("Queue Wait")
+    @Description("Time between the scheduling of an asynchronous publication or handler invocation and the start of its execution")
+    @Category("MBassador")
+    @Threshold("10 ms")
+    @StackTrace(false)
+    static final class QueueWaitEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Handler")
+        @Description("The handler of an asynchronous invocation, missing for an asynchronous publication")
+        String handler;
+    }
+
+    @Name("net.engio.mbassy.PublicationError")
+    @Label("Publication Error")
+    @Description("An error that has been reported to the publication error handlers")
+    @Category("MBassador")
+    static final class ErrorEvent extends Event {
+
+        @Label("Message Type")
+        Class<?> messageType;
+
+        @Label("Handler")
+        String handler;
+
+        @Label("Message")
+        String message;
+
+        @Label("Cause")
+        Class<?> cause;
+    }
+}
@@ -15,16 +15,24 @@ import org.junit.runners.Suite;
         ConditionalHandlerTest.class,
         CustomHandlerAnnotationTest.class,
         DeadMessageTest.class,
+        ExpressionFilterTest.class,
         FilterTest.class,
+        FlightRecorderTest.class,
+        JmxTest.class,
+        ListenerFootprintTest.class,
+        MetadataIndexTest.class,
         MetadataReaderTest.class,
         MethodDispatchTest.class,
+        MetricsTest.class,
         StrongConcurrentSetTest.class,
+        StrongCopyOnWriteSetTest.class,
         SubscriptionManagerTest.class,
         SyncAsyncTest.class,
         SyncBusTest.MBassadorTest.class,
         SyncBusTest.SyncMessageBusTest.class,
         SynchronizedHandlerTest.class,
-        WeakConcurrentSetTest.class
+        WeakConcurrentSetTest.class,
+        WeakCopyOnWriteSetTest.class
 })
 public class AllTests {
 }
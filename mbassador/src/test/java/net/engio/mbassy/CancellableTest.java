@@ -4,9 +4,14 @@ import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.common.ListenerFactory;
 import net.engio.mbassy.common.MessageBusTest;
 import net.engio.mbassy.common.TestUtil;
+import net.engio.mbassy.listener.Filter;
 import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.IMessageFilter;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
 import net.engio.mbassy.messages.SubTestMessage;
 import net.engio.mbassy.messages.TestMessage;
+import net.engio.mbassy.subscription.SubscriptionContext;
 import org.junit.Test;
 
 import java.util.List;
@@ -47,6 +52,58 @@ public class CancellableTest extends MessageBusTest {
         assertEquals(0, HandleWithoutCancelledLaterConuter.get());
     }
 
+    @Test
+    public void testCancelledMessagesSkipFilters() throws Exception {
+        MBassador bus = createBus(SyncAsync());
+        bus.subscribe(new CancellingListener());
+
+        CountingFilter.evaluations.set(0);
+        TestMessage message = new TestMessage();
+        bus.post(message).now();
+        // only the cancelling handler and the one receiving cancelled messages were invoked,
+        // handlers ignoring cancelled messages were skipped, including the one of a super type
+        assertEquals(2, message.counter.get());
+        assertEquals(0, CountingFilter.evaluations.get());
+    }
+
+    @Listener(references = References.Strong)
+    public static class CancellingListener{
+        @Handler(priority = 100)
+        public void cancel(TestMessage message){
+            message.counter.incrementAndGet();
+            message.setCancelled(true);
+        }
+        @Handler(ignoreCancelled = true, priority = 90, filters = @Filter(CountingFilter.class))
+        public void filtered(TestMessage message){
+            message.counter.incrementAndGet();
+        }
+        @Handler(ignoreCancelled = true, priority = 80)
+        public void handleAny(Object message){
+            ((TestMessage) message).counter.incrementAndGet();
+        }
+        @Handler(priority = 70)
+        public void receivesCancelled(TestMessage message){
+            if (message.isCancelled()) {
+                message.counter.incrementAndGet();
+            }
+        }
+        @Handler(ignoreCancelled = true, priority = 60, filters = @Filter(CountingFilter.class))
+        public void filteredLater(TestMessage message){
+            message.counter.incrementAndGet();
+        }
+    }
+
+    public static class CountingFilter implements IMessageFilter<TestMessage>{
+
+        static final AtomicInteger evaluations = new AtomicInteger();
+
+        @Override
+        public boolean accepts(TestMessage message, SubscriptionContext context) {
+            evaluations.incrementAndGet();
+            return true;
+        }
+    }
+
     public static class FilteredMessageListener{
         @Handler(ignoreCancelled = true, priority = 100)
         public void handleWithoutCancelled(TestMessage message){
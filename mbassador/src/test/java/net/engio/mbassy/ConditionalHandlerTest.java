@@ -3,6 +3,7 @@ package net.engio.mbassy;
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.config.IBusConfiguration;
 import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.dispatch.condition.ConditionCompilers;
 import net.engio.mbassy.listener.Handler;
 import net.engio.mbassy.listener.Listener;
 import net.engio.mbassy.listener.References;
@@ -72,6 +73,31 @@ public class ConditionalHandlerTest extends MessageBusTest {
 
     }
 
+    @Test
+    public void testBuiltInExpressionLanguage(){
+        MBassador bus = createBus(SyncAsync());
+        bus.subscribe(new ConditionalMessageListener());
+
+        TestEvent message = new TestEvent("TEST", 5);
+        bus.publish(message);
+
+        assertTrue(message.wasHandledBy("handleTypeMessage", "handleSizeMessage"));
+    }
+
+    @Test
+    public void testUnsupportedConditionWithoutCompiler(){
+        // groovy support is not on the class path of the core module
+        assertTrue(ConditionCompilers.getInstalled().isEmpty());
+        try {
+            ConditionCompilers.compile("msg.size in [6, 7]", TestEvent.class);
+            fail("The condition is not supported by the expression language");
+        } catch (IllegalStateException e) {
+            // the error of the expression language is reported
+            assertTrue(e.getMessage().contains(e.getCause().getMessage()));
+            assertTrue(e.getMessage().contains("mbassador-groovy"));
+        }
+    }
+
     public static class TestEvent {
 
         private Set<String> handledBy = new HashSet<String>();
@@ -0,0 +1,318 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
+import net.engio.mbassy.common.AssertSupport;
+import net.engio.mbassy.common.ConcurrentExecutor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ensures the correct behaviour of the copy-on-write sets that hold the listeners of a subscription.
+ */
+public abstract class CopyOnWriteSetTest extends AssertSupport {
+
+    // Shared state
+    protected final int numberOfElements = 1000;
+    protected final int numberOfThreads = 20;
+
+    // needed to avoid premature garbage collection for weakly referenced listeners
+    protected Set gcProtector = new HashSet();
+
+    @Before
+    public void beforeTest(){
+        super.beforeTest();
+        gcProtector = new HashSet();
+    }
+
+    protected abstract AbstractCopyOnWriteSet createSet();
+
+    @Test
+    public void testAdd() {
+        final AbstractCopyOnWriteSet testSet = createSet();
+        final List<Object> notFound = new CopyOnWriteArrayList<Object>();
+        ConcurrentExecutor.runConcurrent(new Runnable() {
+            @Override
+            public void run() {
+                List<Object> source = new LinkedList<Object>();
+                for (int i = 0; i < numberOfElements / numberOfThreads; i++) {
+                    source.add(new Object());
+                }
+                for (Object src : source) {
+                    testSet.add(src);
+                    if(!testSet.contains(src)){
+                        notFound.add(src);
+                    }
+                }
+                synchronized (gcProtector) {
+                    gcProtector.addAll(source);
+                }
+            }
+        }, numberOfThreads);
+
+        assertEquals(0, notFound.size());
+        assertEquals(numberOfElements, testSet.size());
+    }
+
+    @Test
+    public void testUniqueness() {
+        final List<Object> duplicates = new LinkedList<Object>();
+        final Set<Object> distinct = new HashSet<Object>();
+        final AbstractCopyOnWriteSet testSet = createSet();
+        Random rand = new Random();
+
+        Object candidate = new Object();
+        for (int i = 0; i < numberOfElements; i++) {
+            if (rand.nextInt() % 3 == 0) {
+                candidate = new Object();
+            }
+            duplicates.add(candidate);
+            distinct.add(candidate);
+        }
+
+        ConcurrentExecutor.runConcurrent(new Runnable() {
+            @Override
+            public void run() {
+                for (Object src : duplicates) {
+                    testSet.add(src);
+                }
+            }
+        }, numberOfThreads);
+
+        assertEquals(distinct.size(), testSet.size());
+        for (Object uniqueObject : distinct) {
+            assertTrue(testSet.contains(uniqueObject));
+        }
+    }
+
+    @Test
+    public void testSnapshotVisibility() {
+        AbstractCopyOnWriteSet<Object> testSet = createSet();
+        Object first = new Object(), second = new Object(), third = new Object();
+        testSet.add(first);
+        testSet.add(second);
+
+        AbstractCopyOnWriteSet.Snapshot snapshot = testSet.snapshot();
+        testSet.remove(first);
+        testSet.add(third);
+
+        // additions are not visible in a snapshot that has been obtained before, removals are
+        assertEquals(2, snapshot.size);
+        assertNull(testSet.valueOf(snapshot.slots[0]));
+        assertEquals(second, testSet.valueOf(snapshot.slots[1]));
+        // the current snapshot reflects all writes in insertion order
+        assertEquals(Arrays.asList(second, third), currentElements(testSet));
+    }
+
+    @Test
+    public void testLargeSet() {
+        // writes must not degrade with the size of the set
+        AbstractCopyOnWriteSet<Integer> testSet = createSet();
+        List<Integer> elements = new ArrayList<Integer>();
+        for (int i = 0; i < 200000; i++) {
+            Integer element = i;
+            elements.add(element);
+            assertTrue(testSet.add(element));
+        }
+        gcProtector.addAll(elements);
+        assertFalse(testSet.add(elements.get(100000)));
+        assertEquals(elements.size(), testSet.size());
+        for (int i = 0; i < elements.size(); i += 2) {
+            assertTrue(testSet.remove(elements.get(i)));
+            assertFalse(testSet.remove(elements.get(i)));
+        }
+        assertEquals(elements.size() / 2, testSet.size());
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals(i % 2 == 1, testSet.contains(elements.get(i)));
+        }
+        List<Integer> remaining = currentElements(testSet);
+        assertEquals(elements.size() / 2, remaining.size());
+        for (int i = 0; i < remaining.size(); i++) {
+            assertEquals(elements.get(2 * i + 1), remaining.get(i));
+        }
+    }
+
+    @Test
+    public void testContainsWithConcurrentWrites() throws InterruptedException {
+        // large enough to be searched using the index
+        final AbstractCopyOnWriteSet<Integer> testSet = createSet();
+        final List<Integer> elements = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            elements.add(i);
+            testSet.add(elements.get(i));
+        }
+        gcProtector.addAll(elements);
+        final AtomicInteger notFound = new AtomicInteger();
+        Runnable readEvenElements = new Runnable() {
+            @Override
+            public void run() {
+                for (int round = 0; round < 1000; round++) {
+                    for (int i = 0; i < elements.size(); i += 2) {
+                        if (!testSet.contains(elements.get(i))) {
+                            notFound.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        };
+
+        // readers do not wait for a writer that holds the lock
+        Thread reader = new Thread(readEvenElements);
+        synchronized (testSet) {
+            reader.start();
+            reader.join(30000);
+            assertFalse(reader.isAlive());
+        }
+
+        // the odd elements are removed and added again (which compacts the set and rebuilds the index) while
+        // the even elements are looked up
+        reader = new Thread(readEvenElements);
+        reader.start();
+        while (reader.isAlive()) {
+            for (int i = 1; i < elements.size(); i += 2) {
+                testSet.remove(elements.get(i));
+            }
+            for (int i = 1; i < elements.size(); i += 2) {
+                testSet.add(elements.get(i));
+            }
+        }
+        assertEquals(0, notFound.get());
+        assertEquals(elements.size(), testSet.size());
+    }
+
+    // all elements of the current snapshot as a reader would see them
+    protected static <T> List<T> currentElements(AbstractCopyOnWriteSet<T> testSet) {
+        AbstractCopyOnWriteSet.Snapshot snapshot = testSet.snapshot();
+        List<T> elements = new ArrayList<T>();
+        for (int i = 0; i < snapshot.size; i++) {
+            T element = testSet.valueOf(snapshot.slots[i]);
+            if (element != null) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+
+    @Test
+    public void testIterationWithConcurrentRemoval() {
+        final AbstractCopyOnWriteSet<AtomicInteger> testSet = createSet();
+        final Random rand = new Random();
+
+        for (int i = 0; i < numberOfElements; i++) {
+            AtomicInteger element = new AtomicInteger();
+            testSet.add(element);
+            gcProtector.add(element);
+        }
+
+        Runnable incrementer = new Runnable() {
+            @Override
+            public void run() {
+                while(testSet.size() > 100){
+                    // all elements that are not removed are visited exactly once
+                    AbstractCopyOnWriteSet.Snapshot snapshot = testSet.snapshot();
+                    for (int i = 0; i < snapshot.size; i++) {
+                        AtomicInteger element = testSet.valueOf(snapshot.slots[i]);
+                        if (element != null) {
+                            element.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        };
+
+        Runnable remover = new Runnable() {
+            @Override
+            public void run() {
+                while(testSet.size() > 100){
+                    for(AtomicInteger element : testSet)
+                        if(rand.nextInt() % 3 == 0 && testSet.size() > 100)
+                            testSet.remove(element);
+                }
+            }
+        };
+
+        ConcurrentExecutor.runConcurrent(20, incrementer, remover);
+
+        Set<Integer> counts = new HashSet<Integer>();
+        for (AtomicInteger count : testSet) {
+            counts.add(count.get());
+        }
+        assertEquals(1, counts.size());
+    }
+
+    @Test
+    public void testRemovalViaIterator() {
+        AbstractCopyOnWriteSet<Object> testSet = createSet();
+        for (int i = 0; i < numberOfElements; i++) {
+            Object candidate = new Object();
+            gcProtector.add(candidate);
+            testSet.add(candidate);
+        }
+        Iterator<Object> iterator = testSet.iterator();
+        while(iterator.hasNext()){
+            iterator.next();
+            iterator.remove();
+        }
+        assertEquals(0, testSet.size());
+        assertTrue(testSet.isEmpty());
+        for(Object src : gcProtector){
+            assertFalse(testSet.contains(src));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        AbstractCopyOnWriteSet<Integer> set = createSet();
+        assertFalse(set.contains(1));
+        set.add(1);
+        assertTrue(set.contains(1));
+        assertEquals(1, set.size());
+        set.clear();
+        assertFalse(set.contains(1));
+        assertEquals(0, set.size());
+        assertEquals(0, set.snapshot().size);
+    }
+
+    @Test
+    public void testToArray() {
+        AbstractCopyOnWriteSet<Integer> set = createSet();
+        set.add(1);
+        set.add(3);
+        set.add(5);
+        assertTrue(Arrays.equals(new Object[]{1, 3, 5}, set.toArray()));
+        assertTrue(Arrays.equals(new Integer[]{1, 3, 5}, set.toArray(new Integer[0])));
+    }
+
+    @Test
+    public void testBulkOperations() {
+        AbstractCopyOnWriteSet<Integer> set = createSet();
+        // enough elements to use the index of the set
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        assertTrue(set.containsAll(Arrays.asList(0, 50, 99)));
+        assertFalse(set.containsAll(Arrays.asList(0, 100)));
+        assertTrue(set.containsAll(Collections.<Integer>emptyList()));
+
+        assertTrue(set.removeAll(Arrays.asList(0, 1, 2, 100)));
+        assertFalse(set.removeAll(Arrays.asList(0, 100)));
+        assertEquals(97, set.size());
+        assertFalse(set.contains(1));
+
+        List<Integer> retained = new ArrayList<Integer>();
+        for (int i = 50; i < 110; i++) {
+            retained.add(i);
+        }
+        assertTrue(set.retainAll(retained));
+        assertFalse(set.retainAll(retained));
+        assertEquals(50, set.size());
+        assertFalse(set.contains(49));
+        assertTrue(set.containsAll(retained.subList(0, 50)));
+        for (int i = 50; i < 100; i++) {
+            assertTrue(set.contains(i));
+        }
+    }
+}
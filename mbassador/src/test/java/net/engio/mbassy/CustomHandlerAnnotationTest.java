@@ -1,10 +1,15 @@
 package net.engio.mbassy;
 
+import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -13,6 +18,7 @@ import org.junit.Test;
 
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.common.ReflectionUtils;
 import net.engio.mbassy.listener.Filter;
 import net.engio.mbassy.listener.Handler;
 import net.engio.mbassy.listener.IMessageFilter;
@@ -143,4 +149,67 @@ public class CustomHandlerAnnotationTest extends MessageBusTest
         assertEquals(1, listener.handledByThree.size());
 		assertTrue( listener.handledByThree.contains( messageThree ) );
 	}
+
+	@Test
+	public void testLayeredMetaAnnotationResolution() throws Exception {
+		Method handlerThree = NamedMessageListener.class.getDeclaredMethod("handlerThree", NamedMessage.class);
+
+		// @MessageThree -> @NamedMessageHandler -> @Handler and @Synchronized
+		Handler handler = ReflectionUtils.getAnnotation(handlerThree, Handler.class);
+		assertNotNull(handler);
+		assertEquals(NamedMessageFilter.class, handler.filters()[0].value());
+		assertTrue(handler == ReflectionUtils.getAnnotation(handlerThree, Handler.class));
+		assertEquals("messageThree", ReflectionUtils.getAnnotation(handlerThree, NamedMessageHandler.class).value()[0]);
+		assertNotNull(ReflectionUtils.getAnnotation(handlerThree, Synchronized.class));
+		// meta annotations of meta annotations like @Retention must not lead to endless recursion
+		assertNull(ReflectionUtils.getAnnotation(handlerThree, Deprecated.class));
+		assertNull(ReflectionUtils.getAnnotation(handlerThree, Deprecated.class));
+
+		Method handlerTwo = NamedMessageListener.class.getDeclaredMethod("handlerTwo", NamedMessage.class);
+		assertNull(ReflectionUtils.getAnnotation(handlerTwo, Synchronized.class));
+	}
+
+	@Test
+	public void testForeignAnnotationTypeIsNotRetained() throws Exception {
+		Method handlerThree = NamedMessageListener.class.getDeclaredMethod("handlerThree", NamedMessage.class);
+		WeakReference<ClassLoader> plugin = lookupPluginAnnotation(handlerThree);
+
+		// the meta annotations of @Handler must not hold the annotation type of the plugin
+		long start = System.currentTimeMillis();
+		while (plugin.get() != null && System.currentTimeMillis() - start < 10000) {
+			runGC();
+		}
+		assertNull(plugin.get());
+	}
+
+	// looks up an annotation type of a separate class loader on the given method and returns that loader
+	@SuppressWarnings("unchecked")
+	private WeakReference<ClassLoader> lookupPluginAnnotation(Method handler) throws Exception {
+		final String name = PluginAnnotation.class.getName();
+		URL classes = PluginAnnotation.class.getProtectionDomain().getCodeSource().getLocation();
+		ClassLoader loader = new URLClassLoader(new URL[]{classes}, CustomHandlerAnnotationTest.class.getClassLoader()) {
+			@Override
+			protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+				if (!name.equals(className)) {
+					return super.loadClass(className, resolve);
+				}
+				synchronized (getClassLoadingLock(className)) {
+					Class<?> loaded = findLoadedClass(className);
+					return loaded != null ? loaded : findClass(className);
+				}
+			}
+		};
+		Class<? extends Annotation> annotationType =
+				(Class<? extends Annotation>) loader.loadClass(name);
+		assertTrue(annotationType != PluginAnnotation.class);
+		assertNull(ReflectionUtils.getAnnotation(handler, annotationType));
+		return new WeakReference<ClassLoader>(loader);
+	}
+
+	/**
+	 * An annotation type that is loaded by a separate class loader like the annotations of a plugin
+	 */
+	@Retention(value = RetentionPolicy.RUNTIME)
+	public @interface PluginAnnotation {
+	}
 }
@@ -0,0 +1,153 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.common.AssertSupport;
+import net.engio.mbassy.dispatch.condition.ExpressionFilter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests of the built-in expression language used for handler conditions
+ */
+public class ExpressionFilterTest extends AssertSupport {
+
+    @Test
+    public void testPropertyAccess() {
+        Order order = new Order("books", 3, 12.5, true);
+        assertTrue(accepts("msg.category == 'books'", order));
+        assertTrue(accepts("msg.quantity == 3", order));     // getter
+        assertTrue(accepts("msg.express", order));           // boolean getter
+        assertTrue(accepts("msg.price > 12", order));        // field
+        assertTrue(accepts("msg.customer.name == \"bob\"", order));
+        assertTrue(accepts("msg.tags.length == 2", order));
+        assertFalse(accepts("msg.customer.vip", order));
+    }
+
+    @Test
+    public void testMethodCalls() {
+        Order order = new Order("books", 3, 12.5, true);
+        assertTrue(accepts("msg.getCategory().equals('books')", order));
+        assertTrue(accepts("msg.getCategory().startsWith('bo')", order));
+        assertTrue(accepts("msg.getCategory().length() == 5", order));
+        assertTrue(accepts("msg.items.contains('pen')", order));
+        assertTrue(accepts("msg.isLarger(2)", order));
+        assertFalse(accepts("msg.isLarger(3)", order));
+    }
+
+    @Test
+    public void testComparisons() {
+        Order order = new Order("books", 3, 12.5, false);
+        assertTrue(accepts("msg.quantity >= 3 && msg.quantity <= 3", order));
+        assertTrue(accepts("msg.quantity != 4", order));
+        assertTrue(accepts("msg.quantity < 3.5", order));
+        assertTrue(accepts("msg.price == 12.5", order));
+        assertTrue(accepts("msg.amount == 3", order));       // boxed values are compared by value
+        assertTrue(accepts("msg.amount > 2L", order));
+        assertTrue(accepts("msg.category > 'a'", order));
+        assertTrue(accepts("msg.quantity > -1", order));
+        assertTrue(accepts("msg.note == null", order));
+        assertFalse(accepts("msg.note != null", order));
+        assertTrue(accepts("msg.note < 'a'", order));        // null is smaller than anything else
+    }
+
+    @Test
+    public void testBooleanLogic() {
+        Order order = new Order("books", 3, 12.5, false);
+        assertTrue(accepts("!msg.express", order));
+        assertTrue(accepts("msg.express || msg.quantity > 2", order));
+        assertFalse(accepts("msg.express && msg.quantity > 2", order));
+        assertTrue(accepts("!(msg.express || msg.quantity > 3) && true", order));
+        // && binds stronger than ||
+        assertTrue(accepts("true || false && false", order));
+        // the right operand is not evaluated if the left one decides the result
+        assertFalse(accepts("msg.note != null && msg.note.length() > 0", order));
+        // groovy truth for non-boolean values
+        assertTrue(accepts("msg.category", order));
+        assertFalse(accepts("msg.note", order));
+    }
+
+    @Test
+    public void testInvalidConditions() {
+        for (String condition : Arrays.asList("msg.unknown", "msg.category ==", "msg.quantity.foo", "msg.category =~ /b/",
+                "message.size", "msg.category == 'books", "msg.isLarger()")) {
+            try {
+                ExpressionFilter.compile(condition, Order.class);
+                fail("Expected " + condition + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains(condition));
+            }
+        }
+    }
+
+    private boolean accepts(String condition, Order message) {
+        return ExpressionFilter.<Order>compile(condition, Order.class).accepts(message, null);
+    }
+
+    public static class Customer {
+
+        private final String name = "bob";
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isVip() {
+            return false;
+        }
+    }
+
+    public static class Order {
+
+        private final String category;
+        private final int quantity;
+        final double price;
+        private final boolean express;
+        private final Customer customer = new Customer();
+        private final String[] tags = {"new", "gift"};
+        private final String note = null;
+
+        public Order(String category, int quantity, double price, boolean express) {
+            this.category = category;
+            this.quantity = quantity;
+            this.price = price;
+            this.express = express;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public Integer getAmount() {
+            return quantity;
+        }
+
+        public boolean isExpress() {
+            return express;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public String[] getTags() {
+            return tags;
+        }
+
+        public String getNote() {
+            return note;
+        }
+
+        public List<String> getItems() {
+            return Arrays.asList("book", "pen");
+        }
+
+        public boolean isLarger(int quantity) {
+            return this.quantity > quantity;
+        }
+    }
+}
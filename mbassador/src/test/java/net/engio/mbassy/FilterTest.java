@@ -3,9 +3,11 @@ package net.engio.mbassy;
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.common.DeadMessage;
 import net.engio.mbassy.bus.common.FilteredMessage;
+import net.engio.mbassy.bus.config.IBusConfiguration;
 import net.engio.mbassy.common.ListenerFactory;
 import net.engio.mbassy.common.MessageBusTest;
 import net.engio.mbassy.common.TestUtil;
+import net.engio.mbassy.dispatch.AdaptiveFilteredMessageDispatcher;
 import net.engio.mbassy.listener.*;
 import net.engio.mbassy.messages.SubTestMessage;
 import net.engio.mbassy.messages.TestMessage;
@@ -120,6 +122,123 @@ public class FilterTest extends MessageBusTest {
 
     }
 
+    @Test
+    public void testMessagePureFiltersAreEvaluatedOncePerPublication(){
+        MBassador bus = createBus(SyncAsync());
+        bus.subscribe(new SharedFilterListener());
+        bus.subscribe(new OtherSharedFilterListener());
+        CountingPureFilter.evaluations.set(0);
+        CountingFilter.evaluations.set(0);
+
+        TestMessage message = new TestMessage();
+        bus.publish(message);
+        // three subscriptions share the filter instances
+        assertEquals(3, message.counter.get());
+        assertEquals(1, CountingPureFilter.evaluations.get());
+        assertEquals(3, CountingFilter.evaluations.get());
+
+        // results are not shared between publications
+        bus.publish(new TestMessage());
+        assertEquals(2, CountingPureFilter.evaluations.get());
+    }
+
+    @Test
+    public void testAdaptiveFilterOrdering(){
+        MBassador bus = createBus(SyncAsync().setProperty(IBusConfiguration.Properties.AdaptiveFilterOrdering, true));
+        bus.subscribe(new AdaptiveFilterListener());
+        // the expensive filter is declared first but rejects nothing, the cheap one rejects every other message
+        for (int i = 0; i < 100 * AdaptiveFilteredMessageDispatcher.SampleRate * 64; i++) {
+            bus.publish(new TestMessage());
+        }
+        ExpensiveFilter.evaluations.set(0);
+        EveryOtherMessageFilter.evaluations.set(0);
+        for (int i = 0; i < 1000; i++) {
+            bus.publish(new TestMessage());
+        }
+        assertEquals(1000, EveryOtherMessageFilter.evaluations.get());
+        assertEquals(500, ExpensiveFilter.evaluations.get());
+    }
+
+    @Listener(references = References.Strong)
+    public static class AdaptiveFilterListener {
+
+        @Handler(filters = {@Filter(ExpensiveFilter.class), @Filter(EveryOtherMessageFilter.class)})
+        public void handle(TestMessage message){
+            message.counter.incrementAndGet();
+        }
+    }
+
+    public static class ExpensiveFilter implements IMessageFilter<TestMessage>{
+
+        static final AtomicInteger evaluations = new AtomicInteger();
+
+        @Override
+        public boolean accepts(TestMessage message, SubscriptionContext context) {
+            evaluations.incrementAndGet();
+            long end = System.nanoTime() + 1000;
+            while (System.nanoTime() < end) {
+                // simulate an expensive check
+            }
+            return true;
+        }
+    }
+
+    public static class EveryOtherMessageFilter implements IMessageFilter<TestMessage>{
+
+        static final AtomicInteger evaluations = new AtomicInteger();
+
+        @Override
+        public boolean accepts(TestMessage message, SubscriptionContext context) {
+            return evaluations.incrementAndGet() % 2 == 0;
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class SharedFilterListener {
+
+        @Handler(filters = {@Filter(CountingPureFilter.class), @Filter(CountingFilter.class)})
+        public void handle(TestMessage message){
+            message.counter.incrementAndGet();
+        }
+
+        @Handler(filters = {@Filter(CountingPureFilter.class), @Filter(CountingFilter.class)})
+        public void handleAgain(TestMessage message){
+            message.counter.incrementAndGet();
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class OtherSharedFilterListener {
+
+        @Handler(filters = {@Filter(CountingPureFilter.class), @Filter(CountingFilter.class)})
+        public void handle(TestMessage message){
+            message.counter.incrementAndGet();
+        }
+    }
+
+    @MessagePure
+    public static class CountingPureFilter implements IMessageFilter<TestMessage>{
+
+        static final AtomicInteger evaluations = new AtomicInteger();
+
+        @Override
+        public boolean accepts(TestMessage message, SubscriptionContext context) {
+            evaluations.incrementAndGet();
+            return true;
+        }
+    }
+
+    public static class CountingFilter implements IMessageFilter<TestMessage>{
+
+        static final AtomicInteger evaluations = new AtomicInteger();
+
+        @Override
+        public boolean accepts(TestMessage message, SubscriptionContext context) {
+            evaluations.incrementAndGet();
+            return true;
+        }
+    }
+
     public static class TestMessageHandler{
 
         @Handler(filters = @Filter(Filters.SubtypesOnly.class))
@@ -0,0 +1,149 @@
+package net.engio.mbassy;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import net.engio.mbassy.messages.StandardMessage;
+
+/**
+ * Tests the flight recorder events of publications, dispatches, handler invocations, queue waits and errors.
+ * The tests run with the Java 11 classes of the packaged multi-release jar, they are executed by failsafe after the
+ * jar has been built.
+ */
+public class FlightRecorderIT extends MessageBusTest {
+
+    private static final String[] EventNames = {"net.engio.mbassy.Publication", "net.engio.mbassy.Dispatch",
+            "net.engio.mbassy.Invocation", "net.engio.mbassy.QueueWait", "net.engio.mbassy.PublicationError"};
+
+    @Test
+    public void testEventsAreRecorded() throws Exception {
+        assertTrue(FlightRecorderEvents.isSupported());
+        MBassador bus = createBus(SyncAsync(false));
+        Listener listener = new Listener();
+        bus.subscribe(listener);
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String name : EventNames) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            bus.publish(new StandardMessage());
+            bus.publishAsync(new SubMessage());
+            long start = System.currentTimeMillis();
+            while (listener.asynchronous.size() < 2 && System.currentTimeMillis() - start < 5000) {
+                pause(10);
+            }
+            pause(100); // the asynchronous handlers commit their events after they return
+            recording.stop();
+            events = read(recording);
+        }
+
+        assertEquals(2, events(events, "net.engio.mbassy.Publication", null).size());
+        assertEquals(1, events(events, "net.engio.mbassy.Publication", StandardMessage.class).size());
+        List<RecordedEvent> dispatches = events(events, "net.engio.mbassy.Dispatch", StandardMessage.class);
+        assertEquals(3, dispatches.size());
+        assertTrue(dispatches.get(0).getString("handler").startsWith(Listener.class.getName() + "."));
+        // the failing handler is not invoked for the sub type, all other handlers are invoked once for each message
+        assertEquals(5, events(events, "net.engio.mbassy.Invocation", null).size());
+        for (RecordedEvent invocation : events(events, "net.engio.mbassy.Invocation", null)) {
+            assertFalse(invocation.getDuration().isNegative());
+        }
+
+        // the asynchronous publication and both invocations of the asynchronous handler wait in a queue
+        List<RecordedEvent> waits = events(events, "net.engio.mbassy.QueueWait", null);
+        assertEquals(3, waits.size());
+        int handlerWaits = 0;
+        for (RecordedEvent wait : waits) {
+            if (wait.getString("handler") != null) {
+                assertEquals(Listener.class.getName() + ".handleAsynchronously", wait.getString("handler"));
+                handlerWaits++;
+            }
+        }
+        assertEquals(2, handlerWaits);
+
+        List<RecordedEvent> errors = events(events, "net.engio.mbassy.PublicationError", null);
+        assertEquals(1, errors.size());
+        assertEquals(Listener.class.getName() + ".fail", errors.get(0).getString("handler"));
+        assertEquals(IllegalStateException.class.getName(), errors.get(0).<RecordedClass>getValue("cause").getName());
+    }
+
+    @Test
+    public void testNothingIsRecordedIfEventsAreDisabled() throws Exception {
+        MBassador bus = createBus(SyncAsync(false));
+        bus.subscribe(new Listener());
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            // all events are enabled by default
+            for (String name : EventNames) {
+                recording.disable(name);
+            }
+            recording.start();
+            bus.publish(new StandardMessage());
+            recording.stop();
+            events = read(recording);
+        }
+        for (RecordedEvent event : events) {
+            assertFalse(event.getEventType().getName().startsWith("net.engio.mbassy"));
+        }
+    }
+
+    private List<RecordedEvent> read(Recording recording) throws Exception {
+        File file = File.createTempFile("mbassador", ".jfr");
+        try {
+            recording.dump(file.toPath());
+            return RecordingFile.readAllEvents(file.toPath());
+        } finally {
+            file.delete();
+        }
+    }
+
+    // the events of the given type, optionally only those of the given message type
+    private List<RecordedEvent> events(List<RecordedEvent> events, String name, Class<?> messageType) {
+        List<RecordedEvent> matching = new ArrayList<RecordedEvent>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name) && (messageType == null
+                    || messageType.getName().equals(event.<RecordedClass>getValue("messageType").getName()))) {
+                matching.add(event);
+            }
+        }
+        return matching;
+    }
+
+    public static class SubMessage extends StandardMessage {
+    }
+
+    public static class Listener {
+
+        private final List<Object> asynchronous = new CopyOnWriteArrayList<Object>();
+
+        @Handler
+        public void handle(StandardMessage message) {
+        }
+
+        @Handler(delivery = Invoke.Asynchronously)
+        public void handleAsynchronously(StandardMessage message) {
+            asynchronous.add(message);
+        }
+
+        @Handler(rejectSubtypes = true)
+        public void fail(StandardMessage message) {
+            throw new IllegalStateException("expected");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package net.engio.mbassy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.jfr.FlightRecorderEvents;
+import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import net.engio.mbassy.messages.StandardMessage;
+
+/**
+ * Tests the Java 8 implementation of the flight recorder events which is found in the class directory.
+ * The Java 11 implementation of the multi-release jar is tested by {@link FlightRecorderIT}.
+ */
+public class FlightRecorderTest extends MessageBusTest {
+
+    @Test
+    public void testNothingIsRecorded() throws Exception {
+        assertFalse(FlightRecorderEvents.isSupported());
+        assertNull(FlightRecorderEvents.beginPublication());
+        assertNull(FlightRecorderEvents.beginDispatch());
+        assertNull(FlightRecorderEvents.beginInvocation());
+        assertNull(FlightRecorderEvents.beginQueueWait());
+    }
+
+    @Test
+    public void testMessagesAreDelivered() throws Exception {
+        MBassador bus = createBus(SyncAsync());
+        Listener listener = new Listener();
+        bus.subscribe(listener);
+        bus.publish(new StandardMessage());
+        bus.publishAsync(new StandardMessage());
+        long start = System.currentTimeMillis();
+        while ((listener.synchronous.size() < 2 || listener.asynchronous.size() < 2)
+                && System.currentTimeMillis() - start < 5000) {
+            pause(10);
+        }
+        assertEquals(2, listener.synchronous.size());
+        assertEquals(2, listener.asynchronous.size());
+    }
+
+    public static class Listener {
+
+        private final List<Object> synchronous = new CopyOnWriteArrayList<Object>();
+
+        private final List<Object> asynchronous = new CopyOnWriteArrayList<Object>();
+
+        @Handler
+        public void handle(StandardMessage message) {
+            synchronous.add(message);
+        }
+
+        @Handler(delivery = Invoke.Asynchronously)
+        public void handleAsynchronously(StandardMessage message) {
+            asynchronous.add(message);
+        }
+    }
+}
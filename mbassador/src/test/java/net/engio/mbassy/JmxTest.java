@@ -0,0 +1,201 @@
+package net.engio.mbassy;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.MessageBusMXBean;
+import net.engio.mbassy.bus.config.ConfigurationError;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.dispatch.AdaptiveFilteredMessageDispatcher;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.messages.StandardMessage;
+import net.engio.mbassy.messages.TestMessage;
+
+/**
+ * Tests the MBean that exposes the state of a bus with asynchronous message dispatch
+ */
+public class JmxTest extends MessageBusTest {
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    private IBusConfiguration monitored(String busId) {
+        IBusConfiguration configuration = SyncAsync()
+                .setProperty(IBusConfiguration.Properties.BusId, busId)
+                .setProperty(IBusConfiguration.Properties.Jmx, true);
+        configuration.getFeature(Feature.AsynchronousMessageDispatch.class).setNumberOfMessageDispatchers(1);
+        return configuration;
+    }
+
+    private ObjectName nameOf(String busId) throws Exception {
+        return new ObjectName("net.engio.mbassy:type=MessageBus,name=" + ObjectName.quote(busId));
+    }
+
+    @Test
+    public void testMBeanExposesBusState() throws Exception {
+        MBassador bus = createBus(monitored("jmx-test"));
+        try {
+            // the MBean is registered after the bus has been created
+            assertFalse(server.isRegistered(nameOf("jmx-test")));
+            assertEquals(nameOf("jmx-test"), bus.registerMBean());
+            assertEquals(nameOf("jmx-test"), bus.registerMBean());
+            assertTrue(server.isRegistered(nameOf("jmx-test")));
+            MessageBusMXBean mbean = JMX.newMXBeanProxy(server, nameOf("jmx-test"), MessageBusMXBean.class);
+            assertEquals("jmx-test", mbean.getBusId());
+            assertEquals(Collections.singleton("MsgDispatcher-0"), mbean.getDispatcherThreadStates().keySet());
+
+            bus.subscribe(released());
+            bus.subscribe(released());
+            assertEquals(2, mbean.getListenerCount());
+            assertEquals(Collections.singletonMap(BlockingListener.class.getName(), 2), mbean.getListenersPerClass());
+            assertEquals(Collections.singletonMap(StandardMessage.class.getName(), 1), mbean.getSubscriptionsPerMessageType());
+
+            bus.publish(new StandardMessage());
+            bus.publish(new StandardMessage());
+            assertEquals(1L, mbean.getDispatchCacheMisses());
+            assertEquals(1L, mbean.getDispatchCacheHits());
+            assertEquals(1, mbean.getDispatchCacheSize());
+            long invalidations = mbean.getDispatchCacheInvalidations();
+            bus.subscribe(released());
+            assertEquals(invalidations + 1, mbean.getDispatchCacheInvalidations());
+            assertEquals(0, mbean.getDispatchCacheSize());
+
+            // the dispatcher blocks in the handler of the first message, the others are queued
+            BlockingListener blocking = new BlockingListener();
+            bus.subscribe(blocking);
+            for (int i = 0; i < 3; i++) {
+                bus.publishAsync(new StandardMessage());
+            }
+            blocking.entered.await();
+            assertEquals(1L, mbean.getInFlightPublications());
+            assertEquals(2, mbean.getPendingMessages());
+            assertEquals(Integer.MAX_VALUE - 2, mbean.getRemainingQueueCapacity());
+            // the dispatcher waits for the latch in the handler
+            long start = System.currentTimeMillis();
+            while (!"WAITING".equals(mbean.getDispatcherThreadStates().get("MsgDispatcher-0"))
+                    && System.currentTimeMillis() - start < 5000) {
+                pause(10);
+            }
+            assertEquals("WAITING", mbean.getDispatcherThreadStates().get("MsgDispatcher-0"));
+            blocking.release.countDown();
+            start = System.currentTimeMillis();
+            while ((mbean.getPendingMessages() > 0 || mbean.getInFlightPublications() > 0)
+                    && System.currentTimeMillis() - start < 5000) {
+                pause(10);
+            }
+            assertEquals(0L, mbean.getInFlightPublications());
+            assertEquals(0, mbean.getPendingMessages());
+            assertEquals(0, mbean.getActiveHandlerThreads());
+            assertEquals(0, mbean.getPendingHandlerInvocations());
+        } finally {
+            bus.shutdown();
+        }
+        assertFalse(server.isRegistered(nameOf("jmx-test")));
+        // a second shutdown does not fail
+        bus.shutdown();
+        try {
+            bus.registerMBean();
+            fail("The MBean of a bus that has been shut down must not be registered");
+        } catch (IllegalStateException e) {
+            assertFalse(server.isRegistered(nameOf("jmx-test")));
+        }
+    }
+
+    @Test
+    public void testUnusedEventCacheSize() throws Exception {
+        MBassador bus = createBus(monitored("jmx-test-unused").setProperty("useUnusedEvent", false));
+        try {
+            bus.registerMBean();
+            MessageBusMXBean mbean = JMX.newMXBeanProxy(server, nameOf("jmx-test-unused"), MessageBusMXBean.class);
+            bus.publish("not handled");
+            bus.publish(1);
+            assertEquals(2, mbean.getUnusedEventCacheSize());
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testAdaptiveFilterStatistics() throws Exception {
+        MBassador bus = createBus(monitored("jmx-test-filters")
+                .setProperty(IBusConfiguration.Properties.AdaptiveFilterOrdering, true));
+        try {
+            bus.registerMBean();
+            MessageBusMXBean mbean = JMX.newMXBeanProxy(server, nameOf("jmx-test-filters"), MessageBusMXBean.class);
+            bus.subscribe(new FilterTest.AdaptiveFilterListener());
+            String handler = FilterTest.AdaptiveFilterListener.class.getName() + ".handle";
+            assertEquals(Collections.singletonMap(handler, 0L), mbean.getFilterReorderCounts());
+
+            // the cheap filter that rejects every other message is moved in front of the expensive one
+            for (int i = 0; i < 100 * AdaptiveFilteredMessageDispatcher.SampleRate * 64; i++) {
+                bus.publish(new TestMessage());
+            }
+            assertTrue(mbean.getFilterReorderCounts().get(handler) > 0);
+            String[] order = mbean.getFilterOrder().get(handler);
+            assertEquals(2, order.length);
+            assertTrue(order[0].startsWith(FilterTest.EveryOtherMessageFilter.class.getName()));
+            assertTrue(order[1].startsWith(FilterTest.ExpensiveFilter.class.getName()));
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testDuplicateBusIdIsRejected() throws Exception {
+        MBassador bus = createBus(monitored("jmx-test-duplicate"));
+        MBassador duplicate = createBus(monitored("jmx-test-duplicate"));
+        try {
+            bus.registerMBean();
+            duplicate.registerMBean();
+            fail("The second bus must not be registered with the same id");
+        } catch (ConfigurationError e) {
+            assertTrue(server.isRegistered(nameOf("jmx-test-duplicate")));
+        } finally {
+            duplicate.shutdown();
+            // the shutdown of the second bus does not unregister the MBean of the first
+            assertTrue(server.isRegistered(nameOf("jmx-test-duplicate")));
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    public void testNoMBeanByDefault() throws Exception {
+        MBassador bus = createBus(SyncAsync().setProperty(IBusConfiguration.Properties.BusId, "jmx-test-disabled"));
+        try {
+            bus.registerMBean();
+            fail("The MBean must not be registered without the property");
+        } catch (ConfigurationError e) {
+            assertFalse(server.isRegistered(nameOf("jmx-test-disabled")));
+        } finally {
+            bus.shutdown();
+        }
+    }
+
+    private static BlockingListener released() {
+        BlockingListener listener = new BlockingListener();
+        listener.release.countDown();
+        return listener;
+    }
+
+    public static class BlockingListener {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Handler
+        public void handle(StandardMessage message) throws InterruptedException {
+            entered.countDown();
+            release.await();
+        }
+    }
+}
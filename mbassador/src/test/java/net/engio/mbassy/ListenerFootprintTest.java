@@ -0,0 +1,84 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.bus.SyncMessageBus;
+import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Listener;
+import net.engio.mbassy.listener.References;
+import org.junit.Test;
+
+/**
+ * Measures the heap that is retained by the bus for each subscribed listener instance (excluding the listener itself).
+ * The bookkeeping must stay lean since applications might subscribe millions of objects.
+ * The limits are generous to keep the test stable on different VMs, the measured values are logged.
+ */
+public class ListenerFootprintTest extends MessageBusTest {
+
+    private static final int Listeners = 200000;
+
+    @Test
+    public void testWeakListenerFootprint() {
+        WeakListener[] listeners = new WeakListener[Listeners];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = new WeakListener();
+        }
+        // two handlers, each one holds a weak reference to every listener
+        assertTrue(bytesPerListener(listeners) < 160);
+    }
+
+    @Test
+    public void testStrongListenerFootprint() {
+        StrongListener[] listeners = new StrongListener[Listeners];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = new StrongListener();
+        }
+        assertTrue(bytesPerListener(listeners) < 64);
+    }
+
+    private long bytesPerListener(Object[] listeners) {
+        SyncMessageBus bus = new SyncMessageBus();
+        // subscribe one listener upfront such that the metadata of the listener class is not measured
+        bus.subscribe(listeners[0]);
+        long before = usedHeap();
+        for (Object listener : listeners) {
+            bus.subscribe(listener);
+        }
+        long bytesPerListener = (usedHeap() - before) / listeners.length;
+        logger.info(listeners[0].getClass().getSimpleName() + ": " + bytesPerListener + " bytes per listener");
+        // keep the bus and the listeners reachable until the end of the measurement
+        bus.publish("footprint");
+        assertTrue(listeners.length > 0);
+        return bytesPerListener;
+    }
+
+    private long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runGC();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static class WeakListener {
+
+        @Handler
+        public void handleString(String message) {
+        }
+
+        @Handler
+        public void handleInteger(Integer message) {
+        }
+    }
+
+    @Listener(references = References.Strong)
+    public static class StrongListener {
+
+        @Handler
+        public void handleString(String message) {
+        }
+
+        @Handler
+        public void handleInteger(Integer message) {
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.common.AssertSupport;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.MessageListener;
+import net.engio.mbassy.listener.MetadataIndex;
+import net.engio.mbassy.listener.MetadataReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static net.engio.mbassy.listener.MessageListener.ForMessage;
+
+/**
+ * Tests the persistent metadata index used by the {@link MetadataReader}
+ */
+public class MetadataIndexTest extends AssertSupport {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexSurvivesRestart() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("mbassador.idx");
+
+        MetadataIndex index = MetadataIndex.open(file);
+        assertEquals(0, index.size());
+        MessageListener<ExtendedListener> scanned = new MetadataReader(index).getMessageListener(ExtendedListener.class);
+        new MetadataReader(index).getMessageListener(NoListener.class);
+        index.save();
+        assertTrue(Files.exists(file));
+
+        // a new index instance simulates the restart
+        MetadataIndex reopened = MetadataIndex.open(file);
+        assertEquals(2, reopened.size());
+        MessageListener<ExtendedListener> indexed = new MetadataReader(reopened).getMessageListener(ExtendedListener.class);
+        assertEquals(scanned.getHandlers().length, indexed.getHandlers().length);
+        assertEquals(2, indexed.getHandlers(ForMessage(String.class)).size());
+        assertEquals(1, indexed.getHandlers(ForMessage(Integer.class)).size());
+        // the handler configuration is read from the annotations of the indexed methods
+        assertEquals(5, indexed.getHandlers(ForMessage(Integer.class)).get(0).getPriority());
+        assertEquals(0, new MetadataReader(reopened).getMessageListener(NoListener.class).getHandlers().length);
+
+        // entries that have not been looked up again are retained
+        reopened.save();
+        new MetadataReader(reopened).getMessageListener(BaseListener.class);
+        reopened.save();
+        assertEquals(3, MetadataIndex.open(file).size());
+    }
+
+    @Test
+    public void testCorruptedIndexIsIgnored() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("corrupted.idx");
+        Files.write(file, "not an index".getBytes(StandardCharsets.UTF_8));
+
+        MetadataIndex index = MetadataIndex.open(file);
+        assertEquals(0, index.size());
+        MessageListener listener = new MetadataReader(index).getMessageListener(ExtendedListener.class);
+        assertEquals(3, listener.getHandlers().length);
+        index.save();
+        assertEquals(1, MetadataIndex.open(file).size());
+    }
+
+    @Test
+    public void testFailedSaveIsRetried() throws Exception {
+        Path directory = folder.newFolder("missing").toPath();
+        Path file = directory.resolve("mbassador.idx");
+        MetadataIndex index = MetadataIndex.open(file);
+        new MetadataReader(index).getMessageListener(ExtendedListener.class);
+        Files.delete(directory);
+        try {
+            index.save();
+            fail("The index can not be written to a missing directory");
+        } catch (IOException e) {
+            assertFalse(Files.exists(file));
+        }
+        Files.createDirectory(directory);
+        index.save();
+        assertEquals(1, MetadataIndex.open(file).size());
+    }
+
+    @Test
+    public void testTruncatedIndexIsIgnored() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("truncated.idx");
+        MetadataIndex index = MetadataIndex.open(file);
+        new MetadataReader(index).getMessageListener(ExtendedListener.class);
+        index.save();
+        byte[] content = Files.readAllBytes(file);
+
+        // the entry is cut off
+        Files.write(file, Arrays.copyOf(content, content.length - 10));
+        assertEquals(0, MetadataIndex.open(file).size());
+
+        // huge counts and lengths must not be allocated
+        Files.write(file, header(Integer.MAX_VALUE));
+        assertEquals(0, MetadataIndex.open(file).size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(header(1));
+        out.writeInt(8);
+        out.writeInt(Integer.MAX_VALUE);
+        out.writeInt(0);
+        Files.write(file, bytes.toByteArray());
+        assertEquals(0, MetadataIndex.open(file).size());
+    }
+
+    // the header of an index file with the given number of entries, taken from a saved index
+    private byte[] header(int entries) throws Exception {
+        Path file = folder.getRoot().toPath().resolve("empty.idx");
+        MetadataIndex index = MetadataIndex.open(file);
+        new MetadataReader(index).getMessageListener(NoListener.class);
+        index.save();
+        ByteBuffer header = ByteBuffer.wrap(Arrays.copyOf(Files.readAllBytes(file), 12));
+        header.putInt(8, entries);
+        return header.array();
+    }
+
+    @Test
+    public void testChangedDependencyInvalidatesEntry() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("dependencies.idx");
+        Path classes = folder.newFolder("classes").toPath();
+        Class<?>[] dependencies = {AnnotatedListener.class, ListenerContract.class, CustomHandler.class};
+        for (Class<?> dependency : dependencies) {
+            Path target = classes.resolve(dependency.getName().replace('.', '/') + ".class");
+            Files.createDirectories(target.getParent());
+            try (InputStream bytecode = dependency.getResourceAsStream(target.getFileName().toString())) {
+                Files.copy(bytecode, target);
+            }
+        }
+
+        MetadataIndex index = MetadataIndex.open(file);
+        new MetadataReader(index).getMessageListener(isolated(classes, dependencies).loadClass(AnnotatedListener.class.getName()));
+        index.save();
+        assertEquals(1, index.size());
+
+        // the interface and the annotation type are part of the entry
+        for (Class<?> dependency : Arrays.asList(ListenerContract.class, CustomHandler.class)) {
+            MetadataIndex reopened = MetadataIndex.open(file);
+            Class<?> listener = isolated(classes, dependencies).loadClass(AnnotatedListener.class.getName());
+            assertEquals(1, new MetadataReader(reopened).getMessageListener(listener).getHandlers().length);
+            assertEquals(1L, reopened.getHitCount());
+
+            Path classFile = classes.resolve(dependency.getName().replace('.', '/') + ".class");
+            Files.setLastModifiedTime(classFile, FileTime.fromMillis(Files.getLastModifiedTime(classFile).toMillis() - 60000));
+            reopened = MetadataIndex.open(file);
+            listener = isolated(classes, dependencies).loadClass(AnnotatedListener.class.getName());
+            assertEquals(1, new MetadataReader(reopened).getMessageListener(listener).getHandlers().length);
+            assertEquals(0L, reopened.getHitCount());
+            reopened.save();
+        }
+    }
+
+    @Test
+    public void testReplacedJarInvalidatesEntry() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("jar.idx");
+        Path jar = folder.getRoot().toPath().resolve("listeners.jar");
+        Class<?>[] dependencies = {AnnotatedListener.class, ListenerContract.class, CustomHandler.class};
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Class<?> dependency : dependencies) {
+                String name = dependency.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new JarEntry(name));
+                try (InputStream bytecode = dependency.getResourceAsStream("/" + name)) {
+                    byte[] buffer = new byte[4096];
+                    for (int read = bytecode.read(buffer); read > 0; read = bytecode.read(buffer)) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+        MetadataIndex index = MetadataIndex.open(file);
+        new MetadataReader(index).getMessageListener(isolated(jar, dependencies).loadClass(AnnotatedListener.class.getName()));
+        index.save();
+
+        MetadataIndex reopened = MetadataIndex.open(file);
+        new MetadataReader(reopened).getMessageListener(isolated(jar, dependencies).loadClass(AnnotatedListener.class.getName()));
+        assertEquals(1L, reopened.getHitCount());
+
+        // the jar is replaced while the JVM is running and loaded again
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 60000));
+        reopened = MetadataIndex.open(file);
+        new MetadataReader(reopened).getMessageListener(isolated(jar, dependencies).loadClass(AnnotatedListener.class.getName()));
+        assertEquals(0L, reopened.getHitCount());
+    }
+
+    // a class loader that loads the given classes from the given directory or jar, all others from the class path
+    private static ClassLoader isolated(Path directory, Class<?>... classes) throws Exception {
+        final Set<String> names = new HashSet<String>();
+        for (Class<?> type : classes) {
+            names.add(type.getName());
+        }
+        return new URLClassLoader(new URL[]{directory.toUri().toURL()}, MetadataIndexTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!names.contains(name)) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    return loaded != null ? loaded : findClass(name);
+                }
+            }
+        };
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @Handler
+    public @interface CustomHandler {
+    }
+
+    public interface ListenerContract {
+
+        void handleString(String message);
+    }
+
+    public static class AnnotatedListener implements ListenerContract {
+
+        @CustomHandler
+        public void handleString(String message) {
+        }
+    }
+
+    public static class BaseListener {
+
+        @Handler
+        public void handleString(String message) {
+        }
+
+        @Handler(priority = 5)
+        public void handleInteger(Integer message) {
+        }
+    }
+
+    public static class ExtendedListener extends BaseListener {
+
+        // overrides the implementation and inherits the configuration
+        @Override
+        public void handleInteger(Integer message) {
+        }
+
+        @Handler
+        public void handleStringAgain(String message) {
+        }
+    }
+
+    public static class NoListener {
+
+        public void handleString(String message) {
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.common.AssertSupport;
+import net.engio.mbassy.common.ConcurrentExecutor;
+import net.engio.mbassy.listener.MessageHandler;
+import net.engio.mbassy.listener.MessageListener;
+import org.junit.Test;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.MetadataReader;
+
+import java.io.BufferedReader;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static net.engio.mbassy.listener.MessageListener.ForMessage;
+
+/**
+ *
+ * @author bennidi
+ *         Date: 12/16/12
+ */
+public class MetadataReaderTest extends AssertSupport {
+
+    private MetadataReader reader = new MetadataReader();
+
+    @Test
+    public void testListenerWithoutInheritance() {
+        MessageListener<MessageListener1> listener = reader.getMessageListener(MessageListener1.class);
+        ListenerValidator validator = new ListenerValidator()
+                .expectHandlers(2, String.class)
+                .expectHandlers(2, Object.class)
+                .expectHandlers(1, BufferedReader.class);
+        validator.check(listener);
+    }
+
+    /*
+    public void testInterfaced() {
+        MessageListener listener = reader.getMessageListener(InterfacedListener.class);
+        ListenerValidator validator = new ListenerValidator()
+                .expectHandlers(1, Object.class);
+        validator.check(listener);
+    }  WIP */
+
+
+    @Test
+    public void testListenerWithInheritance() {
+        MessageListener<MessageListener2> listener = reader.getMessageListener(MessageListener2.class);
+        ListenerValidator validator = new ListenerValidator()
+                .expectHandlers(2, String.class)
+                .expectHandlers(2, Object.class)
+                .expectHandlers(1, BufferedReader.class);
+        validator.check(listener);
+    }
+
+    @Test
+    public void testListenerWithInheritanceOverriding() {
+        MessageListener<MessageListener3> listener = reader.getMessageListener(MessageListener3.class);
+
+        ListenerValidator validator = new ListenerValidator()
+                .expectHandlers(0, String.class)
+                .expectHandlers(2, Object.class)
+                .expectHandlers(0, BufferedReader.class);
+        validator.check(listener);
+    }
+
+    @Test
+    public void testHandlerBuilder() throws Exception {
+        Method method = MessageListener1.class.getMethod("handleObject", Object.class);
+        Handler config = method.getAnnotation(Handler.class);
+        MessageListener listener = new MessageListener(MessageListener1.class);
+
+        MessageHandler handler = MessageHandler.Builder.Create(method, config, null, listener).build();
+        assertEquals(Object.class, handler.getHandledMessage());
+        assertFalse(handler.acceptsSubtypes());
+        assertFalse(handler.isFiltered());
+        assertEquals(method, handler.getMethod());
+
+        // the legacy property map yields the same configuration
+        MessageHandler legacy = new MessageHandler(MessageHandler.Properties.Create(method, config, null, listener));
+        assertEquals(handler.getHandledMessage(), legacy.getHandledMessage());
+        assertEquals(handler.acceptsSubtypes(), legacy.acceptsSubtypes());
+        assertEquals(handler.getPriority(), legacy.getPriority());
+        assertEquals(handler.getHandlerInvocation(), legacy.getHandlerInvocation());
+
+        try {
+            new MessageHandler.Builder().setHandler(method).build();
+            fail("Missing properties must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMetadataIsSharedAndComputedOnce() {
+        final MessageListener[] results = new MessageListener[20];
+        final AtomicInteger index = new AtomicInteger();
+        // each thread uses its own reader like different buses would do
+        ConcurrentExecutor.runConcurrent(new Runnable() {
+            @Override
+            public void run() {
+                results[index.getAndIncrement()] = new MetadataReader().getMessageListener(MessageListener2.class);
+            }
+        }, results.length);
+        for (MessageListener result : results) {
+            assertTrue(result == results[0]);
+        }
+        assertTrue(reader.getMessageListener(MessageListener2.class) == results[0]);
+        assertFalse(reader.getMessageListener(MessageListener3.class) == results[0]);
+    }
+
+    // Define and assert expectations on handlers in a listener
+    @Test
+    public void testInheritedHandlersAreShared() {
+        MessageListener<MessageListener2> listener2 = reader.getMessageListener(MessageListener2.class);
+        MessageListener<MessageListener4> listener4 = reader.getMessageListener(MessageListener4.class);
+
+        // inherited handlers share their metadata but belong to the listener that inherits them
+        MessageHandler handleObject2 = getHandler(listener2, "handleObject");
+        MessageHandler handleObject4 = getHandler(listener4, "handleObject");
+        assertTrue(handleObject2 != handleObject4);
+        assertTrue(handleObject2.getMethodHandle() == handleObject4.getMethodHandle());
+        assertTrue(handleObject2.getFilter() == handleObject4.getFilter());
+        assertTrue(handleObject2.isFromListener(MessageListener2.class));
+        assertTrue(handleObject4.isFromListener(MessageListener4.class));
+        assertFalse(handleObject4.isFromListener(MessageListener2.class));
+
+        // overriding methods are resolved separately
+        MessageHandler handleString2 = getHandler(listener2, "handleString");
+        MessageHandler handleString4 = getHandler(listener4, "handleString");
+        assertEquals(MessageListener2.class, handleString2.getMethod().getDeclaringClass());
+        assertEquals(MessageListener1.class, handleString4.getMethod().getDeclaringClass());
+        assertTrue(handleString2.getMethodHandle() != handleString4.getMethodHandle());
+    }
+
+    private MessageHandler getHandler(MessageListener<?> listener, String name) {
+        for (MessageHandler handler : listener.getHandlers()) {
+            if (handler.getMethod().getName().equals(name)) {
+                return handler;
+            }
+        }
+        throw new AssertionError("No handler " + name);
+    }
+
+    private class ListenerValidator {
+
+        private Map<Class<?>, Integer> handlers = new HashMap<Class<?>, Integer>();
+
+        public ListenerValidator expectHandlers(Integer count, Class<?> messageType){
+            handlers.put(messageType, count);
+            return this;
+        }
+
+        public void check(MessageListener listener){
+            for(Map.Entry<Class<?>, Integer> expectedHandler: handlers.entrySet()){
+                if(expectedHandler.getValue() > 0){
+                    assertTrue(listener.handles(expectedHandler.getKey()));
+                }
+                else{
+                    assertFalse(listener.handles(expectedHandler.getKey()));
+                }
+                assertEquals(expectedHandler.getValue(), listener.getHandlers(ForMessage(expectedHandler.getKey())).size());
+            }
+        }
+
+    }
+
+
+    // a simple event listener
+    public class MessageListener1 {
+
+        @Handler(rejectSubtypes = true)
+        public void handleObject(Object o) {
+
+        }
+
+        @Handler
+        public void handleAny(Object o) {
+
+        }
+
+
+        @Handler
+        public void handleString(String s) {
+
+        }
+
+    }
+
+    // the same handlers as its super class
+    public class MessageListener2 extends MessageListener1 {
+
+        // redefine handler implementation (not configuration)
+        public void handleString(String s) {
+
+        }
+
+    }
+
+    public class MessageListener3 extends MessageListener2 {
+
+        // narrow the handler
+        @Handler(rejectSubtypes = true)
+        public void handleAny(Object o) {
+
+        }
+
+        @Handler(enabled = false)
+        public void handleString(String s) {
+
+        }
+
+    }
+
+    // inherits all handlers without overriding any of them
+    public class MessageListener4 extends MessageListener1 {
+
+    }
+}
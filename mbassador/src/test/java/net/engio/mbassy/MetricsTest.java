@@ -0,0 +1,169 @@
+package net.engio.mbassy;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.config.Feature;
+import net.engio.mbassy.bus.config.IBusConfiguration;
+import net.engio.mbassy.bus.metrics.LatencyHistogram;
+import net.engio.mbassy.bus.metrics.MessageMetrics;
+import net.engio.mbassy.common.MessageBusTest;
+import net.engio.mbassy.listener.Handler;
+import net.engio.mbassy.listener.Invoke;
+import net.engio.mbassy.messages.StandardMessage;
+
+/**
+ * Tests the invocation counts, error counts and latencies recorded by the metrics feature
+ */
+public class MetricsTest extends MessageBusTest {
+
+    @Test
+    public void testHandlerInvocationsAreMeasured() {
+        MessageMetrics metrics = new MessageMetrics();
+        MBassador bus = createBus(SyncAsync().addFeature(new Feature.Metrics().setMetrics(metrics)));
+        bus.subscribe(new SlowListener());
+
+        for (int i = 0; i < 5; i++) {
+            bus.publish(new StandardMessage());
+        }
+
+        MessageMetrics.Statistics statistics = statisticsOf(metrics, "sleep");
+        assertEquals(5L, statistics.getCount());
+        assertEquals(0L, statistics.getErrorCount());
+        assertTrue(statistics.getLatencies().getPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(5L, metrics.getPublicationStatistics(StandardMessage.class).getCount());
+        assertTrue(metrics.getPublicationStatistics(StandardMessage.class).getLatencies().getMaxNanos()
+                >= statistics.getLatencies().getMaxNanos());
+    }
+
+    @Test
+    public void testHandlerErrorsAreCounted() {
+        MessageMetrics metrics = new MessageMetrics();
+        MBassador bus = createBus(SyncAsync(false).addFeature(new Feature.Metrics().setMetrics(metrics)));
+        bus.subscribe(new FailingListener());
+
+        bus.publish(new StandardMessage());
+        bus.publish(new StandardMessage());
+
+        MessageMetrics.Statistics statistics = statisticsOf(metrics, "fail");
+        assertEquals(2L, statistics.getCount());
+        assertEquals(2L, statistics.getErrorCount());
+        assertEquals(2L, metrics.getPublicationStatistics(StandardMessage.class).getErrorCount());
+    }
+
+    @Test
+    public void testAsynchronousInvocationsAreMeasured() {
+        MessageMetrics metrics = new MessageMetrics();
+        MBassador bus = createBus(SyncAsync(false).addFeature(new Feature.Metrics().setMetrics(metrics)));
+        bus.subscribe(new AsyncFailingListener());
+
+        for (int i = 0; i < 3; i++) {
+            bus.publish(new StandardMessage());
+        }
+
+        MessageMetrics.Statistics statistics = statisticsOf(metrics, "failAsynchronously");
+        long start = System.currentTimeMillis();
+        while (statistics.getErrorCount() < 3 && System.currentTimeMillis() - start < 5000) {
+            pause(10);
+        }
+        assertEquals(3L, statistics.getCount());
+        assertEquals(3L, statistics.getErrorCount());
+    }
+
+    @Test
+    public void testInheritedHandlerHasSingleStatistics() throws Exception {
+        MessageMetrics metrics = new MessageMetrics();
+        MBassador bus = createBus(SyncAsync().addFeature(new Feature.Metrics().setMetrics(metrics)));
+        bus.subscribe(new FirstSlowListener());
+        bus.subscribe(new SecondSlowListener());
+
+        bus.publish(new StandardMessage());
+
+        Method handler = SlowListener.class.getMethod("sleep", StandardMessage.class);
+        assertEquals(1, metrics.getHandlerStatistics().size());
+        assertEquals(2L, metrics.getHandlerStatistics(handler).getCount());
+        assertEquals(2L, statisticsOf(metrics, "sleep").getCount());
+    }
+
+    @Test
+    public void testNothingIsRecordedWithoutFeature() {
+        MBassador bus = createBus(SyncAsync());
+        bus.subscribe(new SlowListener());
+        bus.publish(new StandardMessage());
+
+        assertFalse(bus.getRuntime().contains(IBusConfiguration.Properties.Metrics));
+    }
+
+    @Test
+    public void testHistogramAccuracy() {
+        for (long nanos : new long[]{0, 1, 3, 4, 5, 7, 8, 100, 1000, 123456789L, 1L << 40}) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(nanos);
+            histogram.record(Long.MAX_VALUE);
+            // the median is reported as the upper bound of the bucket, at most 25% above the recorded duration
+            long median = histogram.getPercentile(50);
+            assertTrue(median >= nanos && median <= nanos * 1.25 + 1);
+            assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(1000000L, histogram.getMaxNanos());
+        assertEquals(500500L, Math.round(histogram.getMeanNanos()));
+        long median = histogram.getPercentile(50);
+        assertTrue(median >= 500000 && median <= 500000 * 1.25);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p99 >= 990000 && p99 <= 1000000);
+        assertEquals(1000000L, histogram.getPercentile(100));
+    }
+
+    private MessageMetrics.Statistics statisticsOf(MessageMetrics metrics, String method) {
+        for (Method handler : metrics.getHandlerStatistics().keySet()) {
+            if (handler.getName().equals(method)) {
+                return metrics.getHandlerStatistics(handler);
+            }
+        }
+        fail("No statistics for handler " + method);
+        return null;
+    }
+
+    public static class SlowListener {
+
+        @Handler
+        public void sleep(StandardMessage message) throws InterruptedException {
+            Thread.sleep(2);
+        }
+    }
+
+    public static class FirstSlowListener extends SlowListener {
+    }
+
+    public static class SecondSlowListener extends SlowListener {
+    }
+
+    public static class FailingListener {
+
+        @Handler
+        public void fail(StandardMessage message) {
+            throw new IllegalStateException("expected");
+        }
+    }
+
+    public static class AsyncFailingListener {
+
+        @Handler(delivery = Invoke.Asynchronously)
+        public void failAsynchronously(StandardMessage message) {
+            throw new IllegalStateException("expected");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
+import net.engio.mbassy.common.StrongCopyOnWriteSet;
+
+public class StrongCopyOnWriteSetTest extends CopyOnWriteSetTest {
+
+    @Override
+    protected AbstractCopyOnWriteSet createSet() {
+        return new StrongCopyOnWriteSet();
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.Test;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Test the subscriptions as generated and organized by the subscription manager. Tests use different sets of listeners
@@ -211,6 +212,51 @@ public class SubscriptionManagerTest extends AssertSupport {
         runTestWith(listeners, expectedSubscriptions);
     }
 
+    @Test
+    public void testCacheStatistics() {
+        SubscriptionManager subscriptionManager = new SubscriptionManager(new MetadataReader(), new SubscriptionFactory(), mockedRuntime());
+        PrioritizedListener first = new PrioritizedListener();
+        subscriptionManager.subscribe(first);
+        assertEquals(1L, subscriptionManager.getCacheInvalidationCount());
+
+        subscriptionManager.getSubscriptionsByMessageType(StandardMessage.class);
+        subscriptionManager.getSubscriptionsByMessageType(StandardMessage.class);
+        assertEquals(1L, subscriptionManager.getCacheRebuildCount());
+
+        PrioritizedListener second = new PrioritizedListener();
+        subscriptionManager.subscribe(second);
+        subscriptionManager.unsubscribe(first);
+        assertEquals(3L, subscriptionManager.getCacheInvalidationCount());
+
+        subscriptionManager.getSubscriptionsByMessageType(StandardMessage.class);
+        assertEquals(2L, subscriptionManager.getCacheRebuildCount());
+        assertEquals(0L, subscriptionManager.getLockStatistics().getWaitCount());
+    }
+
+    @Test
+    public void testLockStatisticsRecordContendedAcquisitions() throws Exception {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final LockStatistics statistics = new LockStatistics();
+        statistics.lockRead(lock);
+        lock.readLock().unlock();
+        statistics.lockWrite(lock);
+        assertEquals(0L, statistics.getWaitCount());
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                statistics.lockRead(lock);
+                lock.readLock().unlock();
+            }
+        });
+        reader.start();
+        Thread.sleep(50);
+        lock.writeLock().unlock();
+        reader.join();
+        assertEquals(1L, statistics.getWaitCount());
+        assertTrue(statistics.getWaitNanos() > 0);
+    }
+
     private BusRuntime mockedRuntime() {
         return new BusRuntime(null)
                 .add(IBusConfiguration.Properties.PublicationErrorHandlers, Collections.EMPTY_SET)
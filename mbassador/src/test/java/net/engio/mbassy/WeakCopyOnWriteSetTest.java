@@ -0,0 +1,111 @@
+package net.engio.mbassy;
+
+import net.engio.mbassy.common.AbstractCopyOnWriteSet;
+import net.engio.mbassy.common.ReferenceCleaner;
+import net.engio.mbassy.common.WeakCopyOnWriteSet;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashSet;
+import java.util.Set;
+
+public class WeakCopyOnWriteSetTest extends CopyOnWriteSetTest {
+
+    @Override
+    protected AbstractCopyOnWriteSet createSet() {
+        return new WeakCopyOnWriteSet();
+    }
+
+    @Test
+    public void testStaleSlotsAreSkippedAndExpunged() {
+        Set<Object> permanentElements = new HashSet<Object>();
+        AbstractCopyOnWriteSet<Object> testSet = createSet();
+        for (int i = 0; i < numberOfElements; i++) {
+            Object candidate = new Object();
+            if (i % 3 == 0) {
+                permanentElements.add(candidate);
+            }
+            testSet.add(candidate);
+        }
+
+        runGC();
+
+        // readers skip garbage collected elements
+        assertEquals(permanentElements.size(), currentElements(testSet).size());
+        for (Object permanent : permanentElements) {
+            assertTrue(testSet.contains(permanent));
+        }
+
+        // stale slots can be removed explicitly (if the cleaner has not yet done so)
+        testSet.expungeStaleSlots();
+        assertEquals(permanentElements.size(), testSet.snapshot().size);
+        assertEquals(permanentElements.size(), testSet.size());
+    }
+
+    @Test
+    public void testBackgroundCleanup() {
+        Set<Object> permanentElements = new HashSet<Object>();
+        AbstractCopyOnWriteSet<Object> testSet = createSet();
+        for (int i = 0; i < numberOfElements; i++) {
+            Object candidate = new Object();
+            if (i % 2 == 0) {
+                permanentElements.add(candidate);
+            }
+            testSet.add(candidate);
+        }
+        long collectedBefore = ReferenceCleaner.getCollectedCount();
+
+        runGC();
+
+        // no reads or writes happen, the snapshot must be updated by the reference cleaner
+        long start = System.currentTimeMillis();
+        while (testSet.size() > permanentElements.size() && System.currentTimeMillis() - start < 10000) {
+            pause(10);
+        }
+        assertEquals(permanentElements.size(), testSet.size());
+        // the stale slots have been dropped since they make up half of the set
+        assertEquals(permanentElements.size(), testSet.snapshot().size);
+        assertEquals((long) (numberOfElements - permanentElements.size()), testSet.getCollectedCount());
+        assertTrue(ReferenceCleaner.getCollectedCount() - collectedBefore >= numberOfElements - permanentElements.size());
+
+        // explicitly removed elements are not counted as collected
+        for (Object permanent : permanentElements) {
+            testSet.remove(permanent);
+        }
+        permanentElements.clear();
+        runGC();
+        pause(100);
+        assertEquals((long) numberOfElements / 2, testSet.getCollectedCount());
+    }
+
+    @Test
+    public void testCleanerThreadCanBeStopped() {
+        ReferenceCleaner.shutdown();
+        assertFalse(ReferenceCleaner.isRunning());
+        assertNull(findCleanerThread());
+
+        // the thread is started again by the next weak slot and does not retain the context class loader of its creator
+        Thread current = Thread.currentThread();
+        ClassLoader previous = current.getContextClassLoader();
+        current.setContextClassLoader(new URLClassLoader(new URL[0], previous));
+        try {
+            createSet().add(new Object());
+        } finally {
+            current.setContextClassLoader(previous);
+        }
+        assertTrue(ReferenceCleaner.isRunning());
+        Thread cleaner = findCleanerThread();
+        assertNotNull(cleaner);
+        assertNull(cleaner.getContextClassLoader());
+    }
+
+    private static Thread findCleanerThread() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("ReferenceCleaner".equals(thread.getName()) && thread.isAlive()) {
+                return thread;
+            }
+        }
+        return null;
+    }
+}